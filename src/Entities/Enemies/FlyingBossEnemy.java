@@ -10,11 +10,11 @@ import Structure.Room;
 import Structure.Vector2F;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.AssetCache;
+import Universal.SharedEffects;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents a flying boss enemy in the game.
@@ -45,7 +45,7 @@ public class FlyingBossEnemy extends Enemy {
         super(x, y, defaultWidth, defaultHeight, health, 679);
         setAffectedByGravity(false);
         try {
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/acorn2.png"))));
+            addFrame(AssetCache.getImage("/Enemies/acorn2.png"));
 
         } catch (IOException e) {
             System.out.println("Enemy image not found: " + e);
@@ -132,7 +132,7 @@ public class FlyingBossEnemy extends Enemy {
     public void updatePlayerInfo(Player player) {
         super.updatePlayerInfo(player);
         if (player.getHitbox().quickIntersect(getHitbox())) {
-            player.damagePlayer(1, this);
+            SharedEffects.apply(() -> player.damagePlayer(1, this));
         }
 
         if (getStats().getHealth() > getStats().getMaxHealth()/2) {
@@ -141,7 +141,7 @@ public class FlyingBossEnemy extends Enemy {
                 player.getCenterVector().getTranslated(getCenterVector().getNegative()).normalize();
                 Projectile newProjectile = new Projectile(getCenterVector(), new Vector2F(1000, 1000), velocity.multiply(5), 1);
                 try {
-                    newProjectile.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/enemy_projectile.png"))));
+                    newProjectile.addFrame(AssetCache.getImage("/Enemies/enemy_projectile.png"));
 
                 } catch (IOException e) {
                     System.out.println("Enemy image not found: " + e);
@@ -164,7 +164,7 @@ public class FlyingBossEnemy extends Enemy {
     public void resolveEntityCollision(Player player) {
         for (Projectile p: projectiles) {
             if (player.collidesWith(p)) {
-                p.processEntityHit(this, player);
+                SharedEffects.apply(() -> p.processEntityHit(this, player));
             }
         }
     }
@@ -198,6 +198,7 @@ public class FlyingBossEnemy extends Enemy {
         }
 
         for (Projectile p: projectiles) {
+            p.setTimeStep(getTimeStep());
             p.updateValues();
         }
     }
@@ -245,7 +246,7 @@ public class FlyingBossEnemy extends Enemy {
     public void paint(Camera c) {
         super.paint(c);
         for (Projectile p : new ArrayList<>(projectiles)) {
-            p.paint(c);
+            c.paintEntity(p);
         }
     }
 }
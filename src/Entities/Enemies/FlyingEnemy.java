@@ -7,11 +7,12 @@ import Structure.Room;
 import Structure.Vector2F;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.AssetCache;
+import Universal.SharedEffects;
+import Universal.GameRandom;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents a flying enemy in the game.
@@ -42,7 +43,7 @@ public class FlyingEnemy extends Enemy {
         super(x, y, defaultWidth, defaultHeight, health, 25000000);
         setAffectedByGravity(false);
         try {
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/acorn1.png"))));
+            addFrame(AssetCache.getImage("/Enemies/acorn1.png"));
 
         } catch (IOException e) {
             System.out.println("Enemy image not found: " + e);
@@ -63,11 +64,11 @@ public class FlyingEnemy extends Enemy {
         velocity = getPlayerPos().getTranslated(getCenterVector().getNegative()).normalize().multiply(1/5.0);
 
         if (getPlayerPos().getEuclideanDistance(getCenterVector()) > 300000000) {
-            if (Math.random() > 0.6) velocity.setY(-velocity.getY());
+            if (GameRandom.ai().nextDouble() > 0.6) velocity.setY(-velocity.getY());
             setIntendedVX(velocity.getX());
             setIntendedVY(velocity.getY());
         } else {
-            if (Math.random() > 0.6) velocity.setY(-velocity.getY());
+            if (GameRandom.ai().nextDouble() > 0.6) velocity.setY(-velocity.getY());
             setIntendedVX(-velocity.getX());
             setIntendedVY(-velocity.getY());
         }
@@ -125,13 +126,13 @@ public class FlyingEnemy extends Enemy {
     public void updatePlayerInfo(Player player) {
         super.updatePlayerInfo(player);
         if (player.getHitbox().quickIntersect(getHitbox())) {
-            player.damagePlayer(1, this);
+            SharedEffects.apply(() -> player.damagePlayer(1, this));
         }
         if (shootTimer.isReady() && player.getCenterVector().getEuclideanDistance(getCenterVector()) < 400000000) {
             shootTimer.reset();
             Projectile newProjectile = new Projectile(getCenterVector(), new Vector2F(1000, 1000), velocity.multiply(3), 1);
             try {
-                newProjectile.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/enemy_projectile.png"))));
+                newProjectile.addFrame(AssetCache.getImage("/Enemies/enemy_projectile.png"));
 
             } catch (IOException e) {
                 System.out.println("Enemy image not found: " + e);
@@ -152,7 +153,7 @@ public class FlyingEnemy extends Enemy {
     public void resolveEntityCollision(Player player) {
         for (Projectile p: projectiles) {
             if (player.collidesWith(p)) {
-                p.processEntityHit(this, player);
+                SharedEffects.apply(() -> p.processEntityHit(this, player));
             }
         }
     }
@@ -182,6 +183,7 @@ public class FlyingEnemy extends Enemy {
         super.updateValues();
         followPlayer();
         for (Projectile p: projectiles) {
+            p.setTimeStep(getTimeStep());
             p.updateValues();
         }
     }
@@ -229,7 +231,7 @@ public class FlyingEnemy extends Enemy {
     public void paint(Camera c) {
         super.paint(c);
         for (Projectile p : new ArrayList<>(projectiles)) {
-            p.paint(c);
+            c.paintEntity(p);
         }
     }
 }
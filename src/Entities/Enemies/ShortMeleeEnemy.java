@@ -6,14 +6,16 @@ import Items.Melee.MeleeWeapon;
 import Items.Melee.ShortSword;
 import Items.Weapon;
 import Managers.ActionManager;
-import Structure.Edge;
+import Structure.FlowField;
 import Structure.NodeMap;
+import Structure.PathScheduler;
 import Structure.Vector2F;
 import Universal.Camera;
+import Universal.AssetCache;
+import Universal.SharedEffects;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
-import java.util.*;
+import java.util.Objects;
 
 /**
  * Represents a short-range melee enemy in the game.
@@ -22,13 +24,14 @@ import java.util.*;
  * for an enemy that uses a melee weapon to attack the player.
  * </p>
  */
-public class ShortMeleeEnemy extends Enemy {
+public class ShortMeleeEnemy extends Enemy implements PathScheduler.Listener {
 
     private final static int defaultHeight = 2000; // asl
     private final static int defaultWidth = 1000;
 
     private boolean isDashing, isAttacking, isPlayerFound;
     private MeleeWeapon sword;
+    private final PathScheduler.Request pathRequest = new PathScheduler.Request(this);
 
     /**
      * Constructs a ShortMeleeEnemy with specified position and health.
@@ -42,7 +45,7 @@ public class ShortMeleeEnemy extends Enemy {
         sword = new ShortSword();
         sword.setLocation(getCenterVector());
         try {
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/leaf.png"))));
+            addFrame(AssetCache.getImage("/Enemies/leaf.png"));
 
         } catch (IOException e) {
             System.out.println("Enemy image not found: " + e);
@@ -57,7 +60,7 @@ public class ShortMeleeEnemy extends Enemy {
     @Override
     public void updatePlayerInfo(Player player) {
         super.updatePlayerInfo(player);
-        sword.doCollisionCheck(this, player);
+        SharedEffects.apply(() -> sword.doCollisionCheck(this, player));
     }
 
     /**
@@ -93,6 +96,10 @@ public class ShortMeleeEnemy extends Enemy {
 
     /**
      * Creates a path of nodes for the enemy to follow to reach the player.
+     * <p>
+     * The next node is read from the room's flow field, which is shared by every enemy in the room
+     * and only searched again when the player's nearest node changes.
+     * </p>
      *
      * @param graph The node map used for pathfinding.
      */
@@ -102,47 +109,59 @@ public class ShortMeleeEnemy extends Enemy {
         }
         else return;
 
-        PriorityQueue<Edge> q = new PriorityQueue<Edge>();
-        Map<Vector2F, ArrayList<Vector2F>> reversedMap = new HashMap<Vector2F, ArrayList<Vector2F>>();
-        Map<Vector2F, Boolean> v = new HashMap<Vector2F, Boolean>();
-
-        Vector2F cur_node = new Vector2F(), prev_node;
-        double cur_dist;
-        Vector2F start = getPos().getTranslated(graph.getTranslateOffset().getNegative());
-
-        q.add(new Edge(0.0, start, start));
-        while (!q.isEmpty()) {
-            cur_node = q.peek().getNode1();
-            prev_node = q.peek().getNode2();
-            cur_dist = q.remove().getDist();
-            v.put(cur_node, true);
-            if (cur_node != prev_node) {
-                reversedMap.computeIfAbsent(cur_node, k -> new ArrayList<Vector2F>()).add(prev_node);
-            }
+        Vector2F offset = graph.getTranslateOffset();
+        FlowField flowField = graph.getFlowField();
+        flowField.setTargetPoint(graph, getPlayerPos().getTranslated(offset.getNegative()));
 
-            if (Objects.equals(cur_node, graph.getNearestNode(getPlayerPos().getTranslated(graph.getTranslateOffset().getNegative())))) {
-                isPlayerFound = true;
-                break;
-            }
-            if (graph.getEdges().get(cur_node) == null) {
-                continue;
-            }
-            for (Vector2F node : graph.getEdges().get(cur_node)) {
-                if (v.get(node) == null) {
-                    if (node.getYDistance(cur_node) > 1000000) {
-                        continue;
-                    }
-                    q.add(new Edge(cur_node.getEuclideanDistance(node) + cur_dist + node.getTranslated(graph.getTranslateOffset()).getEuclideanDistance(getPlayerPos()), node, cur_node));
-                }
-            }
+        Vector2F start = getPos().getTranslated(offset.getNegative());
+        Vector2F next = flowField.getNextNode(start);
+        isPlayerFound = next != null;
+
+        getPath().clear();
+        getPath().add(start.getTranslated(offset));
+        if (next != null && !next.equals(start)) {
+            getPath().add(next.getTranslated(offset));
+        }
+    }
+
+    /**
+     * Requests the next node towards the player from the path scheduler instead of reading the flow field straight away.
+     * The path is replaced when the request runs, and the nearest enemies are served first.
+     *
+     * @param graph The node map used for pathfinding.
+     * @param scheduler The scheduler that runs path searches.
+     */
+    @Override
+    public void requestPath(NodeMap graph, PathScheduler scheduler) {
+        if (getPathTimer().isReady()) {
+            getPathTimer().reset();
         }
-        Queue<Vector2F> q2 = new LinkedList<Vector2F>();
-        q2.add(cur_node);
+        else return;
+
+        Vector2F offset = graph.getTranslateOffset();
+        Vector2F start = getPos().getTranslated(offset.getNegative()), point = getPlayerPos().getTranslated(offset.getNegative());
+        long priority = getPlayerPos().getEuclideanDistance(getPos());
+        SharedEffects.apply(() -> { // The scheduler is shared by every room
+            if (!scheduler.submit(pathRequest, graph, start, point, priority)) {
+                onPathFound(pathRequest); // Nothing changed since the last result
+            }
+        });
+    }
+
+    /**
+     * Replaces the path with the result of a path request.
+     *
+     * @param request The request that ran.
+     */
+    @Override
+    public void onPathFound(PathScheduler.Request request) {
+        Vector2F offset = request.getMap().getTranslateOffset();
+        isPlayerFound = request.isFound();
+
         getPath().clear();
-        while (!q2.isEmpty()) {
-            getPath().add(0, q2.peek().getTranslated(graph.getTranslateOffset()));
-            if (reversedMap.get(q2.peek()) == null) break;
-            q2.add(reversedMap.get(q2.remove()).get(0));
+        getPath().add(request.getStart().getTranslated(offset));
+        if (request.isFound() && !request.getNextNode().equals(request.getStart())) {
+            getPath().add(request.getNextNode().getTranslated(offset));
         }
     }
 
@@ -7,11 +7,12 @@ import Structure.NodeMap;
 import Structure.Vector2F;
 import Universal.GameTimer;
 import Universal.Camera;
+import Universal.AssetCache;
+import Universal.SharedEffects;
+import Universal.GameRandom;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents a summoner boss enemy in the game.
@@ -38,7 +39,7 @@ public class SummonerBossEnemy extends Enemy {
     public SummonerBossEnemy(int x, int y, int health) {
         super(x, y, defaultWidth, defaultHeight, health, 'D' + 'a' + 'b' + 'a' + 'b' + 'y');
         try {
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/leaf.png"))));
+            addFrame(AssetCache.getImage("/Enemies/leaf.png"));
 
         } catch (IOException e) {
             System.out.println("Enemy image not found: " + e);
@@ -62,7 +63,7 @@ public class SummonerBossEnemy extends Enemy {
     @Override
     public void generatePath(NodeMap graph) {
         // get random node in room
-        teleportOption = graph.getNodes().get((int)(Math.random() * graph.getNodes().size())).getTranslated(graph.getTranslateOffset());
+        teleportOption = graph.getNodes().get((int)(GameRandom.ai().nextDouble() * graph.getNodes().size())).getTranslated(graph.getTranslateOffset());
     }
 
     /**
@@ -93,7 +94,7 @@ public class SummonerBossEnemy extends Enemy {
     public void updatePlayerInfo(Player player) {
         super.updatePlayerInfo(player);
         if (player.getHitbox().quickIntersect(getHitbox())) {
-            player.damagePlayer(1, this);
+            SharedEffects.apply(() -> player.damagePlayer(1, this));
         }
     }
 
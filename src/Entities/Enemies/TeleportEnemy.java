@@ -10,11 +10,12 @@ import Structure.Room;
 import Structure.Vector2F;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.AssetCache;
+import Universal.SharedEffects;
+import Universal.GameRandom;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents a teleporting enemy in the game.
@@ -44,7 +45,7 @@ public class TeleportEnemy extends Enemy {
     public TeleportEnemy(int x, int y, int health) {
         super(x, y, defaultWidth, defaultHeight, health, 225);
         try {
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/wizard.png"))));
+            addFrame(AssetCache.getImage("/Enemies/wizard.png"));
 
         } catch (IOException e) {
             System.out.println("Enemy image not found: " + e);
@@ -73,7 +74,7 @@ public class TeleportEnemy extends Enemy {
         ArrayList<Vector2F> options = graph.getEdges().get(graph.getNearestNode(getPlayerPos().getTranslated(graph.getTranslateOffset().getNegative())));
         if (options == null || getPlayerPos().getEuclideanDistance(getBottomPos()) < 300000000) return;
         int nOptions = options.size();
-        teleportOption = options.get((int)(Math.random() * nOptions)).getTranslated(graph.getTranslateOffset());
+        teleportOption = options.get((int)(GameRandom.ai().nextDouble() * nOptions)).getTranslated(graph.getTranslateOffset());
     }
 
     @Override
@@ -96,7 +97,7 @@ public class TeleportEnemy extends Enemy {
     public void updatePlayerInfo(Player player) {
         super.updatePlayerInfo(player);
         if (player.getHitbox().quickIntersect(getHitbox())) {
-            player.damagePlayer(1, this);
+            SharedEffects.apply(() -> player.damagePlayer(1, this));
         }
         Vector2F velocity = getPlayerPos().getTranslated(getCenterVector().getNegative()).normalize().multiply(1/5.0);
 
@@ -110,7 +111,7 @@ public class TeleportEnemy extends Enemy {
             fireCount -= 1;
             Projectile newProjectile = new Projectile(getCenterVector(), new Vector2F(1000, 1000), velocity.multiply(3), 1);
             try {
-                newProjectile.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/enemy_projectile.png"))));
+                newProjectile.addFrame(AssetCache.getImage("/Enemies/enemy_projectile.png"));
 
             } catch (IOException e) {
                 System.out.println("Enemy image not found: " + e);
@@ -128,7 +129,7 @@ public class TeleportEnemy extends Enemy {
     public void resolveEntityCollision(Player player) {
         for (Projectile p: projectiles) {
             if (player.collidesWith(p)) {
-                p.processEntityHit(this, player);
+                SharedEffects.apply(() -> p.processEntityHit(this, player));
             }
         }
     }
@@ -166,6 +167,7 @@ public class TeleportEnemy extends Enemy {
             teleportTimer.reset();
         }
         for (Projectile p: projectiles) {
+            p.setTimeStep(getTimeStep());
             p.updateValues();
         }
     }
@@ -196,7 +198,7 @@ public class TeleportEnemy extends Enemy {
     public void paint(Camera c) {
         super.paint(c);
         for (Projectile p : new ArrayList<>(projectiles)) {
-            p.paint(c);
+            c.paintEntity(p);
         }
     }
 }
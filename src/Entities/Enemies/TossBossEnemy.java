@@ -11,11 +11,12 @@ import Structure.Room;
 import Structure.Vector2F;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.AssetCache;
+import Universal.SharedEffects;
+import Universal.GameRandom;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 import java.util.concurrent.BlockingDeque;
 
 /**
@@ -49,7 +50,7 @@ public class TossBossEnemy extends Enemy {
 //        centerWalkLoc = getCenterVector();
         centerWalkLoc = new Vector2F();
         try {
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/wizard.png"))));
+            addFrame(AssetCache.getImage("/Enemies/wizard.png"));
 
         } catch (IOException e) {
             System.out.println("Enemy image not found: " + e);
@@ -66,12 +67,12 @@ public class TossBossEnemy extends Enemy {
         centerWalkLoc = player.getCenterVector();
         if (shootTimer.isReady()) {
             shootTimer.reset();
-            Vector2F projVelo = new Vector2F((int) (Math.random() * 800 - 400), -(int)(Math.random() * 500 + 750));
+            Vector2F projVelo = new Vector2F((int) (GameRandom.ai().nextDouble() * 800 - 400), -(int)(GameRandom.ai().nextDouble() * 500 + 750));
             Projectile newProjectile = new Projectile(getCenterVector(), new Vector2F(2000, 2000), projVelo, 5);
             newProjectile.setAffectedByGravity(true);
             newProjectile.changeLifeSpan(180);
             try {
-                newProjectile.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/enemy_projectile.png"))));
+                newProjectile.addFrame(AssetCache.getImage("/Enemies/enemy_projectile.png"));
             } catch (IOException e) {
                 System.out.println("Projectile image not found: " + e);
             }
@@ -82,12 +83,12 @@ public class TossBossEnemy extends Enemy {
             blastTimer.reset();
 
             for (int i = 0; i < 40; i++) {
-                Vector2F projVelo = new Vector2F((int) (Math.random() * 1200 - 600), -(int)(Math.random() * 500 + 1000));
+                Vector2F projVelo = new Vector2F((int) (GameRandom.ai().nextDouble() * 1200 - 600), -(int)(GameRandom.ai().nextDouble() * 500 + 1000));
                 Projectile newProjectile = new Projectile(getCenterVector(), new Vector2F(2000, 2000), projVelo, 5);
                 newProjectile.setAffectedByGravity(true);
                 newProjectile.changeLifeSpan(180);
                 try {
-                    newProjectile.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Enemies/enemy_projectile.png"))));
+                    newProjectile.addFrame(AssetCache.getImage("/Enemies/enemy_projectile.png"));
                 } catch (IOException e) {
                     System.out.println("Projectile image not found: " + e);
                 }
@@ -105,7 +106,7 @@ public class TossBossEnemy extends Enemy {
     public void resolveEntityCollision(Player player) {
         for (Projectile p: projectiles) {
             if (player.collidesWith(p)) {
-                p.processEntityHit(this, player);
+                SharedEffects.apply(() -> p.processEntityHit(this, player));
             }
         }
     }
@@ -148,6 +149,7 @@ public class TossBossEnemy extends Enemy {
         }
 
         for (Projectile p: projectiles) {
+            p.setTimeStep(getTimeStep());
             p.updateValues();
         }
     }
@@ -210,7 +212,7 @@ public class TossBossEnemy extends Enemy {
     public void paint(Camera c) {
         super.paint(c);
         for (Projectile p : new ArrayList<>(projectiles)) {
-            p.paint(c);
+            c.paintEntity(p);
         }
     }
 }
@@ -4,7 +4,9 @@ import Managers.ActionManager;
 import Structure.Room;
 import Universal.Camera;
 import Structure.NodeMap;
+import Structure.PathScheduler;
 import Structure.Vector2F;
+import Universal.GameRandom;
 import Universal.GameTimer;
 
 import java.util.*;
@@ -13,8 +15,40 @@ import java.awt.Color;
 /**
  * Represents a generic enemy in the game.
  * This abstract class provides common properties and methods for different types of enemies.
+ * <p>
+ * Enemies are simulated in tiers by their distance to the player, whom the camera follows:
+ * every tick near the player, every few ticks with a larger time step further away, and not at all beyond that.
+ * An enemy only moves to a less detailed tier once it is a margin past the tier's radius,
+ * so enemies on a boundary do not switch tiers every tick.
+ * </p>
  */
 public abstract class Enemy extends Entity {
+    /**
+     * The levels of detail an enemy can be simulated at.
+     */
+    public enum SimulationTier {
+        /**
+         * Updated every tick.
+         */
+        FULL,
+        /**
+         * Updated every few ticks, each update covering the ticks since the last one.
+         */
+        REDUCED,
+        /**
+         * Not updated until the player comes closer.
+         */
+        DORMANT
+    }
+
+    public static final int DEFAULT_FULL_RADIUS = 40000; // A little more than half the diagonal of the game camera's view
+    public static final int DEFAULT_REDUCED_RADIUS = 100000;
+    public static final int DEFAULT_TIER_MARGIN = 5000;
+    public static final int DEFAULT_REDUCED_INTERVAL = 4;
+
+    private static int fullRadius = DEFAULT_FULL_RADIUS, reducedRadius = DEFAULT_REDUCED_RADIUS;
+    private static int tierMargin = DEFAULT_TIER_MARGIN, reducedInterval = DEFAULT_REDUCED_INTERVAL;
+
     public abstract void followPlayer();
     public abstract void generatePath(NodeMap graph);
     public abstract void updateEnemyPos(NodeMap graph);
@@ -30,6 +64,11 @@ public abstract class Enemy extends Entity {
     private GameTimer generatePathTimer = new GameTimer(60); // Timer to control path generation
     private boolean isPlayerNear, shouldAddEnemy;
     private Vector2F translateOffset = new Vector2F(); // Offset for translating the enemy position
+    private Vector2F center = new Vector2F(); // Reused for the enemy's center every update
+    private SimulationTier tier = SimulationTier.DORMANT;
+    private boolean simulated;
+    private int phase; // Spreads the updates of reduced enemies over the ticks of an interval
+    private int ticksSinceUpdate;
 
     /**
      * Constructs an enemy with specified position, dimensions, health, and sight radius.
@@ -48,6 +87,7 @@ public abstract class Enemy extends Entity {
 
         this.sightRadius = sightRadius;
         setDefaultColour(Color.ORANGE);
+        phase = GameRandom.ai().nextInt(0x10000); // Not the spawns stream, which enemies made during play must not move on
     }
 
     /**
@@ -61,7 +101,7 @@ public abstract class Enemy extends Entity {
         sightRadius = copy.sightRadius;
         setDefaultColour(Color.ORANGE);
         spawnLocation = copy.spawnLocation;
-
+        phase = copy.phase;
     }
 
     /**
@@ -76,6 +116,29 @@ public abstract class Enemy extends Entity {
         updateValues();
     }
 
+    /**
+     * Updates enemy values like updateValues(NodeMap, Player), but hands path searches to a shared scheduler.
+     *
+     * @param nodeMap The node map for pathfinding.
+     * @param player The player entity.
+     * @param scheduler The scheduler that runs path searches.
+     */
+    public void updateValues(NodeMap nodeMap, Player player, PathScheduler scheduler) {
+        updateEnemyPos(nodeMap);
+        requestPath(nodeMap, scheduler);
+        updateValues();
+    }
+
+    /**
+     * Requests a new path through a scheduler. Enemies whose paths are cheap to pick generate them straight away.
+     *
+     * @param graph The node map used for pathfinding.
+     * @param scheduler The scheduler that runs path searches.
+     */
+    public void requestPath(NodeMap graph, PathScheduler scheduler) {
+        generatePath(graph);
+    }
+
     /**
      * Handles despawning the enemy based on health and position.
      */
@@ -96,8 +159,103 @@ public abstract class Enemy extends Entity {
      * @param player The player entity.
      */
     public void updatePlayerInfo(Player player) {
-        playerPos = player.getCenterVector();
-        isPlayerNear = player.getCenterVector().getEuclideanDistance(getCenterVector()) < 10000000000L;
+        player.getCenterVector(playerPos);
+    }
+
+    /**
+     * Picks the enemy's simulation tier from its distance to the player and decides if it is updated this tick.
+     * This is run every tick for every enemy, so it only does a distance check.
+     *
+     * @param player The player entity.
+     */
+    public void updateSimulationTier(Player player) {
+        player.getCenterVector(playerPos);
+        tier = pickTier(tier, playerPos.getEuclideanDistance(getCenterVector(center)));
+        isPlayerNear = tier != SimulationTier.DORMANT;
+
+        ticksSinceUpdate++;
+        if (tier == SimulationTier.DORMANT) {
+            simulated = false;
+            ticksSinceUpdate = phase % reducedInterval;
+        } else if (tier == SimulationTier.FULL || ticksSinceUpdate >= reducedInterval) {
+            simulated = true;
+            setTimeStep(Math.min(ticksSinceUpdate, reducedInterval));
+            ticksSinceUpdate = 0;
+        } else {
+            simulated = false;
+        }
+    }
+
+    /**
+     * Picks the tier for a squared distance to the player. An enemy enters a tier inside its radius,
+     * but only leaves it once it is further than the radius plus the margin.
+     *
+     * @param current The enemy's current tier.
+     * @param distance The squared distance from the enemy to the player.
+     * @return The new tier.
+     */
+    private static SimulationTier pickTier(SimulationTier current, long distance) {
+        if (distance < square(fullRadius) || (current == SimulationTier.FULL && distance <= square(fullRadius + tierMargin))) {
+            return SimulationTier.FULL;
+        }
+        if (distance < square(reducedRadius) || (current != SimulationTier.DORMANT && distance <= square(reducedRadius + tierMargin))) {
+            return SimulationTier.REDUCED;
+        }
+        return SimulationTier.DORMANT;
+    }
+
+    private static long square(long value) {
+        return value * value;
+    }
+
+    /**
+     * Changes the radii of the simulation tiers for every enemy.
+     *
+     * @param full The distance to the player within which enemies are updated every tick.
+     * @param reduced The distance to the player within which enemies are updated at a reduced rate.
+     * @param margin The distance past a tier's radius an enemy must reach before it leaves the tier.
+     * @param interval The number of ticks between updates of reduced enemies.
+     */
+    public static void setSimulationTiers(int full, int reduced, int margin, int interval) {
+        if (full < 0 || reduced < full || margin < 0 || interval < 1) {
+            throw new IllegalArgumentException("Invalid simulation tiers: " + full + ", " + reduced + ", " + margin + ", " + interval);
+        }
+        fullRadius = full;
+        reducedRadius = reduced;
+        tierMargin = margin;
+        reducedInterval = interval;
+    }
+
+    /**
+     * Retrieves the enemy's current simulation tier.
+     *
+     * @return The simulation tier.
+     */
+    public SimulationTier getSimulationTier() {
+        return tier;
+    }
+
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Sets the phase that spreads the updates of reduced enemies over the ticks of an interval,
+     * so a copy of an enemy is updated on the same ticks as the enemy.
+     *
+     * @param phase The phase to use.
+     */
+    public void setPhase(int phase) {
+        this.phase = phase;
+    }
+
+    /**
+     * Checks if the enemy is updated this tick.
+     *
+     * @return True if the enemy is updated, false otherwise.
+     */
+    public boolean isSimulated() {
+        return simulated;
     }
 
     /**
@@ -239,7 +397,7 @@ public abstract class Enemy extends Entity {
     }
 
     /**
-     * Checks if the player is near the enemy.
+     * Checks if the player is near the enemy, meaning the enemy is not dormant.
      *
      * @return True if the player is near, false otherwise.
      */
@@ -13,18 +13,34 @@ import java.util.ArrayList;
  * Handles movement, collision detection, and rendering.
  */
 public class Entity {
+    /**
+     * The ways an entity can resolve its movement against room walls.
+     * BINARY_SEARCH bisects the velocity using convex movement hulls and works with any wall shape.
+     * SWEPT_AABB solves for the exact time of impact and assumes walls are axis-aligned rectangles.
+     */
+    public enum CollisionMode {BINARY_SEARCH, SWEPT_AABB}
+
+    private static CollisionMode collisionMode = CollisionMode.BINARY_SEARCH;
+    public static final int MAX_BLENDED_MOVE = 10000; // Longest move in one tick that is drawn as a movement rather than a jump
+
     private ArrayList<BufferedImage> frames;
     private Vector2F position, velocity, lastVelocity, constantVelocity;
     private Stats entityStats;
     private Hitbox hitbox;
     private HitboxGroup lastMovement = new HitboxGroup();
-    private Hitbox testHitbox = new Hitbox(0, 0, 1, 1);
+    private Hitbox[] movementBoxes = {new Hitbox(0, 0, 1, 1), new Hitbox(0, 0, 1, 1)}; // Reused by lastMovement every frame
+    private Hitbox probeBox = new Hitbox(0, 0, 1, 1); // Reused by collision searches and wall checks
+    private Vector2F resolvedVelocity = new Vector2F(), remainingVelocity = new Vector2F(), scratchVelocity = new Vector2F();
+    private ArrayList<Hitbox> nearbyWalls = new ArrayList<>(); // Reused by the swept collision mode
     private Color defaultColour = Color.GREEN;
     private boolean affectedByGravity = true, colliding, grounded, hittingCeiling, onLeft, onRight, destroyedOnWallImpact;
     private boolean toDelete;
+    private int timeStep = 1; // Ticks covered by each update, more than one for entities updated at a reduced rate
     private Vector2F imageOffset;
     private int frameIndex;
     private GameTimer frameSpeed;
+    private Vector2F drawnPosition = new Vector2F(), drawMotion = new Vector2F(); // Where the entity was last drawn, and how far it moved since
+    private long drawnFrame = -1;
 
     /**
      * Constructs an Entity with specified position and dimensions.
@@ -98,6 +114,28 @@ public class Entity {
         c.drawImage(frame, getLocation().getTranslated(imageOffset.getNegative()), getLocation().getTranslated(new Vector2F(frame.getWidth() * (getHeight() + imageOffset.getY()) / frame.getHeight(), getHeight() + imageOffset.getY())));
     }
 
+    /**
+     * Retrieves how far the entity moved since the previous frame was recorded, as its previous position minus its
+     * current one, so that painting can place it between the two. Moves longer than MAX_BLENDED_MOVE, such as
+     * teleports, are not blended, and neither is the first frame the entity is drawn in.
+     *
+     * @param frame the number of the frame being recorded
+     * @return the movement to undo when painting at the start of the tick
+     */
+    public Vector2F getDrawMotion(long frame) {
+        if (drawnFrame != frame) {
+            if (drawnFrame == frame - 1) {
+                drawMotion.set(drawnPosition.getX() - position.getX(), drawnPosition.getY() - position.getY());
+                if (Math.abs(drawMotion.getX()) > MAX_BLENDED_MOVE || Math.abs(drawMotion.getY()) > MAX_BLENDED_MOVE) drawMotion.set(0, 0);
+            } else {
+                drawMotion.set(0, 0);
+            }
+            drawnPosition.copy(position);
+            drawnFrame = frame;
+        }
+        return drawMotion;
+    }
+
     /**
      * Sets the offset for rendering the entity's image.
      *
@@ -184,24 +222,45 @@ public class Entity {
      * @param roomList The list of rooms in the game world.
      */
     public void resolveRoomCollisions(ArrayList<Room> roomList) {// TODO add the binary search
-        lastMovement = new HitboxGroup();
-        Hitbox initialTest = createMovementBox(velocity);
-        testHitbox = initialTest;
+        if (timeStep == 1) {
+            resolveMovement(roomList);
+            return;
+        }
+        // Move by every tick the update covers at once, then go back to the velocity of a single tick
+        velocity.set(velocity.getX() * timeStep, velocity.getY() * timeStep);
+        resolveMovement(roomList);
+        velocity.set(velocity.getX() / timeStep, velocity.getY() / timeStep);
+    }
+
+    /**
+     * Moves the entity by its velocity, stopping at room walls.
+     *
+     * @param roomList The list of rooms in the game world.
+     */
+    private void resolveMovement(ArrayList<Room> roomList) {
+        lastMovement.clear();
         boolean collides = false;
-        for (Room r: roomList) {
-            if (collidesWithRoom(r, initialTest)) {
-                collides = true;
-                break;
+        if (collisionMode == CollisionMode.SWEPT_AABB) {
+            collides = firstContactTime(velocity, roomList) <= 1;
+        } else {
+            Hitbox initialTest = createMovementBox(velocity);
+            for (Room r: roomList) {
+                if (collidesWithRoom(r, initialTest)) {
+                    collides = true;
+                    break;
+                }
             }
         }
 
-        Vector2F newVelocity = velocity;
+        Vector2F newVelocity = resolvedVelocity;
+        newVelocity.copy(velocity);
         if (collides) {
-            newVelocity = binarySearchVelocity(velocity, roomList);
+            searchVelocity(velocity, roomList, newVelocity);
 
 
         }
-        lastMovement.addHitbox(createMovementBox(newVelocity));
+        movementBoxes[0].setToSweep(hitbox, newVelocity.getX(), newVelocity.getY());
+        lastMovement.addHitbox(movementBoxes[0]);
         updatePosition(newVelocity);
 
         int remainingX = velocity.getX() - newVelocity.getX();
@@ -223,25 +282,127 @@ public class Entity {
             remainingX = 0;
         }
 
-        newVelocity = binarySearchVelocity(new Vector2F(remainingX, remainingY), roomList);
-        lastMovement.addHitbox(createMovementBox(newVelocity));
+        searchVelocity(remainingVelocity.set(remainingX, remainingY), roomList, newVelocity);
+        movementBoxes[1].setToSweep(hitbox, newVelocity.getX(), newVelocity.getY());
+        lastMovement.addHitbox(movementBoxes[1]);
         updatePosition(newVelocity);
 
         movementCheck(roomList);
     }
 
+    /**
+     * Finds a collision-free velocity vector for the entity using the current collision mode.
+     *
+     * @param startingVelocity The starting velocity to search from.
+     * @param roomList         The list of rooms in the game world.
+     * @param dst              The vector to write the result into.
+     * @return A collision-free velocity vector for the entity, which is dst.
+     */
+    private Vector2F searchVelocity(Vector2F startingVelocity, ArrayList<Room> roomList, Vector2F dst) {
+        if (collisionMode == CollisionMode.SWEPT_AABB) return sweptVelocity(startingVelocity, roomList, dst);
+        return binarySearchVelocity(startingVelocity, roomList, dst);
+    }
+
+    /**
+     * Finds a collision-free velocity vector for the entity from the exact time of impact with the walls.
+     * The result matches binarySearchVelocity, which keeps the largest free step out of 1000 and then steps back once.
+     *
+     * @param startingVelocity The starting velocity to search from.
+     * @param roomList         The list of rooms in the game world.
+     * @param dst              The vector to write the result into.
+     * @return A collision-free velocity vector for the entity, which is dst.
+     */
+    private Vector2F sweptVelocity(Vector2F startingVelocity, ArrayList<Room> roomList, Vector2F dst) {
+        double contact = firstContactTime(startingVelocity, roomList);
+        int freeTime = contact > 1 ? 1000 : Math.max(0, (int) Math.ceil(contact * 1000) - 1);
+        return startingVelocity.multiplyInto((freeTime - 1) / 1000.0, dst);
+    }
+
+    /**
+     * Calculates when the entity's hitbox first touches a wall while moving by a velocity.
+     * Walls are treated as axis-aligned rectangles and touching an edge counts as contact.
+     *
+     * @param movement The movement of the entity.
+     * @param roomList The list of rooms in the game world.
+     * @return The fraction of the movement at which contact happens, or infinity if the path is clear.
+     */
+    private double firstContactTime(Vector2F movement, ArrayList<Room> roomList) {
+        int left = hitbox.getLeft(), top = hitbox.getTop(), right = hitbox.getRight(), bottom = hitbox.getBottom();
+        int vx = movement.getX(), vy = movement.getY();
+
+        double first = Double.POSITIVE_INFINITY;
+        for (Room r: roomList) {
+            // Walls are kept in room space, so the entity's box is moved into the room's space instead
+            int ox = r.getHitbox().getOffsetX(), oy = r.getHitbox().getOffsetY();
+            int l = left - ox, t = top - oy, rt = right - ox, b = bottom - oy;
+            nearbyWalls.clear();
+            r.getHitbox().collectOverlapping(left + Math.min(vx, 0), top + Math.min(vy, 0), right + Math.max(vx, 0), bottom + Math.max(vy, 0), nearbyWalls);
+
+            for (Hitbox wall: nearbyWalls) {
+                if (!wall.getEnabled()) continue;
+                double entryX, exitX, entryY, exitY;
+                // A wall is only collected if it overlaps the swept area, so an axis without movement already overlaps
+                if (vx == 0) {
+                    entryX = Double.NEGATIVE_INFINITY;
+                    exitX = Double.POSITIVE_INFINITY;
+                } else if (vx > 0) {
+                    entryX = (double) (wall.getLeft() - rt) / vx;
+                    exitX = (double) (wall.getRight() - l) / vx;
+                } else {
+                    entryX = (double) (wall.getRight() - l) / vx;
+                    exitX = (double) (wall.getLeft() - rt) / vx;
+                }
+                if (vy == 0) {
+                    entryY = Double.NEGATIVE_INFINITY;
+                    exitY = Double.POSITIVE_INFINITY;
+                } else if (vy > 0) {
+                    entryY = (double) (wall.getTop() - b) / vy;
+                    exitY = (double) (wall.getBottom() - t) / vy;
+                } else {
+                    entryY = (double) (wall.getBottom() - t) / vy;
+                    exitY = (double) (wall.getTop() - b) / vy;
+                }
+
+                double entry = Math.max(Math.max(entryX, entryY), 0), exit = Math.min(exitX, exitY);
+                if (entry <= exit && entry <= 1) first = Math.min(first, entry);
+            }
+        }
+        return first;
+    }
+
+    /**
+     * Checks if the entity's hitbox, stretched by an offset, touches any wall.
+     * This is the swept collision mode's version of checking a movement box against the rooms.
+     *
+     * @param dx       The amount to stretch the hitbox horizontally.
+     * @param dy       The amount to stretch the hitbox vertically.
+     * @param roomList The list of rooms in the game world.
+     * @return true if a wall is touched, false otherwise.
+     */
+    private boolean touchesWall(int dx, int dy, ArrayList<Room> roomList) {
+        nearbyWalls.clear();
+        for (Room r: roomList) {
+            r.getHitbox().collectOverlapping(hitbox.getLeft() + Math.min(dx, 0), hitbox.getTop() + Math.min(dy, 0), hitbox.getRight() + Math.max(dx, 0), hitbox.getBottom() + Math.max(dy, 0), nearbyWalls);
+        }
+        for (Hitbox wall: nearbyWalls) {
+            if (wall.getEnabled()) return true;
+        }
+        return false;
+    }
+
     /**
      * Performs a binary search to find a collision-free velocity vector for the entity.
      *
      * @param startingVelocity The starting velocity to search from.
      * @param roomList         The list of rooms in the game world.
-     * @return A collision-free velocity vector for the entity.
+     * @param dst              The vector to write the result into.
+     * @return A collision-free velocity vector for the entity, which is dst.
      */
-    private Vector2F binarySearchVelocity(Vector2F startingVelocity, ArrayList<Room> roomList) {
+    private Vector2F binarySearchVelocity(Vector2F startingVelocity, ArrayList<Room> roomList, Vector2F dst) {
         int minTime = 0, maxTime = 1000;
         while (minTime < maxTime) {
             int mid = (minTime + maxTime + 1) / 2;
-            Hitbox movementBox = createMovementBox(startingVelocity.multiply(mid / 1000.0));
+            Hitbox movementBox = createMovementBox(startingVelocity.multiplyInto(mid / 1000.0, scratchVelocity));
             boolean collides = false;
             for (Room r: roomList) {
                 if (collidesWithRoom(r, movementBox)) {
@@ -258,7 +419,7 @@ public class Entity {
 
         minTime -= 1;
 
-        return startingVelocity.multiply(minTime / 1000.0);
+        return startingVelocity.multiplyInto(minTime / 1000.0, dst);
     }
 
     /**
@@ -266,10 +427,48 @@ public class Entity {
      */
     private void updateVelocity() {
         if (Math.abs(constantVelocity.getX()-velocity.getX())<=10) velocity.setX(constantVelocity.getX());
-        velocity.translateInPlace(constantVelocity.getTranslated(velocity.getNegative()).multiply(0.3));
+        double blend = timeStep == 1 ? 0.3 : 1 - Math.pow(0.7, timeStep); // Closes the gap as timeStep single ticks would
+        velocity.translateInPlace(velocity.negativeInto(scratchVelocity).translateInto(constantVelocity, scratchVelocity).scaleInPlace(blend));
 
         // Gravity
-        if (affectedByGravity) constantVelocity.changeY(50);
+        if (affectedByGravity) constantVelocity.changeY(50 * timeStep);
+    }
+
+    /**
+     * Sets the number of ticks each update covers. Entities updated only every few ticks move and accelerate
+     * by that many ticks at once, so they keep the same pace as entities updated every tick.
+     *
+     * @param ticks The number of ticks covered, at least 1.
+     */
+    public void setTimeStep(int ticks) {
+        timeStep = Math.max(1, ticks);
+    }
+
+    /**
+     * Retrieves the number of ticks each update covers.
+     *
+     * @return The number of ticks covered.
+     */
+    public int getTimeStep() {
+        return timeStep;
+    }
+
+    /**
+     * Sets how every entity resolves its movement against room walls.
+     *
+     * @param mode The collision mode to use.
+     */
+    public static void setCollisionMode(CollisionMode mode) {
+        collisionMode = mode;
+    }
+
+    /**
+     * Retrieves how entities resolve their movement against room walls.
+     *
+     * @return The current collision mode.
+     */
+    public static CollisionMode getCollisionMode() {
+        return collisionMode;
     }
 
     /**
@@ -300,7 +499,8 @@ public class Entity {
      * @return true if the entity is on the floor, false otherwise.
      */
     private boolean onFloor(ArrayList<Room> roomList) {
-        Hitbox belowFeet = createMovementBox(new Vector2F(0, 10));
+        if (collisionMode == CollisionMode.SWEPT_AABB) return touchesWall(0, 10, roomList);
+        Hitbox belowFeet = createMovementBox(scratchVelocity.set(0, 10));
         for (Room r: roomList) {
             if (collidesWithRoom(r, belowFeet)) return true;
         }
@@ -314,7 +514,8 @@ public class Entity {
      * @return true if the entity is on the left wall, false otherwise.
      */
     private boolean onLeftWall(ArrayList<Room> roomList) {
-        Hitbox leftSide = createMovementBox(new Vector2F(-10, 0));
+        if (collisionMode == CollisionMode.SWEPT_AABB) return touchesWall(-10, 0, roomList);
+        Hitbox leftSide = createMovementBox(scratchVelocity.set(-10, 0));
         for (Room r: roomList) {
             if (collidesWithRoom(r, leftSide)) return true;
         }
@@ -328,7 +529,8 @@ public class Entity {
      * @return true if the entity is on the right wall, false otherwise.
      */
     private boolean onRightWall(ArrayList<Room> roomList) {
-        Hitbox rightSide = createMovementBox(new Vector2F(10, 0));
+        if (collisionMode == CollisionMode.SWEPT_AABB) return touchesWall(10, 0, roomList);
+        Hitbox rightSide = createMovementBox(scratchVelocity.set(10, 0));
         for (Room r: roomList) {
             if (collidesWithRoom(r, rightSide)) return true;
         }
@@ -342,7 +544,8 @@ public class Entity {
      * @return true if the entity is hitting the ceiling, false otherwise.
      */
     private boolean onCeiling(ArrayList<Room> roomList) {
-        Hitbox aboveHead = createMovementBox(new Vector2F(0, -10));
+        if (collisionMode == CollisionMode.SWEPT_AABB) return touchesWall(0, -10, roomList);
+        Hitbox aboveHead = createMovementBox(scratchVelocity.set(0, -10));
         for (Room r: roomList) {
             if (collidesWithRoom(r, aboveHead)) return true;
         }
@@ -351,17 +554,14 @@ public class Entity {
 
     /**
      * Creates a movement hitbox for the entity based on its current velocity.
+     * The returned hitbox is reused by the next call, so it is only valid until then.
      *
      * @param velocity The velocity vector of the entity.
      * @return The movement hitbox created.
      */
-    private Hitbox createMovementBox(Vector2F velocity) { // TODO add collision
-        ArrayList<Vector2F> points = new ArrayList<>();
-        for (Vector2F p: hitbox.getPoints()) {
-            points.add(new Vector2F(p));
-            points.add(p.getTranslated(velocity));
-        }
-        return new Hitbox(points);
+    private Hitbox createMovementBox(Vector2F velocity) {
+        probeBox.setToSweep(hitbox, velocity.getX(), velocity.getY());
+        return probeBox;
     }
 
     /**
@@ -449,6 +649,16 @@ public class Entity {
         return new Vector2F(position);
     }
 
+    /**
+     * Writes the location of the entity into a vector, without allocating.
+     *
+     * @param dst The vector to write the location into.
+     * @return The destination vector.
+     */
+    public Vector2F getLocation(Vector2F dst) {
+        return dst.set(position.getX(), position.getY());
+    }
+
     /**
      * Retrieves the x-coordinate of the entity's position.
      *
@@ -710,6 +920,16 @@ public class Entity {
         return new Vector2F(getCenterX(), getCenterY());
     }
 
+    /**
+     * Writes the center of the entity into a vector, without allocating.
+     *
+     * @param dst The vector to write the center into.
+     * @return The destination vector.
+     */
+    public Vector2F getCenterVector(Vector2F dst) {
+        return dst.set(getCenterX(), getCenterY());
+    }
+
     /**
      * Retrieves the position vector of the entity.
      *
@@ -8,16 +8,17 @@ import Items.Ranged.RangedWeapon;
 import RoomEditor.LevelPortal;
 import Universal.Camera;
 import Managers.ActionManager;
+import Structure.Hitbox;
 import Structure.Room;
+import Structure.SpatialHash;
 import Structure.Vector2F;
 import Universal.GameTimer;
+import Universal.AssetCache;
 
-import javax.imageio.ImageIO;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents the player character in the game, handling movement, actions, inventory, and interactions.
@@ -37,6 +38,9 @@ public class Player extends Entity {
     private PlayerInventory playerInventory;
     private BufferedImage currentFrame;
     private ArrayList<Projectile> projectiles = new ArrayList<>(); // TO BE PASSED BY REFERENCE TO PLAYER WEAPONS
+    private SpatialHash<Projectile> projectileHash = new SpatialHash<>(); // Projectiles indexed by their last movement
+    private ArrayList<Projectile> nearbyProjectiles = new ArrayList<>();
+    private ArrayList<Entity> nearbyEntities = new ArrayList<>();
     private ArrayList<BufferedImage> idleFrames;
     private ArrayList<BufferedImage> runFrames;
     private ArrayList<BufferedImage> swordFrames;
@@ -75,38 +79,38 @@ public class Player extends Entity {
         rangedFrames = new ArrayList<>();
 
         try {
-            idleFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Idle/idle.png"))));
-            idleFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Idle/magic_idle.png"))));
-            idleFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Idle/spear_idle.png"))));
-            idleFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Idle/sword_idle.png"))));
-
-            runFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Run/run1.png"))));
-            runFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Run/run2.png"))));
-
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack1.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack2.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack3.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack4.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack5.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack6.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack7.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack8.png"))));
-            swordFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Melee/attack9.png"))));
-
-//            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Ranged/ranged1.png"))));
-//            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Ranged/ranged2.png"))));
-//            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Ranged/ranged3.png"))));
-//            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Ranged/ranged4.png"))));
-
-            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Magic/magic1.png"))));
-            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Magic/magic2.png"))));
-            rangedFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Magic/magic3.png"))));
-
-            spearFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Spear/spear1.png"))));
-            spearFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Spear/spear2.png"))));
-            spearFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Spear/spear3.png"))));
-            spearFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Spear/spear4.png"))));
-            spearFrames.add(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/Spear/spear5.png"))));
+            idleFrames.add(AssetCache.getImage("/Player/Idle/idle.png"));
+            idleFrames.add(AssetCache.getImage("/Player/Idle/magic_idle.png"));
+            idleFrames.add(AssetCache.getImage("/Player/Idle/spear_idle.png"));
+            idleFrames.add(AssetCache.getImage("/Player/Idle/sword_idle.png"));
+
+            runFrames.add(AssetCache.getImage("/Player/Run/run1.png"));
+            runFrames.add(AssetCache.getImage("/Player/Run/run2.png"));
+
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack1.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack2.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack3.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack4.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack5.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack6.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack7.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack8.png"));
+            swordFrames.add(AssetCache.getImage("/Player/Melee/attack9.png"));
+
+//            rangedFrames.add(AssetCache.getImage("/Player/Ranged/ranged1.png"));
+//            rangedFrames.add(AssetCache.getImage("/Player/Ranged/ranged2.png"));
+//            rangedFrames.add(AssetCache.getImage("/Player/Ranged/ranged3.png"));
+//            rangedFrames.add(AssetCache.getImage("/Player/Ranged/ranged4.png"));
+
+            rangedFrames.add(AssetCache.getImage("/Player/Magic/magic1.png"));
+            rangedFrames.add(AssetCache.getImage("/Player/Magic/magic2.png"));
+            rangedFrames.add(AssetCache.getImage("/Player/Magic/magic3.png"));
+
+            spearFrames.add(AssetCache.getImage("/Player/Spear/spear1.png"));
+            spearFrames.add(AssetCache.getImage("/Player/Spear/spear2.png"));
+            spearFrames.add(AssetCache.getImage("/Player/Spear/spear3.png"));
+            spearFrames.add(AssetCache.getImage("/Player/Spear/spear4.png"));
+            spearFrames.add(AssetCache.getImage("/Player/Spear/spear5.png"));
 
 
         } catch (IOException e) {
@@ -307,6 +311,37 @@ public class Player extends Entity {
         return playerInventory.getCurrentPrimaryItem().getType();
     }
 
+    /**
+     * Handles collisions between the player and the entities of the loaded rooms.
+     * Only the entities near the player, its projectiles or its melee swing are checked, in the order they were added.
+     *
+     * @param entities the items, chests, portals and enemies of the loaded rooms, indexed by their last movement
+     */
+    public void resolveEntityCollisions(SpatialHash<Entity> entities) {
+        entities.startQuery();
+        entities.addToQuery(getLastMovement());
+        for (Projectile p: projectiles) {
+            entities.addToQuery(p.getLastMovement());
+        }
+        if (playerInventory.getCurrentPrimaryItem() instanceof MeleeWeapon) {
+            for (Hitbox h: ((MeleeWeapon) playerInventory.getCurrentPrimaryItem()).getHitboxes()) {
+                if (h.getEnabled()) entities.addToQuery(h);
+            }
+        }
+
+        for (Entity e: entities.finishQuery(nearbyEntities)) {
+            if (e instanceof ItemPickup) {
+                resolveEntityCollision((ItemPickup) e);
+            } else if (e instanceof Chest) {
+                resolveEntityCollision((Chest) e);
+            } else if (e instanceof LevelPortal) {
+                resolveEntityCollision((LevelPortal) e);
+            } else {
+                resolveEntityCollision(e);
+            }
+        }
+    }
+
     /**
      * Handles collision resolution between the player and another entity.
      *
@@ -317,7 +352,7 @@ public class Player extends Entity {
             e.setColliding(true);
             setColliding(true);
         }
-        for (Projectile p: projectiles) {
+        for (Projectile p: projectileHash.query(e.getLastMovement(), nearbyProjectiles)) {
             if (e.collidesWith(p)) {
                 p.processEntityHit(this, e);
             }
@@ -387,8 +422,10 @@ public class Player extends Entity {
                 r.setVisited();
             }
         }
+        projectileHash.clear();
         for (Projectile p: projectiles) {
             p.resolveRoomCollisions(roomList);
+            projectileHash.insert(p, p.getLastMovement());
         }
     }
 
@@ -400,7 +437,7 @@ public class Player extends Entity {
     @Override
     public void paint(Camera c) {
         for (Projectile p: new ArrayList<>(projectiles)) { // TODO currently temp fix for when the size of projectiles changes between a frame
-            p.paint(c);
+            c.paintEntity(p);
         }
         playerInventory.draw(c);
 
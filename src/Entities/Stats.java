@@ -2,6 +2,7 @@ package Entities;
 
 import UI.HitDisplay;
 import Universal.GameTimer;
+import Universal.GameRandom;
 
 import java.awt.*;
 import java.util.HashMap;
@@ -133,7 +134,7 @@ public class Stats {
      * @return The buffed damage value
      */
     public int getBuffedDamage(int initialDamage) {
-        return (int) ((initialDamage + values.get("Damage Addition")) * (values.get("Damage Multiplier") / 100.0) * (Math.random() * 100 < values.get("Crit Chance") ? values.get("Crit Damage") / 100.0 : 1));
+        return (int) ((initialDamage + values.get("Damage Addition")) * (values.get("Damage Multiplier") / 100.0) * (GameRandom.nextDouble() * 100 < values.get("Crit Chance") ? values.get("Crit Damage") / 100.0 : 1));
     }
 
     /**
@@ -168,7 +169,7 @@ public class Stats {
      * @param defender   The entity receiving the damage
      */
    public void doDamage(int baseDamage, Entity attacker, Entity defender) {
-       int damage = (int) ((Stats.calculateDamage(baseDamage, attacker.getStats(), defender.getStats()) * (1 + Math.random() * 0.3 - 0.15)) + 0.99);
+       int damage = (int) ((Stats.calculateDamage(baseDamage, attacker.getStats(), defender.getStats()) * (1 + GameRandom.nextDouble() * 0.3 - 0.15)) + 0.99);
        HitDisplay.createHitDisplay(defender.getCenterVector(), damage, defender instanceof Player ? Color.RED : Color.BLUE);
        health = Math.max(health - damage, 0);
    }
@@ -1,7 +1,10 @@
 import Managers.CameraManager;
 import Managers.EntityManager;
 import Managers.ActionManager;
+import Managers.RoomTemplateCache;
 import UI.GameUIManager;
+import Universal.AssetCache;
+import Universal.GameLoop;
 import Universal.GameTimer;
 
 import javax.swing.*;
@@ -11,6 +14,8 @@ import java.awt.event.ComponentEvent;
 import java.io.IOException;
 
 /**
+ *  The game is simulated at a fixed rate by a GameLoop on its own thread and painted on the Swing thread.
+ *  <br>
  *  Source for Game Thread: <a href="https://stackoverflow.com/questions/65907092/where-should-i-put-the-game-loop-in-the-swing-app">https://stackoverflow.com/questions/65907092/where-should-i-put-the-game-loop-in-the-swing-app</a>
  */
 public class GamePanel extends JPanel{
@@ -18,7 +23,7 @@ public class GamePanel extends JPanel{
     private final EntityManager entityManager;
     private final CameraManager cameraManager;
     private final GameUIManager gameUIManager;
-    private boolean isRunning = true;
+    private final GameLoop gameLoop;
     private boolean gamePaused = false;
 
 
@@ -31,11 +36,14 @@ public class GamePanel extends JPanel{
         //UNCOMMENT THE ABOVE TO SEE ROOM EDITOR USED TO CREATE THE BIOMES
         //lots of work put into something players won't see :'(
 
+        AssetCache.preload(); // decode every sprite up front so gameplay never stalls on image loading
+        RoomTemplateCache.warm();
         actionManager = new ActionManager();
         entityManager = new EntityManager();
         cameraManager = new CameraManager(entityManager.getPlayer());
         gameUIManager = new GameUIManager(entityManager,this, cameraManager.getMainCamera());
         actionManager.addPanel(this);
+        gameLoop = new GameLoop(this::update, this::repaint);
 
         setBackground(Color.BLACK);
         this.addComponentListener(new ComponentAdapter() {
@@ -53,9 +61,16 @@ public class GamePanel extends JPanel{
     }
 
     public void draw(Graphics g) {
-        cameraManager.draw(g, entityManager);
-        gameUIManager.draw(g);
-
+        // The world is painted from the frames the simulation recorded at the end of its last tick, without waiting for it
+        cameraManager.draw(g, gameLoop.getInterpolation());
+
+        // The interface still reads the game state directly, so it waits for any tick in progress
+        gameLoop.getWorldLock().lock();
+        try {
+            gameUIManager.draw(g);
+        } finally {
+            gameLoop.getWorldLock().unlock();
+        }
     }
 
     public void update() {
@@ -76,61 +91,10 @@ public class GamePanel extends JPanel{
             entityManager.updatePlayerPresses(actionManager);
             entityManager.update(actionManager);
         }
+        cameraManager.record(entityManager);
     }
 
     public void start() {
-        Thread gameLoop = new Thread(() -> { // TEMPORARY FOR NOW https://stackoverflow.com/questions/65907092/where-should-i-put-the-game-loop-in-the-swing-app
-            // how many frames should be drawn in a second
-            final int FRAMES_PER_SECOND = 60; // MAX IS AROUND 3000 WITH NO ENEMIES
-            // calculate how many nano seconds each frame should take for our target frames per second.
-            final long TIME_BETWEEN_UPDATES = 1000000000 / FRAMES_PER_SECOND;
-            // track number of frames
-            int frameCount = 0;
-            // if you're worried about visual hitches more than perfect timing, set this to 1. else 5 should be okay
-            final int MAX_UPDATES_BETWEEN_RENDER = 1;
-
-            // we will need the last update time.
-            long lastUpdateTime = System.nanoTime();
-            // store the time we started this will be used for updating map and charcter animations
-            long currTime = System.nanoTime();
-
-
-            while (isRunning) {
-                long now = System.nanoTime();
-                int updateCount = 0;
-                long dt = System.nanoTime() - currTime;
-                if (dt > 100000000L) {
-//                    System.out.println("FPS: " + (frameCount * 1000000000L / dt));
-                    currTime = System.nanoTime();
-                    frameCount = 0;
-                }
-
-                // do as many game updates as we need to, potentially playing catchup.
-                while (now - lastUpdateTime >= TIME_BETWEEN_UPDATES && updateCount < MAX_UPDATES_BETWEEN_RENDER) {
-                    update(); //Update the entity movements and collision checks etc (all has to do with updating the games status i.e  call move() on Enitites)
-                    lastUpdateTime += TIME_BETWEEN_UPDATES;
-                    updateCount++;
-                }
-
-                // if for some reason an update takes forever, we don't want to do an insane number of catchups.
-                // if you were doing some sort of game that needed to keep EXACT time, you would get rid of this.
-                if (now - lastUpdateTime >= TIME_BETWEEN_UPDATES) {
-                    lastUpdateTime = now - TIME_BETWEEN_UPDATES;
-                }
-
-                frameCount++;
-                repaint(); // draw call for rendering sprites etc
-
-                long lastRenderTime = now;
-
-                //Yield until it has been at least the target time between renders. This saves the CPU from hogging.
-                while (now - lastRenderTime < TIME_BETWEEN_UPDATES && now - lastUpdateTime < TIME_BETWEEN_UPDATES) {
-                    Thread.yield();
-                    now = System.nanoTime();
-                }
-            }
-        });
-
         gameLoop.start();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,233 @@
+import Entities.Enemy;
+import Entities.Entity;
+import Entities.Player;
+import Managers.ActionManager;
+import Managers.EntityManager;
+import Managers.RoomTemplateCache;
+import Structure.Room;
+import Universal.AssetCache;
+import Universal.GameRandom;
+import Universal.GameTimer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Runs the game simulation without a window, as fast as possible, and reports how long the ticks took.
+ * The player is driven by a scripted input stream and every random number comes from a fixed seed,
+ * so two runs with the same arguments simulate the same game and their timings can be compared.
+ * When the player dies they respawn in a new level, as if Start had been pressed on the menu.
+ * The report ends with a hash of the first level and a hash of the player's path, which are equal between runs
+ * with the same seed and can be compared to check that a change did not alter the game.
+ * <p>
+ * Arguments are given as name=value pairs, all optional:
+ * <ul>
+ *     <li>ticks: the number of measured ticks, default 20000</li>
+ *     <li>warmup: the number of ticks run before measuring, default 2000</li>
+ *     <li>seed: the seed for the game and the input script, default 1</li>
+ *     <li>collision: the Entity.CollisionMode to use, default BINARY_SEARCH</li>
+ *     <li>path_budget_us: the time the path scheduler may spend every tick, default 0, which runs every request
+ *     and keeps runs reproducible, as a time budget depends on how fast the machine is</li>
+ *     <li>lod: on to simulate distant enemies at a reduced rate, or off to update every enemy near the player
+ *     every tick, default on</li>
+ *     <li>parallel: on to update the loaded rooms in parallel, or off to update them in turn, default off</li>
+ * </ul>
+ * Example: <code>java HeadlessRunner ticks=50000 seed=7 collision=SWEPT_AABB</code>
+ */
+public class HeadlessRunner {
+    private static final int INPUT_PHASE_LENGTH = 45; // Ticks between changes of the scripted input
+
+    private final ActionManager actionManager = new ActionManager();
+    private final EntityManager entityManager;
+    private final Random script;
+    private int deaths = 0;
+    private long trace = 1; // Running hash of the player's position, equal between runs that simulated the same game
+    private final long level; // Hash of the first level's layout and enemies, equal between runs with the same seed
+
+    /**
+     * Constructs a HeadlessRunner with a freshly generated level.
+     *
+     * @param seed             the seed for the game and the input script
+     * @param pathBudgetMicros the time budget of the path scheduler, or 0 for no limit
+     */
+    public HeadlessRunner(long seed, long pathBudgetMicros) {
+        GameRandom.setSeed(seed);
+        script = new Random(seed);
+        entityManager = new EntityManager();
+        entityManager.getRoomManager().getPathScheduler().setBudgetMicros(pathBudgetMicros);
+
+        long hash = 1;
+        for (Room room : entityManager.getRoomManager().getAllRooms()) {
+            hash = hash * 31 + room.getTopLeft().getX();
+            hash = hash * 31 + room.getTopLeft().getY();
+        }
+        for (Room room : entityManager.getRoomManager().getLoadedRooms()) { // Only these are populated so far
+            for (Enemy enemy : room.getEnemies()) {
+                hash = hash * 31 + enemy.getClass().getSimpleName().hashCode();
+            }
+        }
+        level = hash;
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        int ticks = 20000, warmup = 2000;
+        long seed = 1, pathBudget = 0;
+        boolean lod = true, parallel = false;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            switch (pair[0]) {
+                case "ticks":
+                    ticks = Integer.parseInt(pair[1]);
+                    break;
+                case "warmup":
+                    warmup = Integer.parseInt(pair[1]);
+                    break;
+                case "seed":
+                    seed = Long.parseLong(pair[1]);
+                    break;
+                case "collision":
+                    Entity.setCollisionMode(Entity.CollisionMode.valueOf(pair[1]));
+                    break;
+                case "path_budget_us":
+                    pathBudget = Long.parseLong(pair[1]);
+                    break;
+                case "lod":
+                    lod = !pair[1].equals("off");
+                    break;
+                case "parallel":
+                    parallel = pair[1].equals("on");
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+            }
+        }
+
+        if (!lod) {
+            Enemy.setSimulationTiers(Enemy.DEFAULT_REDUCED_RADIUS, Enemy.DEFAULT_REDUCED_RADIUS, 0, 1);
+        }
+        AssetCache.preload();
+        RoomTemplateCache.warm();
+
+        long start = System.nanoTime();
+        HeadlessRunner runner = new HeadlessRunner(seed, pathBudget);
+        runner.entityManager.getRoomManager().setParallel(parallel);
+        long setupNanos = System.nanoTime() - start;
+
+        for (int i = 0; i < warmup; i++) {
+            runner.tick(i);
+        }
+
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        com.sun.management.ThreadMXBean allocations = threads instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) threads : null;
+        long threadId = Thread.currentThread().getId();
+        long[] tickNanos = new long[ticks];
+
+        long allocatedBefore = allocations == null ? -1 : allocations.getThreadAllocatedBytes(threadId);
+        start = System.nanoTime();
+        for (int i = 0; i < ticks; i++) {
+            long tickStart = System.nanoTime();
+            runner.tick(warmup + i);
+            tickNanos[i] = System.nanoTime() - tickStart;
+        }
+        long totalNanos = System.nanoTime() - start;
+        long allocated = allocations == null ? -1 : allocations.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        Arrays.sort(tickNanos);
+        double seconds = totalNanos / 1e9;
+        ArrayList<String> results = new ArrayList<>();
+        results.add("seed=" + seed);
+        results.add("collision=" + Entity.getCollisionMode());
+        results.add("lod=" + (lod ? "on" : "off"));
+        results.add("parallel=" + (parallel ? "on" : "off"));
+        results.add("warmup=" + warmup);
+        results.add("ticks=" + ticks);
+        results.add("setup_ms=" + format(setupNanos / 1e6));
+        results.add("ticks_per_second=" + format(ticks / seconds));
+        results.add("p50_us=" + format(percentile(tickNanos, 0.50) / 1e3));
+        results.add("p99_us=" + format(percentile(tickNanos, 0.99) / 1e3));
+        results.add("max_us=" + format((ticks == 0 ? 0 : tickNanos[ticks - 1]) / 1e3));
+        if (allocated >= 0) {
+            results.add("alloc_bytes_per_tick=" + (ticks == 0 ? 0 : allocated / ticks));
+            results.add("alloc_mb_per_second=" + format(allocated / 1e6 / seconds));
+        }
+        results.add("deaths=" + runner.deaths);
+        results.add("levels_prepared=" + runner.entityManager.getRoomManager().getPreparedLevels());
+        results.add("levels_waited=" + runner.entityManager.getRoomManager().getFallbackLevels());
+        results.add("rooms_populated=" + runner.entityManager.getRoomManager().getPopulatedRooms() + "/" + runner.entityManager.getRoomManager().getAllRooms().size());
+        results.add("rooms_waited=" + runner.entityManager.getRoomManager().getWaitedRooms());
+        results.add("level=" + Long.toHexString(runner.level));
+        results.add("trace=" + Long.toHexString(runner.trace));
+        System.out.println(String.join(" ", results));
+    }
+
+    /**
+     * Runs one tick of the game the same way GamePanel does when no menu is open.
+     *
+     * @param tickNumber the number of the tick since the run started
+     */
+    public void tick(int tickNumber) {
+        if (tickNumber % INPUT_PHASE_LENGTH == 0) updateScript();
+
+        Player player = entityManager.getPlayer();
+        if (player.isDead()) {
+            deaths++;
+            player.reset();
+            player.setDead(false);
+            player.setGenerateRooms(true);
+        }
+
+        GameTimer.update();
+        entityManager.updateKeyPresses(actionManager);
+        entityManager.updatePlayerPresses(actionManager);
+        entityManager.update(actionManager);
+
+        trace = trace * 31 + player.getX();
+        trace = trace * 31 + player.getY();
+    }
+
+    /**
+     * Picks the next set of scripted inputs: walking, jumping, attacking and dashing at random.
+     * Interacting is never pressed, so the script does not open chests or take portals.
+     */
+    private void updateScript() {
+        ArrayList<Integer> controls = entityManager.getPlayer().getControls();
+        actionManager.releaseAll();
+
+        double move = script.nextDouble();
+        if (move < 0.4) actionManager.setPressed(controls.get(1), true);
+        else if (move < 0.8) actionManager.setPressed(controls.get(2), true);
+
+        if (script.nextDouble() < 0.3) actionManager.setPressed(controls.get(0), true);
+
+        double attack = script.nextDouble();
+        if (attack < 0.25) actionManager.setPressed(controls.get(5), true);
+        else if (attack < 0.5) actionManager.setPressed(controls.get(6), true);
+
+        if (script.nextDouble() < 0.1) actionManager.setPressed(controls.get(7), true);
+    }
+
+    /**
+     * Retrieves a percentile of a sorted array of samples.
+     *
+     * @param sorted   the samples, in ascending order
+     * @param fraction the percentile as a fraction from 0 to 1
+     * @return the sample at the percentile, or 0 if there are no samples
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+        int index = (int) Math.ceil(fraction * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    private static String format(double value) {
+        return String.format(Locale.ROOT, "%.2f", value);
+    }
+}
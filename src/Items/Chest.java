@@ -11,12 +11,12 @@ import UI.ShopOption;
 import UI.ShopUIContainer;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.AssetCache;
+import Universal.GameRandom;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * The Chest class represents a loot container that spawns random items and weapons.
@@ -46,7 +46,7 @@ public class Chest extends Entity {
         openCooldown = new GameTimer(20);
 
         try {
-            chestImage = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/chest.png")));
+            chestImage = AssetCache.getImage("/Items/chest.png");
 
         } catch (IOException e) {
             System.out.println("Chest image not found: " + e);
@@ -59,12 +59,12 @@ public class Chest extends Entity {
      * Initializes the chest by randomly adding shop items (weapons or instant items) to its container.
      */
     private void initialize() {
-        for (int i = 0; i < Math.random() * 2 + 3; i++) {
-            if (Math.random() > 0.2) {
-                container.addShopItem((int) (Math.random() * 5), new InstantItem(new Vector2F(0, 0)));
+        for (int i = 0; i < GameRandom.loot().nextDouble() * 2 + 3; i++) {
+            if (GameRandom.loot().nextDouble() > 0.2) {
+                container.addShopItem((int) (GameRandom.loot().nextDouble() * 5), new InstantItem(new Vector2F(0, 0)));
 
             } else {
-                container.addShopItem((int) (Math.random() * 10) + 30, getRandomWeapon());
+                container.addShopItem((int) (GameRandom.loot().nextDouble() * 10) + 30, getRandomWeapon());
 
             }
         }
@@ -170,7 +170,7 @@ public class Chest extends Entity {
         allWeapons.add(new ShortSword());
         allWeapons.add(new BasicSpear());
         allWeapons.add(new BasicSword());
-        return allWeapons.get((int) (Math.random() * allWeapons.size()));
+        return allWeapons.get((int) (GameRandom.loot().nextDouble() * allWeapons.size()));
     }
 
     /**
@@ -4,11 +4,10 @@ import Entities.Entity;
 import Managers.ActionManager;
 import Structure.Vector2F;
 import Universal.Camera;
+import Universal.AssetCache;
 
-import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.Objects;
 
 /**
  * Abstract class representing a game item that can be activated, updated, and drawn.
@@ -34,7 +33,7 @@ public abstract class GameItem {
         this.location = location;
 
         try {
-            imageIcon = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/intelligence.png")));
+            imageIcon = AssetCache.getImage("/intelligence.png");
 
         } catch (IOException e) {
             System.out.println(e);
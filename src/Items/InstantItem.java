@@ -7,12 +7,12 @@ import Entities.Stats;
 import Managers.ActionManager;
 import Structure.Vector2F;
 import Universal.Camera;
+import Universal.AssetCache;
+import Universal.GameRandom;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * Represents an instant item that can be used to modify player stats or abilities instantly.
@@ -83,48 +83,48 @@ public class InstantItem extends GameItem {
         try {
             switch (itemType) {
                 case INTELLIGENCE:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/intelligence.png"))));
+                    setImageIcon(AssetCache.getImage("/intelligence.png"));
                     setItemName("Intelligence");
                     setItemDescription("A special currency earned by defeating enemies. Used to unlock advanced abilities, purchase rare items, and upgrade character attributes, reflecting the knowledge gained from overcoming foes.");
 
                     break;
                 case MAX_HEALTH:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/health_up.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/health_up.png"));
                     setItemName("Max Health UP");
                     setItemDescription("Permanently increases the maximum health of your character. Boosts the total hit points, allowing your character to withstand more damage.");
                     break;
                 case HEALTH:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/health_pot.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/health_pot.png"));
                     setItemName("Instant Health");
                     setItemDescription("Provides an immediate boost to your current health. Restores a significant amount of health instantly, useful in critical situations.");
                     break;
                 case MAX_MANA:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/mana_up.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/mana_up.png"));
                     setItemName("Max Mana UP");
                     setItemDescription("Permanently increases the maximum mana capacity of your character. Expands your total mana pool, enabling more frequent or powerful use of magical abilities.");
                     break;
                 case MANA:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/mana_pot.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/mana_pot.png"));
                     setItemName("Instant Mana");
                     setItemDescription("Provides an immediate boost to your current mana. Restores a significant amount of mana instantly, useful for casting spells in urgent situations.");
                     break;
                 case CRIT_DAMAGE:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/crit_damage_up.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/crit_damage_up.png"));
                     setItemName("Crit Damage UP");
                     setItemDescription("Increases the damage dealt by critical hits. Enhances the effectiveness of your critical strikes, dealing more damage on successful critical hits.");
                     break;
                 case CRIT_RATE:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/crit_rate_up.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/crit_rate_up.png"));
                     setItemName("Crit Rate UP");
                     setItemDescription("Increases the likelihood of landing a critical hit. Boosts the chance of performing critical hits, making it more likely to deal extra damage with attacks.");
                     break;
                 case DEFENCE:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/defence_up.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/defence_up.png"));
                     setItemName("Defence UP");
                     setItemDescription("Defense Up: Increases the wearer's overall defense, reducing the damage taken from enemy attacks.");
                     break;
                 case DOUBLE_JUMP:
-                    setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/PowerUps/extra_jump.png"))));
+                    setImageIcon(AssetCache.getImage("/Items/PowerUps/extra_jump.png"));
                     setItemName("Extra Jump");
                     setItemDescription("Extra Jump: Grants the ability to perform an additional jump in mid-air, providing enhanced mobility and access to otherwise unreachable areas.");
                     break;
@@ -189,6 +189,6 @@ public class InstantItem extends GameItem {
      */
     private InstantType getRandomType() {
         int size = allTypes.size();
-        return allTypes.get((int) (Math.random() * size));
+        return allTypes.get((int) (GameRandom.loot().nextDouble() * size));
     }
 }
@@ -1,16 +1,15 @@
 package Items;
 
+import Universal.AssetCache;
 import Entities.Entity;
 import Entities.Player;
 import Structure.Vector2F;
 import UI.HitDisplay;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Objects;
 
 /**
  * Represents an item pickup entity that can be collected by the player.
@@ -73,7 +72,7 @@ public class ItemPickup extends Entity {
             case INTELLIGENCE:
                 setDefaultColour(Color.YELLOW);
                 try {
-                    addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/intelligence.png"))));
+                    addFrame(AssetCache.getImage("/intelligence.png"));
 
                 } catch (IOException e) {
                     System.out.println("Intelligence image not found: " + e);
@@ -1,8 +1,7 @@
 package Items.Melee;
 
-import javax.imageio.ImageIO;
+import Universal.AssetCache;
 import java.io.IOException;
-import java.util.Objects;
 
 /**
  * Represents a basic spear weapon with specific attributes and behaviors.
@@ -33,7 +32,7 @@ public class BasicSpear extends MeleeWeapon {
         setItemName("Swift Lance");
         setItemDescription("A streamlined spear crafted for speed and precision, made from lightweight yet durable materials, tapering to a sharp point that gleams with a polished finish. This spear is favored by those who prioritize agility and accuracy over sheer power. Base Damage: " + getBaseDamage());
         try {
-            setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/WeaponData/spear.png"))));
+            setImageIcon(AssetCache.getImage("/Items/WeaponData/spear.png"));
 
         } catch (IOException e) {
             System.out.println("Weapon image not found: " + e);
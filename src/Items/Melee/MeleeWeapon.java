@@ -10,6 +10,7 @@ import Universal.GameTimer;
 
 import java.awt.*;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Objects;
 import java.util.Scanner;
@@ -35,6 +36,7 @@ public class MeleeWeapon extends Weapon {
     private GameTimer swingCooldownTimer, swingLengthTimer;
     private ActivationType lastSwingDirection;
     private HashMap<ActivationType, Hitbox> hitboxes;
+    private Vector2F locationChange = new Vector2F(); // Reused when moving the hitboxes with the weapon
 
     /**
      * Constructs a MeleeWeapon object with specified attributes.
@@ -126,6 +128,15 @@ public class MeleeWeapon extends Weapon {
         }
     }
 
+    /**
+     * Retrieves the hitboxes of the weapon, of which only the enabled ones can hit.
+     *
+     * @return The hitboxes of the weapon.
+     */
+    public Collection<Hitbox> getHitboxes() {
+        return hitboxes.values();
+    }
+
     /**
      * Draws hitboxes of the weapon for visualization.
      * <p>
@@ -170,8 +181,9 @@ public class MeleeWeapon extends Weapon {
      * @param location The new location vector for the weapon.
      */
     public void setLocation(Vector2F location) {
+        locationChange.set(location.getX() - getLocation().getX(), location.getY() - getLocation().getY());
         for (Hitbox h: hitboxes.values()) {
-            h.translateInPlace(location.getTranslated(getLocation().getNegative()));
+            h.translateInPlace(locationChange);
         }
         super.setLocation(location);
     }
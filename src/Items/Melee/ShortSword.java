@@ -1,8 +1,7 @@
 package Items.Melee;
 
-import javax.imageio.ImageIO;
+import Universal.AssetCache;
 import java.io.IOException;
-import java.util.Objects;
 
 /**
  * The ShortSword class represents a basic melee weapon, specifically a cracked shortsword,
@@ -27,7 +26,7 @@ public class ShortSword extends MeleeWeapon {
         setItemName("Cracked Shortsword");
         setItemDescription("A well-worn blade, marred with deep fissures and signs of neglect. Despite its damaged state, it retains a certain charm and historical value. Though it doesn't deal much damage, it serves as a reliable companion for those who appreciate its rugged past. Base Damage: " + getBaseDamage());
         try {
-            setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/WeaponData/sword.png"))));
+            setImageIcon(AssetCache.getImage("/Items/WeaponData/sword.png"));
 
         } catch (IOException e) {
             System.out.println("Weapon image not found: " + e);
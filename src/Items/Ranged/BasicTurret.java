@@ -1,11 +1,10 @@
 package Items.Ranged;
 
+import Universal.AssetCache;
 import Entities.Entity;
 import Managers.ActionManager;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
-import java.util.Objects;
 
 /**
  * The BasicTurret class represents a basic ranged weapon in the form of a spellbook,
@@ -33,7 +32,7 @@ public class BasicTurret extends RangedWeapon {
         setItemName("Basic Spellbook");
         setItemDescription("A simple yet powerful spellbook for novice mages. Allows the casting of fundamental spells with moderate damage and mana cost. Ideal for beginners to learn and practice magic. Mana Cost: " + getManaCost() + ". Base Damage: " + getBaseDamage());
         try {
-            setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/WeaponData/spellbook.png"))));
+            setImageIcon(AssetCache.getImage("/Items/WeaponData/spellbook.png"));
 
         } catch (IOException e) {
             System.out.println("Weapon image not found: " + e);
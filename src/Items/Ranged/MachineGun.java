@@ -1,11 +1,10 @@
 package Items.Ranged;
 
+import Universal.AssetCache;
 import Entities.Entity;
 import Managers.ActionManager;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
-import java.util.Objects;
 
 /**
  * The MachineGun class represents a rapid-fire ranged weapon in the form of a mystical spellbook,
@@ -33,7 +32,7 @@ public class MachineGun extends RangedWeapon {
         setItemName("Spellbook of Whispers");
         setItemDescription("A mystical tome adorned with intricate runes and faintly glowing symbols, unleashing a flurry of low-damage magical projectiles in quick succession. Mana Cost: " + getManaCost() + ". Base Damage: " + getBaseDamage());
         try {
-            setImageIcon(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/WeaponData/advanced_spellbook.png"))));
+            setImageIcon(AssetCache.getImage("/Items/WeaponData/advanced_spellbook.png"));
 
         } catch (IOException e) {
             System.out.println("Weapon image not found: " + e);
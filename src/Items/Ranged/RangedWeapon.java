@@ -8,12 +8,11 @@ import Managers.ActionManager;
 import Structure.Vector2F;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.AssetCache;
 
-import javax.imageio.ImageIO;
 import java.awt.event.KeyEvent;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 /**
  * The RangedWeapon class represents a base class for ranged weapons in the game.
  *
@@ -81,7 +80,7 @@ public class RangedWeapon extends Weapon {
 
             Projectile bullet = new Projectile(getLocation().getTranslated(new Vector2F(-500, -500)), new Vector2F(1000, 1000), new Vector2F(vx, vy), getBaseDamage());
             try {
-                bullet.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/player_projectile.png"))));
+                bullet.addFrame(AssetCache.getImage("/Player/player_projectile.png"));
 
             } catch (IOException e) {
                 System.out.println("Enemy image not found: " + e);
@@ -98,7 +97,7 @@ public class RangedWeapon extends Weapon {
 
             Projectile bullet = new Projectile(getLocation().getTranslated(new Vector2F(-500, -500)), new Vector2F(1000, 1000), new Vector2F(vx, vy), getBaseDamage());
             try {
-                bullet.addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Player/player_projectile.png"))));
+                bullet.addFrame(AssetCache.getImage("/Player/player_projectile.png"));
 
             } catch (IOException e) {
                 System.out.println("Enemy image not found: " + e);
@@ -129,6 +129,50 @@ public class ActionManager implements KeyListener, MouseListener, MouseMotionLis
         return mousePressed;
     }
 
+    /**
+     * Sets whether a key is pressed without a key event.
+     *
+     * <p>
+     * This method lets scripted input, such as the headless runner, drive the game the same way the keyboard does.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The key's pressed state is updated, and it becomes the last pressed key if it was pressed.
+     * </p>
+     *
+     * @param code the keycode of the key
+     * @param value true if the key is pressed, false if it is released
+     */
+    public void setPressed(int code, boolean value) {
+        pressed.put(code, value);
+        if (value) lastPressed = code;
+    }
+
+    /**
+     * Sets whether the mouse is pressed without a mouse event.
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The mouse's pressed state is updated.
+     * </p>
+     *
+     * @param value true if the mouse is pressed, false otherwise
+     */
+    public void setMousePressed(boolean value) {
+        mousePressed = value;
+    }
+
+    /**
+     * Releases every key and the mouse.
+     *
+     * <p>
+     * <strong>Post-condition:</strong> No key or mouse button is reported as pressed.
+     * </p>
+     */
+    public void releaseAll() {
+        pressed.clear();
+        mousePressed = false;
+    }
+
     @Override
     public void keyTyped(KeyEvent e) {
 
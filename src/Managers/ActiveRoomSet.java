@@ -0,0 +1,257 @@
+package Managers;
+
+import Entities.Player;
+import RoomEditor.Entrance;
+import Structure.Room;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Keeps track of which rooms of a level are simulated and which are drawn, by how many entrances away from the
+ * player's room they are.
+ *
+ * <p>
+ * Rooms are linked through their connected entrances. The player's current room is followed from room to
+ * neighbouring room, and the sets are only rebuilt, by a search out to the largest radius, when it changes.
+ * A room joins a set when it comes within the set's radius and only leaves once it is further than the radius
+ * plus the hysteresis, so walking back and forth through an entrance does not load and unload the rooms behind it.
+ * Rooms that join or leave the simulated set are reported to a listener, and so are the rooms one entrance past
+ * the furthest set, which the player is approaching.
+ * </p>
+ *
+ * <p>
+ * The number of rooms that still have enemies is counted once when the set is built and then kept up to date
+ * from the simulated rooms, the only ones whose enemies change, so a tick's work depends on the size of the
+ * sets and not on the size of the level.
+ * </p>
+ */
+class ActiveRoomSet {
+    public static final int DEFAULT_SIMULATE_RADIUS = 3;
+    public static final int DEFAULT_RENDER_RADIUS = 2;
+    public static final int DEFAULT_HYSTERESIS = 1;
+
+    /**
+     * Receives the rooms that join and leave the simulated set, and the rooms that are close to joining it.
+     */
+    interface Listener {
+        void roomApproached(Room room);
+        void roomEntered(Room room);
+        void roomLeft(Room room);
+    }
+
+    private final ArrayList<Room> rooms;
+    private final IdentityHashMap<Room, Integer> ids = new IdentityHashMap<>();
+    private final int[][] neighbours;   // Rooms connected to each room through an entrance
+    private final int[] distance;       // Entrances between each room and the current room, valid where reached
+    private final int[] reached;        // Search that last reached each room
+    private final int[] queue;
+    private int search = 0;
+
+    private final boolean[] simulated, rendered, cleared;
+    private final ArrayList<Room> simulatedRooms = new ArrayList<>(), renderedRooms = new ArrayList<>();
+    private final ArrayList<Room> leaving = new ArrayList<>();
+    private int simulateRadius, renderRadius, hysteresis;
+    private int current;
+    private int unclearedRooms = 0;
+    private final Listener listener;
+
+    /**
+     * Builds the room graph of a level, with the first room as the player's room.
+     * The rooms that start out simulated are reported to the listener straight away.
+     *
+     * @param rooms          the rooms of the level, whose entrances are already connected
+     * @param simulateRadius the radius of the simulated rooms
+     * @param renderRadius   the radius of the drawn rooms
+     * @param hysteresis     the extra distance before a room leaves a set
+     * @param listener       the listener to report rooms to, or null
+     */
+    ActiveRoomSet(ArrayList<Room> rooms, int simulateRadius, int renderRadius, int hysteresis, Listener listener) {
+        this.rooms = rooms;
+        this.listener = listener;
+        this.simulateRadius = Math.max(0, simulateRadius);
+        this.renderRadius = Math.max(0, renderRadius);
+        this.hysteresis = Math.max(0, hysteresis);
+        int n = rooms.size();
+        for (int i = 0; i < n; i++) {
+            ids.put(rooms.get(i), i);
+        }
+        neighbours = new int[n][];
+        for (int i = 0; i < n; i++) {
+            ArrayList<Integer> linked = new ArrayList<>();
+            for (Entrance e : rooms.get(i).getEntrances()) {
+                if (!e.isConnected() || e.getConnectedEntrance() == null) continue;
+                Integer other = ids.get(e.getConnectedEntrance().getParentRoom());
+                if (other != null && !linked.contains(other)) linked.add(other);
+            }
+            neighbours[i] = new int[linked.size()];
+            for (int j = 0; j < linked.size(); j++) {
+                neighbours[i][j] = linked.get(j);
+            }
+        }
+        distance = new int[n];
+        reached = new int[n];
+        queue = new int[n];
+        simulated = new boolean[n];
+        rendered = new boolean[n];
+        cleared = new boolean[n];
+        for (int i = 0; i < n; i++) {
+            cleared[i] = rooms.get(i).getCleared();
+            if (!cleared[i]) unclearedRooms++;
+        }
+        current = 0;
+        rebuild();
+    }
+
+    /**
+     * Follows the player into a neighbouring room, rebuilding the sets if the player's room changed.
+     * The player stays in their room while they still touch it, and otherwise moves to the first touched
+     * neighbouring room, or to the first touched simulated room if they somehow skipped past the neighbours.
+     *
+     * @param player the player to follow
+     */
+    void update(Player player) {
+        if (rooms.get(current).quickIntersect(player)) return;
+        int next = -1;
+        for (int neighbour : neighbours[current]) {
+            if (rooms.get(neighbour).quickIntersect(player)) {
+                next = neighbour;
+                break;
+            }
+        }
+        if (next < 0) {
+            for (Room r : simulatedRooms) {
+                if (r.quickIntersect(player)) {
+                    next = ids.get(r);
+                    break;
+                }
+            }
+        }
+        if (next < 0) return; // Between rooms, so the last room is kept
+        current = next;
+        rebuild();
+    }
+
+    /**
+     * Searches the rooms around the current room and moves rooms into and out of the sets.
+     */
+    private void rebuild() {
+        search++;
+        int maxDepth = Math.max(simulateRadius, renderRadius) + hysteresis + 1;
+        int head = 0, tail = 0;
+        queue[tail++] = current;
+        reached[current] = search;
+        distance[current] = 0;
+        while (head < tail) {
+            int room = queue[head++];
+            if (distance[room] == maxDepth) continue;
+            for (int neighbour : neighbours[room]) {
+                if (reached[neighbour] == search) continue;
+                reached[neighbour] = search;
+                distance[neighbour] = distance[room] + 1;
+                queue[tail++] = neighbour;
+            }
+        }
+
+        leaving.clear();
+        for (Room r : simulatedRooms) {
+            if (!keep(ids.get(r), simulateRadius)) leaving.add(r);
+        }
+        for (Room r : leaving) {
+            simulated[ids.get(r)] = false;
+            simulatedRooms.remove(r);
+            if (listener != null) listener.roomLeft(r);
+        }
+        for (int i = renderedRooms.size() - 1; i >= 0; i--) {
+            int id = ids.get(renderedRooms.get(i));
+            if (keep(id, renderRadius)) continue;
+            rendered[id] = false;
+            renderedRooms.remove(i);
+        }
+
+        for (int i = 0; i < tail; i++) {
+            int id = queue[i];
+            if (!simulated[id] && distance[id] <= simulateRadius) {
+                simulated[id] = true;
+                simulatedRooms.add(rooms.get(id));
+                if (listener != null) listener.roomEntered(rooms.get(id));
+            }
+            if (!rendered[id] && distance[id] <= renderRadius) {
+                rendered[id] = true;
+                renderedRooms.add(rooms.get(id));
+            }
+            if (!simulated[id] && listener != null) listener.roomApproached(rooms.get(id));
+        }
+    }
+
+    /**
+     * Checks if a room that is in a set stays in it after the last search.
+     */
+    private boolean keep(int id, int radius) {
+        return reached[id] == search && distance[id] <= radius + hysteresis;
+    }
+
+    /**
+     * Updates the count of rooms with enemies from the rooms whose enemies may have changed,
+     * which are the simulated rooms. Called once their data is updated.
+     */
+    void updateCleared() {
+        for (Room r : simulatedRooms) {
+            updateCleared(r);
+        }
+    }
+
+    /**
+     * Updates the count of rooms with enemies after a room may have gained or lost its enemies.
+     *
+     * @param room the room to check
+     */
+    void updateCleared(Room room) {
+        int id = ids.get(room);
+        if (cleared[id] == room.getCleared()) return;
+        cleared[id] = room.getCleared();
+        unclearedRooms += cleared[id] ? -1 : 1;
+    }
+
+    /**
+     * Sets how many entrances away from the player's room rooms are simulated and drawn,
+     * and how much further they have to be before they are dropped again.
+     *
+     * @param simulateRadius the radius of the simulated rooms
+     * @param renderRadius   the radius of the drawn rooms
+     * @param hysteresis     the extra distance before a room leaves a set
+     */
+    void setRadii(int simulateRadius, int renderRadius, int hysteresis) {
+        this.simulateRadius = Math.max(0, simulateRadius);
+        this.renderRadius = Math.max(0, renderRadius);
+        this.hysteresis = Math.max(0, hysteresis);
+        rebuild();
+    }
+
+    /**
+     * Retrieves the simulated rooms, in the order they joined the set, which must not be modified.
+     */
+    ArrayList<Room> getSimulatedRooms() {
+        return simulatedRooms;
+    }
+
+    /**
+     * Retrieves the drawn rooms, in the order they joined the set, which must not be modified.
+     */
+    List<Room> getRenderedRooms() {
+        return renderedRooms;
+    }
+
+    Room getCurrentRoom() {
+        return rooms.get(current);
+    }
+
+    boolean isAllCleared() {
+        return unclearedRooms == 0;
+    }
+
+    int getUnclearedRooms() {
+        return unclearedRooms;
+    }
+}
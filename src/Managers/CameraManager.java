@@ -22,6 +22,7 @@ public class CameraManager {
     private final Camera gameCamera, minimapCamera, mapCamera;
     private final Player player;
     private GameTimer toggleCooldown, teleportCooldown;
+    private long frameNumber = 0; // Frames recorded so far, shared by every camera so entities can tell frames apart
 
     /**
      * Initializes the CameraManager with a player and sets up the cameras.
@@ -52,11 +53,51 @@ public class CameraManager {
     }
 
     /**
-     * Draws the game, minimap, and map camera views.
+     * Records what the game, minimap, and map cameras see at the end of a tick.
      *
      * <p>
-     * This method sets the graphics context for each camera, draws the background, entities, and foreground for the game camera,
-     * minimap camera, and map camera. Optionally, it can draw the mouse cursor for the game camera and map camera.
+     * This method runs on the simulation thread after every tick. Each enabled camera records the entities it sees,
+     * and the map camera also records the mouse cursor. The finished frames are then handed to the Swing thread.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> Every camera has a finished frame of the current tick waiting to be painted.
+     * </p>
+     *
+     * @param e the EntityManager managing the entities to be drawn
+     */
+    public void record(EntityManager e) {
+        frameNumber++;
+        record(gameCamera, e);
+//        gameCamera.drawMouse();
+        record(minimapCamera, e);
+        mapCamera.startFrame(frameNumber);
+        if (mapCamera.isEnabled()) {
+            e.draw(mapCamera);
+            mapCamera.drawMouse();
+        }
+        mapCamera.finishFrame();
+    }
+
+    /**
+     * Records the entities a camera sees into a new frame.
+     *
+     * @param c the camera to record
+     * @param e the EntityManager managing the entities to be drawn
+     */
+    private void record(Camera c, EntityManager e) {
+        c.startFrame(frameNumber);
+        if (c.isEnabled()) e.draw(c);
+        c.finishFrame();
+    }
+
+    /**
+     * Paints the game, minimap, and map camera views from the frames most recently recorded.
+     *
+     * <p>
+     * This method runs on the Swing thread and only reads the recorded frames, so it never waits for the simulation.
+     * For each camera it paints the background, the recorded entities, and the foreground, with the camera and the
+     * entities blended between the previous and current tick of the frame.
      * </p>
      *
      * <p>
@@ -64,24 +105,22 @@ public class CameraManager {
      * </p>
      *
      * @param g the Graphics context to draw on
-     * @param e the EntityManager managing the entities to be drawn
+     * @param interpolation how far between the previous tick, at 0, and the current tick, at 1, to draw the frames
      */
-    public void draw(Graphics g, EntityManager e) {
-        gameCamera.setGraphics(g);
+    public void draw(Graphics g, double interpolation) {
+        gameCamera.setGraphics(g, interpolation);
         gameCamera.paintBackground();
-        e.draw(gameCamera);
+        gameCamera.paintFrame();
         gameCamera.paintForeground();
-//        gameCamera.drawMouse();
 
-        minimapCamera.setGraphics(g);
+        minimapCamera.setGraphics(g, interpolation);
         minimapCamera.paintBackground();
-        e.draw(minimapCamera);
+        minimapCamera.paintFrame();
         minimapCamera.paintForeground();
 
-        mapCamera.setGraphics(g);
+        mapCamera.setGraphics(g, interpolation);
         mapCamera.paintBackground();
-        e.draw(mapCamera);
-        mapCamera.drawMouse();
+        mapCamera.paintFrame();
 //        mapCamera.paintForeground();
     }
 
@@ -101,6 +140,10 @@ public class CameraManager {
      * @param e the EntityManager managing the entities in the game
      */
     public void update(ActionManager am, EntityManager e) {
+        gameCamera.storePreviousOffset();
+        minimapCamera.storePreviousOffset();
+        mapCamera.storePreviousOffset();
+
         gameCamera.updateKeyPresses(am, player.getPrimaryType());
         minimapCamera.updateKeyPresses(am, player.getPrimaryType());
         mapCamera.updateKeyPresses(am, player.getPrimaryType());
@@ -4,6 +4,7 @@ import Entities.Enemies.*;
 import Entities.Enemy;
 import Structure.Room;
 import Universal.Camera;
+import Universal.GameRandom;
 
 import java.util.ArrayList;
 
@@ -20,7 +21,7 @@ public class EnemyManager {
      * @return A randomly selected enemy instance.
      */
     public Enemy createEnemy(int x, int y) {
-        int rn = (int)(Math.random() * 100);
+        int rn = (int)(GameRandom.spawns().nextDouble() * 100);
         if (rn > 63) {
             return new FlyingEnemy(x - FlyingEnemy.getDefaultWidth()/2, y - FlyingEnemy.getDefaultHeight() + 500, 50);
         }
@@ -40,7 +41,7 @@ public class EnemyManager {
      * @return A randomly selected boss enemy instance.
      */
     public Enemy createBoss(int x, int y) {
-        int rn = (int)(Math.random() * 100);
+        int rn = (int)(GameRandom.spawns().nextDouble() * 100);
         System.out.println("Spawning Boss: " + rn);
         if (rn > 70) {
             return new FlyingBossEnemy(x - FlyingBossEnemy.getDefaultWidth()/2, y - FlyingBossEnemy.getDefaultHeight() + 500, 750);
@@ -62,14 +63,19 @@ public class EnemyManager {
      * @return A new instance of the enemy with the same characteristics.
      */
     public Enemy copy(Enemy e) {
-        if (e instanceof ShortMeleeEnemy) return new ShortMeleeEnemy(e.getX(), e.getY(), e.getStats().getHealth());
-        if (e instanceof FlyingEnemy) return new FlyingEnemy(e.getX(), e.getY(), e.getStats().getHealth());
-        if (e instanceof TeleportEnemy) return new TeleportEnemy(e.getX(), e.getY(), e.getStats().getHealth());
-        if (e instanceof FlyingBossEnemy) return new FlyingBossEnemy(e.getX(), e.getY(), e.getStats().getHealth());
-        if (e instanceof SummonerBossEnemy) return new SummonerBossEnemy(e.getX(), e.getY(), e.getStats().getHealth());
-        if (e instanceof TossBossEnemy) return new TossBossEnemy(e.getX(), e.getY(), e.getStats().getHealth());
-        System.out.println("Enemy type does not exist");
-        return null;
+        Enemy copy;
+        if (e instanceof ShortMeleeEnemy) copy = new ShortMeleeEnemy(e.getX(), e.getY(), e.getStats().getHealth());
+        else if (e instanceof FlyingEnemy) copy = new FlyingEnemy(e.getX(), e.getY(), e.getStats().getHealth());
+        else if (e instanceof TeleportEnemy) copy = new TeleportEnemy(e.getX(), e.getY(), e.getStats().getHealth());
+        else if (e instanceof FlyingBossEnemy) copy = new FlyingBossEnemy(e.getX(), e.getY(), e.getStats().getHealth());
+        else if (e instanceof SummonerBossEnemy) copy = new SummonerBossEnemy(e.getX(), e.getY(), e.getStats().getHealth());
+        else if (e instanceof TossBossEnemy) copy = new TossBossEnemy(e.getX(), e.getY(), e.getStats().getHealth());
+        else {
+            System.out.println("Enemy type does not exist");
+            return null;
+        }
+        copy.setPhase(e.getPhase());
+        return copy;
     }
 
     /**
@@ -126,6 +132,6 @@ public class EnemyManager {
      * @param c The Camera object used for drawing.
      */
     private void drawEnemy(Enemy e, Camera c) {
-        e.paint(c);
+        c.paintEntity(e);
     }
 }
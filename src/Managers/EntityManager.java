@@ -3,6 +3,7 @@ package Managers;
 import Entities.Player;
 import Items.Chest;
 import Universal.Camera;
+import Universal.GameRandom;
 
 /**
  * Manages entities within the game, including the player, rooms, and chests.
@@ -35,7 +36,7 @@ public class EntityManager {
         player = new Player(-1000, -6000);
 
         roomManager = new RoomManager();
-        levelNumber = (int) (Math.random() * 3 + 1);
+        levelNumber = (int) (GameRandom.generation().nextDouble() * 3 + 1);
         roomManager.generateLevel(player, levelNumber);
     }
 
@@ -61,14 +62,12 @@ public class EntityManager {
             roomManager.toggleChest();
 
             if (roomManager.generateLevelFromPortal()) {
-                roomManager.setMinimumRooms(roomManager.getMinimumRooms() + 1);
-                roomManager.generateLevel(player, (int) (Math.random() * 3) + 1);
+                roomManager.generateNextLevel(player);
             };
         }
 
         if (player.generateRooms()) {
-            roomManager.setMinimumRooms(roomManager.getMinimumRooms() + 1);
-            roomManager.generateLevel(player, (int) (Math.random() * 3) + 1);
+            roomManager.generateNextLevel(player);
             player.setGenerateRooms(false);
 
         }
@@ -177,7 +176,7 @@ public class EntityManager {
     public void draw(Camera c) {
         roomManager.drawRooms(c);
         roomManager.drawEntities(c);
-        player.paint(c);
+        c.paintEntity(player);
     }
 
     /**
@@ -196,4 +195,13 @@ public class EntityManager {
     public Player getPlayer() {
         return player;
     }
+
+    /**
+     * Retrieves the room manager.
+     *
+     * @return the room manager of the current game
+     */
+    public RoomManager getRoomManager() {
+        return roomManager;
+    }
 }
@@ -0,0 +1,145 @@
+package Managers;
+
+import RoomEditor.Entrance;
+import Structure.HitboxGroup;
+import Structure.Hitbox;
+import Structure.Room;
+import Structure.Vector2F;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+
+/**
+ * Indexes the entrances of a set's room templates by the side they are on, so level generation can find the
+ * templates that connect to an open entrance, and where they would be placed, without copying any of them.
+ *
+ * <p>
+ * Every entrance of every template becomes a placement, which records how far a copy of the template is moved
+ * when it is connected through that entrance, and the bounding box of the copy before it is moved.
+ * Entrances on the same side all have the same width, so the side alone decides which entrances connect.
+ * Placements are listed in template order, then entrance order, the order the templates were tried in before.
+ * The index never changes once built and is shared by every generation attempt of the set.
+ * </p>
+ */
+public class EntranceIndex {
+    private static final IdentityHashMap<List<Room>, EntranceIndex> indexes = new IdentityHashMap<>();
+
+    /**
+     * Represents one entrance of one template: the template, when connected through the entrance to an open entrance,
+     * is placed at the open entrance's draw location moved by the placement's offset.
+     */
+    public static class Placement {
+        private final int template, entrance, entranceCount;
+        private final int offsetX, offsetY;
+        private final int left, top, right, bottom; // Bounding box of a copy of the template, before it is moved
+
+        private Placement(int template, int entrance, Room room, Hitbox bounds) {
+            this.template = template;
+            this.entrance = entrance;
+            this.entranceCount = room.getEntrances().size();
+            Vector2F location = room.getEntrances().get(entrance).getLocation();
+            // setDrawLocation moves a copy by the draw location minus the template's, then centerAroundPointInRoom
+            // moves it by the template's center minus the entrance
+            offsetX = room.getCenterLocation().getX() - room.getDrawLocation().getX() - location.getX();
+            offsetY = room.getCenterLocation().getY() - room.getDrawLocation().getY() - location.getY();
+            left = bounds.getLeft();
+            top = bounds.getTop();
+            right = bounds.getRight();
+            bottom = bounds.getBottom();
+        }
+
+        public int getTemplate() {
+            return template;
+        }
+
+        public int getEntrance() {
+            return entrance;
+        }
+
+        public int getEntranceCount() {
+            return entranceCount;
+        }
+
+        /**
+         * Retrieves how far a copy of the template is moved from the template when it is placed at a draw location.
+         *
+         * @param drawLocation The draw location the room would be given
+         * @return The horizontal movement
+         */
+        public int getMoveX(Vector2F drawLocation) {
+            return drawLocation.getX() + offsetX;
+        }
+
+        /**
+         * Retrieves how far a copy of the template is moved from the template when it is placed at a draw location.
+         *
+         * @param drawLocation The draw location the room would be given
+         * @return The vertical movement
+         */
+        public int getMoveY(Vector2F drawLocation) {
+            return drawLocation.getY() + offsetY;
+        }
+
+        /**
+         * Writes the bounding box the template would have if it were placed at a draw location into a hitbox.
+         *
+         * @param drawLocation The draw location the room would be given
+         * @param dst          The hitbox to write the bounding box into
+         */
+        public void getBounds(Vector2F drawLocation, Hitbox dst) {
+            int dx = drawLocation.getX() + offsetX, dy = drawLocation.getY() + offsetY;
+            dst.setBounds(left + dx, top + dy, right + dx, bottom + dy);
+        }
+    }
+
+    private final ArrayList<ArrayList<Placement>> bySide = new ArrayList<>(); // Placements of the entrances on each side
+
+    /**
+     * Constructs the index of a list of room templates.
+     *
+     * @param templates The room templates to index
+     */
+    public EntranceIndex(List<Room> templates) {
+        for (int side = 0; side <= 4; side++) {
+            bySide.add(new ArrayList<Placement>());
+        }
+        for (int t = 0; t < templates.size(); t++) {
+            Room template = templates.get(t);
+            Hitbox bounds = new HitboxGroup(template.getHitbox()).getBoundingBox(); // A copy's box can differ from the template's
+            for (int i = 0; i < template.getEntrances().size(); i++) {
+                int side = template.getEntrances().get(i).getSide();
+                if (side < 0) continue; // Entrances without a direction never connect
+                bySide.get(side).add(new Placement(t, i, template, bounds));
+            }
+        }
+    }
+
+    /**
+     * Retrieves the index of a list of room templates, building it on the first request.
+     *
+     * @param templates The room templates, which must not change afterwards
+     * @return The index of the templates
+     */
+    public static synchronized EntranceIndex getIndex(List<Room> templates) {
+        EntranceIndex index = indexes.get(templates);
+        if (index == null) {
+            index = new EntranceIndex(templates);
+            indexes.put(templates, index);
+        }
+        return index;
+    }
+
+    /**
+     * Retrieves the placements of every template entrance that connects to an entrance.
+     *
+     * @param open The entrance to connect to
+     * @return The placements, in template order and then entrance order, which must not be modified
+     */
+    public List<Placement> getPlacements(Entrance open) {
+        int side = open.getConnectingSide();
+        if (side < 0) return Collections.emptyList();
+        return bySide.get(side);
+    }
+}
@@ -0,0 +1,345 @@
+package Managers;
+
+import RoomEditor.Entrance;
+import Structure.Hitbox;
+import Structure.HitboxGroup;
+import Structure.Room;
+import Structure.SpatialHash;
+import Structure.Vector2F;
+import Universal.GameRandom;
+
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates the layout of a level from the room templates of a set.
+ *
+ * <p>
+ * Every LevelGenerator is one attempt at a layout. It places rooms on lists of its own and draws its random numbers
+ * from its own generator, so attempts can run on several threads at the same time without touching the RoomManager
+ * or each other. {@link #generate(List, int, int, long, int)} runs attempts until one has enough rooms.
+ * </p>
+ */
+public class LevelGenerator {
+    public static final int MAXIMUM_NUMBER_OF_ROOMS = 50;
+    private static final int ROOM_CELL_SIZE = 64000; // About the size of a medium room
+
+    private static final int WORKER_COUNT = Runtime.getRuntime().availableProcessors();
+    private static ExecutorService workers; // Runs the attempts of parallel generation, shared by every level
+
+    private final List<Room> possibleBiomeRooms;
+    private final int setNumber, minimumRooms;
+    private final Random random;
+    private final ArrayList<Room> allRooms = new ArrayList<>(), loadedRooms = new ArrayList<>();
+    private final Deque<Room> toGenerateNeighbours = new ArrayDeque<>();
+    private final HitboxGroup mapBoundingbox = new HitboxGroup();
+    private final EntranceIndex entranceIndex;
+    private final Hitbox candidateBounds = new Hitbox(0, 0, 1, 1);
+    private final SpatialHash<Room> placedRooms = new SpatialHash<>(ROOM_CELL_SIZE); // Bounding boxes of allRooms
+    private final ArrayList<Room> nearbyRooms = new ArrayList<>();
+    private volatile boolean cancelled = false;
+
+    /**
+     * Constructs a LevelGenerator for one attempt at a layout.
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The generator is ready to generate, with no rooms placed.
+     * </p>
+     *
+     * @param possibleBiomeRooms the room templates of the set, which are only copied
+     * @param setNumber          the set the templates belong to
+     * @param minimumRooms       the number of rooms the layout needs to be accepted
+     * @param seed               the seed of the attempt's random numbers
+     */
+    public LevelGenerator(List<Room> possibleBiomeRooms, int setNumber, int minimumRooms, long seed) {
+        this.possibleBiomeRooms = possibleBiomeRooms;
+        this.setNumber = setNumber;
+        this.minimumRooms = minimumRooms;
+        this.random = new Random(seed);
+        this.entranceIndex = EntranceIndex.getIndex(possibleBiomeRooms);
+    }
+
+    /**
+     * Runs attempts at a layout, on several threads at once, until one of them has enough rooms.
+     *
+     * <p>
+     * Attempt i is seeded from the seed and i, and the accepted layout is always the one of the first attempt in that
+     * order with enough rooms, so the result only depends on the seed and not on the number of threads or on which
+     * attempt finished first. Attempts after it that are still running are cancelled.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The accepted attempt is returned, and every other attempt is cancelled.
+     * </p>
+     *
+     * @param possibleBiomeRooms the room templates of the set
+     * @param setNumber          the set the templates belong to
+     * @param minimumRooms       the number of rooms the layout needs
+     * @param seed               the seed the attempts are seeded from
+     * @param threads            the number of attempts to run at once, at most one per processor,
+     *                           or 1 to run them in turn on the calling thread
+     * @return the accepted attempt
+     */
+    public static LevelGenerator generate(List<Room> possibleBiomeRooms, int setNumber, int minimumRooms, long seed, int threads) {
+        if (threads <= 1) {
+            for (int i = 0; ; i++) {
+                LevelGenerator attempt = new LevelGenerator(possibleBiomeRooms, setNumber, minimumRooms, attemptSeed(seed, i));
+                attempt.generate();
+                System.out.println("Generated " + attempt.allRooms.size() + " rooms");
+                if (attempt.isAccepted()) return attempt;
+            }
+        }
+
+        ExecutorService executor = getWorkers();
+        threads = Math.min(threads, WORKER_COUNT);
+        ArrayList<LevelGenerator> attempts = new ArrayList<>();
+        ArrayList<Future<?>> futures = new ArrayList<>();
+        LevelGenerator accepted = null;
+        try {
+            for (int i = 0; ; i++) {
+                while (attempts.size() < i + threads) { // Keep every thread busy with the attempts that come next
+                    LevelGenerator attempt = new LevelGenerator(possibleBiomeRooms, setNumber, minimumRooms, attemptSeed(seed, attempts.size()));
+                    attempts.add(attempt);
+                    futures.add(executor.submit((Runnable) attempt::generate));
+                }
+                waitFor(futures.get(i));
+                LevelGenerator attempt = attempts.get(i);
+                System.out.println("Generated " + attempt.allRooms.size() + " rooms");
+                if (attempt.isAccepted()) {
+                    accepted = attempt;
+                    return attempt;
+                }
+            }
+        } finally {
+            for (int i = 0; i < attempts.size(); i++) {
+                if (attempts.get(i) == accepted) continue;
+                attempts.get(i).cancel();
+                futures.get(i).cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Generates rooms and connects them to create a level layout.
+     *
+     * <p>
+     * This method selects a starting room and generates additional rooms until the maximum number is reached,
+     * no room has an open entrance left, or the attempt is cancelled.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The layout of the attempt is generated, unless it was cancelled.
+     * </p>
+     */
+    public void generate() {
+        GameRandom.setThreadRandom(random);
+        try {
+            generateRooms();
+        } finally {
+            GameRandom.setThreadRandom(null);
+        }
+    }
+
+    /**
+     * Generates rooms and connects them to create a level layout.
+     */
+    private void generateRooms() {
+        if (possibleBiomeRooms.isEmpty()) return;
+        ArrayList<Room> roomsWithPlayerSpawn =  new ArrayList<>();
+        for (Room startingRoom: possibleBiomeRooms) {
+            if (startingRoom.getPlayerSpawns().isEmpty()) continue;
+            roomsWithPlayerSpawn.add(startingRoom);
+        }
+        Room startingRoom = new Room(roomsWithPlayerSpawn.get((int) (GameRandom.generation().nextDouble() * roomsWithPlayerSpawn.size())));
+//        Room startingRoom = new Room(possibleBiomeRooms.get(8)); // TODO add player spawn locations to prevent spawning inside of walls
+        Vector2F center = startingRoom.getCenterRelativeToRoom();
+        startingRoom.centerAroundPointInRoom(center);
+        addRoom(startingRoom);
+        loadRoom(startingRoom);
+
+        toGenerateNeighbours.add(startingRoom);
+        while (!toGenerateNeighbours.isEmpty() && allRooms.size() < MAXIMUM_NUMBER_OF_ROOMS) {
+//        while (!toGenerateNeighbours.isEmpty() && allRooms.size() < 30) {
+            if (cancelled) return;
+            generateAttached(toGenerateNeighbours.pollFirst());
+        }
+
+        for (Room r: allRooms) {
+            r.closeEntrances();
+        }
+    }
+
+    /**
+     * Generates rooms attached to the given room by connecting entrances.
+     *
+     * <p>
+     * This method generates and connects new rooms to the given room based on available entrances.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> New rooms are generated and connected to the given room.
+     * </p>
+     *
+     * @param r the room to which new rooms will be attached
+     */
+    private void generateAttached(Room r) {
+        ArrayList<Entrance> entrancesToGenerate = new ArrayList<>();
+        for (Entrance e: r.getEntrances()) {
+            if (e.isConnected()) continue;
+            entrancesToGenerate.add(e);
+        }
+
+        while (!entrancesToGenerate.isEmpty()) {
+            Entrance e = entrancesToGenerate.get((int)(GameRandom.generation().nextDouble() * entrancesToGenerate.size())); // TODO generate rooms based on entrances closest to the center
+            entrancesToGenerate.remove(e);
+            Vector2F drawLocation = r.getDrawLocation().getTranslated(r.getCenterLocation().getNegative()).getTranslated(e.getConnection());
+            ArrayList<EntranceIndex.Placement> compatibleRooms = new ArrayList<>();
+            int lastCompatibleTemplate = -1;
+            for (EntranceIndex.Placement placement: entranceIndex.getPlacements(e)) {
+                if (placement.getTemplate() == lastCompatibleTemplate) continue; // Each template is offered once
+                if (possibleBiomeRooms.get(placement.getTemplate()).getRoomID() == r.getRoomID()) continue;
+                if (collides(placement, drawLocation)) continue;
+
+                // Bias towards rooms with less entrances as the map gets larger
+                if (GameRandom.generation().nextDouble() > (Math.pow(placement.getEntranceCount(), 1 + 4.0 * allRooms.size() / minimumRooms)) * 0.01) {
+                    compatibleRooms.add(placement);
+                    lastCompatibleTemplate = placement.getTemplate();
+                }
+            }
+
+            int randomRoom = (int)(GameRandom.generation().nextDouble() * compatibleRooms.size());
+            if (compatibleRooms.isEmpty()) continue;
+            EntranceIndex.Placement placement = compatibleRooms.get(randomRoom);
+            Room newRoom = new Room(possibleBiomeRooms.get(placement.getTemplate()));
+            Entrance connectingEntrance = newRoom.getEntrances().get(placement.getEntrance());
+            newRoom.setDrawLocation(drawLocation);
+            newRoom.centerAroundPointInRoom(connectingEntrance.getLocation());
+            connectingEntrance.setConnected(true, e);
+            e.setConnected(true, connectingEntrance);
+            addRoom(newRoom);
+            loadRoom(newRoom);
+            toGenerateNeighbours.add(newRoom);
+        }
+    }
+
+    /**
+     * Checks if a template would overlap any placed room if it were connected through one of its entrances.
+     *
+     * <p>
+     * Only the placed rooms whose bounding boxes are near the template's are looked up, through a grid of the placed
+     * rooms, and their boxes are tested first. Only when the boxes overlap and the set
+     * needs an exact test is the template tested wall by wall, as if it were moved to the placement,
+     * so nothing is copied or moved to test a placement.
+     * </p>
+     *
+     * @param placement    the template entrance to connect through
+     * @param drawLocation the draw location of the open entrance
+     * @return true if the template would overlap a placed room, false otherwise
+     */
+    private boolean collides(EntranceIndex.Placement placement, Vector2F drawLocation) {
+        placement.getBounds(drawLocation, candidateBounds);
+        Room template = possibleBiomeRooms.get(placement.getTemplate());
+        int moveX = placement.getMoveX(drawLocation), moveY = placement.getMoveY(drawLocation);
+        for (Room collsionTest: placedRooms.query(candidateBounds, nearbyRooms)) {
+            if (setNumber == 1 || setNumber == 3) {
+                if (!candidateBounds.quickIntersect(collsionTest.getHitbox().getBoundingBox())) continue;
+                if (template.intersects(collsionTest, moveX, moveY, true)) return true;
+            } else if (setNumber == 2) {
+                if (candidateBounds.quickIntersect(collsionTest.getHitbox().getBoundingBox(), true)) return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a room to the list of loaded rooms.
+     *
+     * @param r the room to be added to the loaded rooms list
+     */
+    private void loadRoom(Room r) {
+        loadedRooms.add(r);
+    }
+
+    /**
+     * Adds a room to the list of all rooms and the grid of placed rooms, and updates the map bounding box.
+     *
+     * @param r the room to be added to the all rooms list
+     */
+    private void addRoom(Room r) {
+        mapBoundingbox.addHitbox(r.getHitbox().getBoundingBox());
+        allRooms.add(r);
+        placedRooms.insert(r, r.getHitbox().getBoundingBox());
+    }
+
+    /**
+     * Stops the attempt as soon as possible, leaving its layout unfinished.
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The attempt is not accepted.
+     * </p>
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if the attempt finished with at least the minimum number of rooms.
+     *
+     * @return true if the layout can be used, false otherwise
+     */
+    public boolean isAccepted() {
+        return !cancelled && allRooms.size() >= minimumRooms;
+    }
+
+    public ArrayList<Room> getAllRooms() {
+        return allRooms;
+    }
+
+    public ArrayList<Room> getLoadedRooms() {
+        return loadedRooms;
+    }
+
+    public HitboxGroup getMapBoundingbox() {
+        return mapBoundingbox;
+    }
+
+    /**
+     * Calculates the seed of an attempt, spreading the attempts of a level apart.
+     */
+    private static long attemptSeed(long seed, int attempt) {
+        return seed + attempt * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Retrieves the threads that run parallel attempts, one per processor, starting them on the first request.
+     * The pool is never shut down, since a level may be generated on it at any time, and each call to generate
+     * limits how many of its attempts run at once instead.
+     */
+    private static synchronized ExecutorService getWorkers() {
+        if (workers == null) {
+            workers = Executors.newFixedThreadPool(WORKER_COUNT, runnable -> {
+                Thread thread = new Thread(runnable, "LevelGenerator");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return workers;
+    }
+
+    /**
+     * Waits for an attempt to finish, passing on any error it failed with.
+     */
+    private static void waitFor(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while generating a level", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Level generation failed", e.getCause());
+        }
+    }
+}
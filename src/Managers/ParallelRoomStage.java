@@ -0,0 +1,134 @@
+package Managers;
+
+import Structure.Room;
+import Universal.GameRandom;
+import Universal.SharedEffects;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * Runs one step of an update for every loaded room, either at the same time as fork-join tasks or in turn.
+ *
+ * <p>
+ * A task only changes its own room. It may read the other loaded rooms, whose walls do not move during an update,
+ * and the player, whose changes are held back through SharedEffects along with anything else shared between rooms.
+ * Every task draws its random numbers from its own generator, seeded in room order from GameRandom.
+ * Once every task has finished, the held back changes are applied on the calling thread, room by room in the order
+ * of the room list, so an update gives the same result however its tasks were scheduled.
+ * A stage without a pool runs the same tasks one after another on the calling thread, with the same generators
+ * and the same held back changes, so it plays out exactly like a parallel stage, only slower.
+ * </p>
+ */
+class ParallelRoomStage {
+    private final ForkJoinPool pool; // Null if the rooms are updated in turn
+    private final ArrayList<ArrayList<Runnable>> effects = new ArrayList<>(); // Held back changes of each room
+    private final ArrayList<Random> randoms = new ArrayList<>();              // Generator of each room's task
+
+    /**
+     * Creates a stage that runs its tasks on a pool of its own, or in turn on the calling thread.
+     *
+     * @param parallelism the number of threads to use, or 0 to run the tasks in turn
+     */
+    ParallelRoomStage(int parallelism) {
+        pool = parallelism > 0 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    /**
+     * Checks if the stage runs its tasks in parallel.
+     *
+     * @return true if the tasks run on a pool, false if they run in turn
+     */
+    boolean isParallel() {
+        return pool != null;
+    }
+
+    /**
+     * Runs a step for every room, then applies the changes the rooms made to shared state in room order.
+     *
+     * @param rooms the rooms to run the step for, which must not change until the step is done
+     * @param step  the step to run for a room
+     */
+    void run(List<Room> rooms, Consumer<Room> step) {
+        int n = rooms.size();
+        if (n == 0) return;
+        while (effects.size() < n) {
+            effects.add(new ArrayList<Runnable>());
+            randoms.add(new Random());
+        }
+        long seed = GameRandom.ai().nextLong();
+        for (int i = 0; i < n; i++) {
+            randoms.get(i).setSeed(seed + i * 0x9E3779B97F4A7C15L);
+            effects.get(i).clear(); // Left over if an earlier step failed
+        }
+
+        if (pool != null) {
+            pool.invoke(new RoomTask(rooms, step, 0, n));
+        } else {
+            for (int i = 0; i < n; i++) {
+                runRoom(rooms, step, i);
+            }
+        }
+
+        for (int i = 0; i < n; i++) {
+            SharedEffects.applyAll(effects.get(i));
+        }
+    }
+
+    /**
+     * Stops the threads of the stage. The stage cannot be used afterwards.
+     */
+    void shutdown() {
+        if (pool != null) pool.shutdown();
+    }
+
+    /**
+     * Runs the step for one room on the current thread, with the room's generator, holding back its shared changes.
+     *
+     * @param rooms the rooms of the step
+     * @param step  the step to run
+     * @param index the index of the room to run the step for
+     */
+    private void runRoom(List<Room> rooms, Consumer<Room> step, int index) {
+        SharedEffects.collect(effects.get(index));
+        GameRandom.setThreadRandom(randoms.get(index));
+        try {
+            step.accept(rooms.get(index));
+        } finally {
+            GameRandom.setThreadRandom(null);
+            SharedEffects.stopCollecting();
+        }
+    }
+
+    /**
+     * Runs the step for a range of rooms, splitting the range until every task has one room.
+     */
+    private class RoomTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Room> rooms;
+        private final Consumer<Room> step;
+        private final int from, to;
+
+        RoomTask(List<Room> rooms, Consumer<Room> step, int from, int to) {
+            this.rooms = rooms;
+            this.step = step;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new RoomTask(rooms, step, from, mid), new RoomTask(rooms, step, mid, to));
+                return;
+            }
+            runRoom(rooms, step, from);
+        }
+    }
+}
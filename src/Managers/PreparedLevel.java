@@ -0,0 +1,58 @@
+package Managers;
+
+import Structure.LevelNavGraph;
+import Structure.Room;
+
+import java.util.List;
+
+/**
+ * A level whose layout and routes are built, but which is not in use yet.
+ *
+ * <p>
+ * Building only reads the set's room templates and makes rooms of its own, so it can run on a background thread
+ * while the current level is played. The rooms are not populated, since enemies and chests draw from the game's
+ * random numbers and must be made on the game thread, and the RoomManager does that when it swaps the level in.
+ * </p>
+ */
+class PreparedLevel {
+    private final int setNumber, minimumRooms;
+    private final List<Room> templates;
+    private final LevelGenerator layout;
+    private final LevelNavGraph navGraph;
+
+    /**
+     * Builds the layout of a level and the routes between its rooms.
+     *
+     * @param setNumber    the set to build the level from
+     * @param minimumRooms the number of rooms the level needs
+     * @param seed         the seed of the layout, so the same level is built on any thread
+     * @param threads      the number of layout attempts to run at once
+     */
+    PreparedLevel(int setNumber, int minimumRooms, long seed, int threads) {
+        this.setNumber = setNumber;
+        this.minimumRooms = minimumRooms;
+        templates = RoomTemplateCache.getTemplates(setNumber);
+        layout = LevelGenerator.generate(templates, setNumber, minimumRooms, seed, threads);
+        navGraph = new LevelNavGraph(layout.getAllRooms());
+    }
+
+    int getSetNumber() {
+        return setNumber;
+    }
+
+    int getMinimumRooms() {
+        return minimumRooms;
+    }
+
+    List<Room> getTemplates() {
+        return templates;
+    }
+
+    LevelGenerator getLayout() {
+        return layout;
+    }
+
+    LevelNavGraph getNavGraph() {
+        return navGraph;
+    }
+}
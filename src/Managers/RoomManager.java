@@ -1,16 +1,23 @@
 package Managers;
 
+import Entities.Entity;
 import Entities.Player;
 import Items.Chest;
 import Structure.HitboxGroup;
+import Structure.LevelNavGraph;
+import Structure.PathScheduler;
+import Structure.SpatialHash;
 import Universal.Camera;
-import RoomEditor.Entrance;
 import Structure.Room;
-import Structure.Vector2F;
 import Universal.GameTimer;
+import Universal.GameRandom;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
 
 /**
  * Manages the generation, loading, updating, and rendering of rooms within the game.
@@ -22,16 +29,26 @@ import java.util.*;
  * </p>
  */
 public class RoomManager {
+    public static final int NUMBER_OF_SETS = 3;
+    private static ExecutorService levelWorker; // Builds the next level in the background, shared by every RoomManager
     private HitboxGroup mapBoundingbox = new HitboxGroup();
-    private ArrayList<Room> allRooms, loadedRooms, possibleBiomeRooms;
+    private ArrayList<Room> allRooms, loadedRooms;
+    private SpatialHash<Entity> playerContacts = new SpatialHash<>(); // Entities of the loaded rooms, rebuilt every tick
+    private List<Room> possibleBiomeRooms;
     private EnemyManager enemyManager;
-    private Deque<Room> toGenerateNeighbours;
-    private int renderDistance = 200000;
     private GameTimer teleportCooldown;
     private int setNumber, minimumRooms = 1;
-    private final int MAXIMUM_NUMBER_OF_ROOMS = 50;
+    private int generationThreads = Math.min(4, Runtime.getRuntime().availableProcessors());
     private boolean exitPortalCreated = false;
-    private Room lastTouchedRoom = null;
+    private ActiveRoomSet activeRooms; // The rooms around the player that are simulated and drawn
+    private RoomPopulator populator; // Populates the rooms of the level as they are first simulated
+    private int simulateRadius = ActiveRoomSet.DEFAULT_SIMULATE_RADIUS, renderRadius = ActiveRoomSet.DEFAULT_RENDER_RADIUS;
+    private int roomHysteresis = ActiveRoomSet.DEFAULT_HYSTERESIS;
+    private final PathScheduler pathScheduler = new PathScheduler(); // Runs the path searches of every enemy
+    private LevelNavGraph levelNavGraph; // Routes between the entrances of the current level's rooms
+    private ParallelRoomStage roomStage = new ParallelRoomStage(0); // Updates the loaded rooms, at the same time or in turn
+    private FutureTask<PreparedLevel> nextLevel; // The level after this one, being built in the background, or null
+    private int preparedLevels = 0, fallbackLevels = 0; // Next levels that were ready in time, and ones that were not
 
     /**
      * Initializes the RoomManager with default values.
@@ -54,7 +71,9 @@ public class RoomManager {
      * Generates a new level based on the given set number and places the player in the initial room.
      *
      * <p>
-     * This method loads possible rooms from files, generates a level with a minimum number of rooms, and sets up the rooms for gameplay.
+     * This method retrieves the set's cached room templates, generates a level with a minimum number of rooms, and sets up the rooms for gameplay.
+     * Attempts at the layout run on several threads at once, and the rooms of the level are only replaced once one of them is accepted.
+     * Once the level is in use, the level after it starts being built in the background.
      * </p>
      *
      * <p>
@@ -65,14 +84,137 @@ public class RoomManager {
      * @param setNumber the set number indicating the type of rooms to load
      */
     public void generateLevel(Player p, int setNumber) {
-        possibleBiomeRooms = new ArrayList<>();
-        this.setNumber = setNumber;
-        loadRoomsFromFile(setNumber);
-        do {
-            generateRooms();
-            System.out.println("Generated " + allRooms.size() + " rooms");
-        } while (allRooms.size() < minimumRooms);
-        setupRooms(p);
+        commitLevel(p, new PreparedLevel(setNumber, minimumRooms, GameRandom.generation().nextLong(), generationThreads));
+    }
+
+    /**
+     * Moves on to the next level, with one more room than this one, and places the player in its initial room.
+     *
+     * <p>
+     * The next level is normally already built in the background, and is only populated and swapped in here.
+     * If its building has not started yet it is built on this thread instead, and if it is still being built this
+     * method waits for it. Its set and seed were drawn when it was prepared, so it is the same level either way.
+     * If the minimum number of rooms was changed in the meantime, the prepared level is dropped and a new one is built.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The next level is in use, the player is placed in its initial room,
+     * and the level after it is being prepared.
+     * </p>
+     *
+     * @param p the player to be placed in the initial room
+     */
+    public void generateNextLevel(Player p) {
+        setMinimumRooms(minimumRooms + 1);
+        FutureTask<PreparedLevel> task = nextLevel;
+        nextLevel = null;
+        PreparedLevel level = null;
+        if (task != null) {
+            if (task.isDone()) preparedLevels++;
+            else fallbackLevels++;
+            task.run(); // Builds the level here if the worker has not started it, and does nothing otherwise
+            level = waitFor(task);
+            if (level.getMinimumRooms() != minimumRooms) level = null;
+        }
+        if (level == null) {
+            int set = (int) (GameRandom.generation().nextDouble() * NUMBER_OF_SETS) + 1;
+            level = new PreparedLevel(set, minimumRooms, GameRandom.generation().nextLong(), generationThreads);
+        }
+        commitLevel(p, level);
+    }
+
+    /**
+     * Swaps a built level in and places the player in its initial room.
+     *
+     * <p>
+     * Only the rooms around the initial room are populated straight away. Every other room is populated when it is
+     * first simulated, from contents made in the background as the player approaches it.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The level is in use and the level after it is being prepared.
+     * </p>
+     *
+     * @param p the player to be placed in the initial room
+     * @param level the level to use
+     */
+    private void commitLevel(Player p, PreparedLevel level) {
+        setNumber = level.getSetNumber();
+        possibleBiomeRooms = level.getTemplates();
+        pathScheduler.clear();
+        allRooms = level.getLayout().getAllRooms();
+        mapBoundingbox = level.getLayout().getMapBoundingbox();
+        levelNavGraph = level.getNavGraph();
+        if (populator != null) populator.cancel();
+        populator = new RoomPopulator(allRooms, GameRandom.spawns().nextLong());
+        activeRooms = new ActiveRoomSet(allRooms, simulateRadius, renderRadius, roomHysteresis, populator);
+        loadedRooms = activeRooms.getSimulatedRooms();
+        allRooms.get(0).spawnPlayer(p);
+        prepareNextLevel();
+    }
+
+    /**
+     * Starts building the level after the current one in the background.
+     *
+     * <p>
+     * Its set and seed are drawn here, on the game thread, so the game's random numbers are drawn in the same order
+     * however long the building takes.
+     * </p>
+     */
+    private void prepareNextLevel() {
+        if (nextLevel != null) nextLevel.cancel(false);
+        int set = (int) (GameRandom.generation().nextDouble() * NUMBER_OF_SETS) + 1;
+        int rooms = Math.min(minimumRooms + 1, LevelGenerator.MAXIMUM_NUMBER_OF_ROOMS);
+        long seed = GameRandom.generation().nextLong();
+        int threads = generationThreads;
+        nextLevel = new FutureTask<>(() -> new PreparedLevel(set, rooms, seed, threads));
+        getLevelWorker().execute(nextLevel);
+    }
+
+    /**
+     * Retrieves the thread that builds next levels, starting it on the first request.
+     */
+    private static synchronized ExecutorService getLevelWorker() {
+        if (levelWorker == null) {
+            levelWorker = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "LevelPreparer");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return levelWorker;
+    }
+
+    /**
+     * Waits for a prepared level to be built, passing on any error it failed with.
+     */
+    private static PreparedLevel waitFor(FutureTask<PreparedLevel> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while preparing a level", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Level preparation failed", e.getCause());
+        }
+    }
+
+    /**
+     * Retrieves the number of next levels that were already built when the player moved on to them.
+     *
+     * @return the number of next levels that were ready in time
+     */
+    public int getPreparedLevels() {
+        return preparedLevels;
+    }
+
+    /**
+     * Retrieves the number of next levels that were still being built, or not started, when the player moved on to them.
+     *
+     * @return the number of next levels that had to be waited for
+     */
+    public int getFallbackLevels() {
+        return fallbackLevels;
     }
 
     /**
@@ -96,7 +238,7 @@ public class RoomManager {
             }
 
         } else {
-            ArrayList<Room> roomsToDraw = new ArrayList<>(loadedRooms);
+            ArrayList<Room> roomsToDraw = new ArrayList<>(activeRooms.getRenderedRooms());
             for (Room room : roomsToDraw) {
                 assert room != null;
                 room.drawRoom(c);
@@ -126,7 +268,7 @@ public class RoomManager {
             }
 
         } else {
-            ArrayList<Room> roomsToDraw = new ArrayList<>(loadedRooms);
+            ArrayList<Room> roomsToDraw = new ArrayList<>(activeRooms.getRenderedRooms());
             for (Room room : roomsToDraw) {
                 assert room != null;
                 room.drawEntities(c);
@@ -169,119 +311,6 @@ public class RoomManager {
         return allRooms;
     }
 
-    /**
-     * Generates rooms and connects them to create a level layout.
-     *
-     * <p>
-     * This method initializes the room generation process, selects a starting room, and generates additional rooms until the maximum number is reached.
-     * </p>
-     *
-     * <p>
-     * <strong>Post-condition:</strong> A new level layout with connected rooms is generated.
-     * </p>
-     */
-    public void generateRooms() {
-        System.out.println("Attempting Generation");
-        allRooms = new ArrayList<>();
-        loadedRooms = new ArrayList<>();
-        toGenerateNeighbours = new ArrayDeque<>();
-
-        if (possibleBiomeRooms.isEmpty()) return;
-        mapBoundingbox = new HitboxGroup();
-        ArrayList<Room> roomsWithPlayerSpawn =  new ArrayList<>();
-        for (Room startingRoom: possibleBiomeRooms) {
-            if (startingRoom.getPlayerSpawns().isEmpty()) continue;
-            roomsWithPlayerSpawn.add(new Room(startingRoom));
-        }
-        Room startingRoom = new Room(roomsWithPlayerSpawn.get((int) (Math.random() * roomsWithPlayerSpawn.size())));
-//        Room startingRoom = new Room(possibleBiomeRooms.get(8)); // TODO add player spawn locations to prevent spawning inside of walls
-        Vector2F center = startingRoom.getCenterRelativeToRoom();
-        startingRoom.centerAroundPointInRoom(center);
-        addRoom(startingRoom);
-        loadRoom(startingRoom);
-
-        toGenerateNeighbours.add(startingRoom);
-        while (!toGenerateNeighbours.isEmpty() && allRooms.size() < MAXIMUM_NUMBER_OF_ROOMS) {
-//        while (!toGenerateNeighbours.isEmpty() && allRooms.size() < 30) {
-            generateAttached(toGenerateNeighbours.pollFirst());
-        }
-
-        for (Room r: allRooms) {
-            r.closeEntrances();
-        }
-    }
-
-    /**
-     * Generates rooms attached to the given room by connecting entrances.
-     *
-     * <p>
-     * This method generates and connects new rooms to the given room based on available entrances.
-     * </p>
-     *
-     * <p>
-     * <strong>Post-condition:</strong> New rooms are generated and connected to the given room.
-     * </p>
-     *
-     * @param r the room to which new rooms will be attached
-     */
-    public void generateAttached(Room r) {
-        ArrayList<Entrance> entrancesToGenerate = new ArrayList<>();
-        for (Entrance e: r.getEntrances()) {
-            if (e.isConnected()) continue;
-            entrancesToGenerate.add(e);
-        }
-
-        while (!entrancesToGenerate.isEmpty()) {
-            Entrance e = entrancesToGenerate.get((int)(Math.random() * entrancesToGenerate.size())); // TODO generate rooms based on entrances closest to the center
-            entrancesToGenerate.remove(e);
-            ArrayList<Room> compatibleRooms = new ArrayList<>();
-            ArrayList<Entrance> connectedEntrance = new ArrayList<>();
-            for (Room newRoom: possibleBiomeRooms) {
-                Room testRoom = new Room(newRoom);
-                if (testRoom.getRoomID() == r.getRoomID()) continue;
-                testRoom.setDrawLocation(r.getDrawLocation().getTranslated(r.getCenterLocation().getNegative()).getTranslated(e.getConnection()));
-                int numberOfEntrances = testRoom.getEntrances().size();
-                for (Entrance connectingEntrance: testRoom.getEntrances()) {
-                    if (!e.connects(connectingEntrance)) continue;
-                    testRoom.centerAroundPointInRoom(connectingEntrance.getLocation());
-
-                    boolean collides = false;
-                    for (Room collsionTest: allRooms) {
-                        if (setNumber == 1 || setNumber == 3) {
-                            if (testRoom.quickIntersect(collsionTest) && testRoom.intersects(collsionTest, true)) {
-                                collides = true;
-                                break;
-                            }
-                        } else if (setNumber == 2) {
-                            if (testRoom.quickIntersect(collsionTest, true)) {
-                                collides = true;
-                                break;
-                            }
-                        }
-                    }
-
-                    if (collides) continue;
-
-                    // Bias towards rooms with less entrances as the map gets larger
-                    if (Math.random() > (Math.pow(numberOfEntrances, 1 + 4.0 * allRooms.size() / minimumRooms)) * 0.01) {
-                        connectingEntrance.setConnected(true, e);
-                        compatibleRooms.add(testRoom);
-                        connectedEntrance.add(connectingEntrance);
-
-                        break;
-                    }
-                }
-            }
-
-            int randomRoom = (int)(Math.random() * compatibleRooms.size());
-            if (compatibleRooms.isEmpty()) continue;
-            e.setConnected(true, connectedEntrance.get(randomRoom));
-            addRoom(compatibleRooms.get(randomRoom));
-            loadRoom(compatibleRooms.get(randomRoom));
-            toGenerateNeighbours.add(compatibleRooms.get(randomRoom));
-        }
-    }
-
     /**
      * Toggles the state of chests in the currently loaded rooms.
      *
@@ -341,87 +370,20 @@ public class RoomManager {
     }
 
     /**
-     * Sets up all rooms for gameplay and spawns the player in the initial room.
-     *
-     * <p>
-     * This method initializes all rooms and places the player in the starting room.
-     * </p>
-     *
-     * <p>
-     * <strong>Post-condition:</strong> All rooms are set up and the player is placed in the starting room.
-     * </p>
-     *
-     * @param p the player to be spawned in the starting room
-     */
-    public void setupRooms(Player p) {
-        for (Room r: getAllRooms()) {
-            r.setupRoom();
-        }
-        allRooms.get(0).spawnPlayer(p);
-    }
-
-    /**
-     * Loads possible rooms from files based on the set number.
-     *
-     * <p>
-     * This method reads room data from files and adds them to the possible biome rooms list.
-     * </p>
-     *
-     * <p>
-     * <strong>Post-condition:</strong> The possible biome rooms list is populated with rooms from files.
-     * </p>
-     *
-     * @param setNumber the set number indicating the type of rooms to load
-     */
-    public void loadRoomsFromFile(int setNumber) {
-    	int numOfRooms = 0;
-    	if (setNumber == 1) numOfRooms = 23;
-    	if (setNumber == 2) numOfRooms = 17;
-    	if (setNumber == 3) numOfRooms = 20;
-    	for (int i = 1; i <= numOfRooms; i++) {
-//        for (File f: Objects.requireNonNull(new File("res/Rooms/Set" + setNumber).listFiles())) {
-            try {
-                possibleBiomeRooms.add(new Room("/Rooms/Set" + setNumber, setNumber, i));
-            } catch (IOException e) {
-                System.out.println("Unable to load file " + setNumber + ":" + i);
-                System.out.println(e);
-            }
-        }
-    }
-
-    /**
-     * Adds a room to the list of loaded rooms.
+     * Retrieves the number of room files in a set.
      *
      * <p>
-     * This method adds the given room to the loaded rooms list.
+     * <strong>Post-condition:</strong> The number of rooms in the set is returned, or 0 if the set does not exist.
      * </p>
      *
-     * <p>
-     * <strong>Post-condition:</strong> The given room is added to the loaded rooms list.
-     * </p>
-     *
-     * @param r the room to be added to the loaded rooms list
+     * @param setNumber the set number to look up
+     * @return the number of rooms in the set
      */
-    private void loadRoom(Room r) {
-        loadedRooms.add(r);
-    }
-
-    /**
-     * Adds a room to the list of all rooms and updates the map bounding box.
-     *
-     * <p>
-     * This method adds the given room to the all rooms list and updates the map bounding box with the room's hitbox.
-     * </p>
-     *
-     * <p>
-     * <strong>Post-condition:</strong> The given room is added to the all rooms list and the map bounding box is updated.
-     * </p>
-     *
-     * @param r the room to be added to the all rooms list
-     */
-    private void addRoom(Room r) {
-        mapBoundingbox.addHitbox(r.getHitbox().getBoundingBox());
-        allRooms.add(r);
+    public static int getNumberOfRooms(int setNumber) {
+        if (setNumber == 1) return 23;
+        if (setNumber == 2) return 17;
+        if (setNumber == 3) return 20;
+        return 0;
     }
 
     /**
@@ -459,29 +421,22 @@ public class RoomManager {
      * @param actionManager the manager handling player actions
      */
     public void updateValues(Player player, ActionManager actionManager) {
-        ArrayList<Room> nextLoaded = new ArrayList<>();
-        boolean allRoomsCleared = true;
-        for (Room r: allRooms) {
-            if (Math.abs(r.getAbsoluteCenter().getManhattanDistance(player.getCenterVector())) < renderDistance) {
-                nextLoaded.add(r);
-            }
-
-            if (!r.getCleared()) allRoomsCleared = false;
-        }
+        activeRooms.update(player);
+        Room currentRoom = activeRooms.getCurrentRoom();
 
-        loadedRooms.clear();
-        loadedRooms.addAll(nextLoaded);
-
-        for (Room r: loadedRooms) {
-            r.updateValues(player);
+        pathScheduler.setLevel(levelNavGraph, currentRoom.getNodeMap());
+        roomStage.run(loadedRooms, r -> {
+            r.updateValues(player, pathScheduler);
             r.updateEnemies(actionManager);
+        });
+        // Enemies only move between rooms once every room is updated, in room order
+        for (Room r: loadedRooms) {
             enemyManager.updateEnemyRoomLocations(loadedRooms, r);
-            if (!r.getCleared()) allRoomsCleared = false;
-            if (r.quickIntersect(player)) lastTouchedRoom = r;
         }
+        pathScheduler.process();
 
-        if (!exitPortalCreated && lastTouchedRoom != null && allRoomsCleared) {
-            lastTouchedRoom.addLevelPortal(player.getCenterVector());
+        if (!exitPortalCreated && activeRooms.isAllCleared()) {
+            currentRoom.addLevelPortal(player.getCenterVector());
             exitPortalCreated = true;
         }
 
@@ -491,7 +446,8 @@ public class RoomManager {
      * Resolves collisions between the player and rooms.
      *
      * <p>
-     * This method resolves collisions between the player and objects in the loaded rooms.
+     * This method resolves the collisions of the objects in the loaded rooms with the rooms, and then collisions
+     * between the player and the objects, found through a grid of every object built once per tick.
      * </p>
      *
      * <p>
@@ -501,10 +457,13 @@ public class RoomManager {
      * @param p the player whose collisions are being resolved
      */
     public void resolveCollisions(Player p) {
+        roomStage.run(loadedRooms, r -> r.resolveRoomCollisions(loadedRooms));
+
+        playerContacts.clear();
         for (Room r: loadedRooms) {
-            r.resolveRoomCollisions(loadedRooms);
-            r.resolvePlayerCollisions(p);
+            r.addPlayerContacts(playerContacts);
         }
+        p.resolveEntityCollisions(playerContacts);
     }
 
     /**
@@ -519,9 +478,8 @@ public class RoomManager {
      * </p>
      */
     public void updateData() {
-        for (Room r: loadedRooms) {
-            r.updateData();
-        }
+        roomStage.run(loadedRooms, Room::updateData);
+        activeRooms.updateCleared();
     }
 
     /**
@@ -572,6 +530,106 @@ public class RoomManager {
      * @param minimumRooms the minimum number of rooms to set
      */
     public void setMinimumRooms(int minimumRooms) {
-        this.minimumRooms = Math.min(minimumRooms, MAXIMUM_NUMBER_OF_ROOMS);
+        this.minimumRooms = Math.min(minimumRooms, LevelGenerator.MAXIMUM_NUMBER_OF_ROOMS);
+    }
+
+    /**
+     * Retrieves the scheduler that runs the path searches of every enemy, once per update.
+     *
+     * @return the path scheduler
+     */
+    public PathScheduler getPathScheduler() {
+        return pathScheduler;
+    }
+
+    /**
+     * Turns parallel room updates on or off.
+     *
+     * <p>
+     * When on, the enemies, projectiles and room collisions of every loaded room are updated at the same time,
+     * one fork-join task per room, against the other loaded rooms as they were at the start of the step.
+     * Damage to the player, path requests and enemies moving between rooms are applied afterwards, in room order,
+     * When off, the same steps run one room after another, with the same per-room random numbers and the same
+     * held back changes, so a seeded run plays out the same way whether parallel updates are on or off.
+     * Collisions with the player are always resolved in turn.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> Rooms are updated in parallel if parallel is true, and in turn otherwise.
+     * </p>
+     *
+     * @param parallel true to update rooms in parallel, false to update them in turn
+     */
+    public void setParallel(boolean parallel) {
+        if (parallel == roomStage.isParallel()) return;
+        roomStage.shutdown();
+        roomStage = new ParallelRoomStage(parallel ? Runtime.getRuntime().availableProcessors() : 0);
+    }
+
+    /**
+     * Checks if rooms are updated in parallel.
+     *
+     * @return true if rooms are updated in parallel, false otherwise
+     */
+    public boolean isParallel() {
+        return roomStage.isParallel();
+    }
+
+    /**
+     * Sets the number of attempts at a level layout that run at the same time.
+     *
+     * <p>
+     * The generated level only depends on the seed, not on the number of threads.
+     * </p>
+     *
+     * @param threads the number of threads, or 1 to generate on the calling thread
+     */
+    public void setGenerationThreads(int threads) {
+        generationThreads = Math.max(1, threads);
+    }
+
+    /**
+     * Sets how far from the player's room rooms are simulated and drawn, counted in entrances between rooms.
+     *
+     * <p>
+     * A room is added once it is within a radius and removed once it is further than the radius plus the hysteresis,
+     * so rooms are not loaded and unloaded again every time the player steps back through an entrance.
+     * </p>
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The radii are used for the current level and every level after it.
+     * </p>
+     *
+     * @param simulateRadius the radius within which rooms are updated
+     * @param renderRadius the radius within which rooms are drawn
+     * @param hysteresis the distance past a radius at which rooms are removed again
+     */
+    public void setActiveRadii(int simulateRadius, int renderRadius, int hysteresis) {
+        this.simulateRadius = simulateRadius;
+        this.renderRadius = renderRadius;
+        this.roomHysteresis = hysteresis;
+        if (activeRooms != null) activeRooms.setRadii(simulateRadius, renderRadius, hysteresis);
+    }
+
+    /**
+     * Retrieves the number of rooms of the current level that are populated.
+     *
+     * @return the number of populated rooms
+     */
+    public int getPopulatedRooms() {
+        int populated = 0;
+        for (Room r: allRooms) {
+            if (r.isPopulated()) populated++;
+        }
+        return populated;
+    }
+
+    /**
+     * Retrieves the number of rooms of the current level whose contents were not ready when they were first simulated.
+     *
+     * @return the number of rooms that were populated on the game thread
+     */
+    public int getWaitedRooms() {
+        return populator.getWaited();
     }
-}
\ No newline at end of file
+}
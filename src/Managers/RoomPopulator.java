@@ -0,0 +1,141 @@
+package Managers;
+
+import Structure.Room;
+import Universal.GameRandom;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Populates the rooms of a level when they are first simulated, instead of all at once when the level starts.
+ *
+ * <p>
+ * Until then a room only has its spawn points. Rooms the player is approaching have their items, chests and enemies
+ * made on a background thread, and they are added to the room on the game thread when it joins the simulated set.
+ * If they are not made by then, they are made on the game thread, or waited for if the worker already started.
+ * Every room draws its random numbers from its own generator, seeded from the level's seed and the room's index,
+ * so a room gets the same enemies and loot whichever thread made them and however far ahead.
+ * </p>
+ */
+class RoomPopulator implements ActiveRoomSet.Listener {
+    private static final long ROOM_SEED_STEP = 0x9E3779B97F4A7C15L;
+    private static ExecutorService worker; // Makes the contents of approached rooms, shared by every level
+
+    private final IdentityHashMap<Room, Integer> ids = new IdentityHashMap<>();
+    private final IdentityHashMap<Room, FutureTask<Room.Population>> tasks = new IdentityHashMap<>();
+    private final long seed;
+    private int prefetched = 0, waited = 0; // Rooms that were ready when first simulated, and ones that were not
+
+    /**
+     * Creates a populator for the rooms of a level, none of which are populated.
+     *
+     * @param rooms the rooms of the level
+     * @param seed  the seed the rooms' generators are seeded from
+     */
+    RoomPopulator(ArrayList<Room> rooms, long seed) {
+        for (int i = 0; i < rooms.size(); i++) {
+            ids.put(rooms.get(i), i);
+        }
+        this.seed = seed;
+    }
+
+    /**
+     * Starts making the contents of a room the player is approaching in the background.
+     *
+     * @param room the approached room
+     */
+    @Override
+    public void roomApproached(Room room) {
+        if (room.isPopulated() || tasks.containsKey(room)) return;
+        FutureTask<Room.Population> task = createTask(room);
+        tasks.put(room, task);
+        getWorker().execute(task);
+    }
+
+    /**
+     * Populates a room that joined the simulated set, if it is not populated yet.
+     *
+     * @param room the simulated room
+     */
+    @Override
+    public void roomEntered(Room room) {
+        if (room.isPopulated()) return;
+        FutureTask<Room.Population> task = tasks.remove(room);
+        if (task == null) task = createTask(room);
+        if (task.isDone()) prefetched++;
+        else waited++;
+        task.run(); // Makes the contents here if the worker has not started on them, and does nothing otherwise
+        room.populate(waitFor(task));
+    }
+
+    @Override
+    public void roomLeft(Room room) {
+        // Populated rooms keep their contents
+    }
+
+    /**
+     * Drops the contents that are still being made, once the level is no longer in use.
+     */
+    void cancel() {
+        for (FutureTask<Room.Population> task : tasks.values()) {
+            task.cancel(false);
+        }
+        tasks.clear();
+    }
+
+    int getPrefetched() {
+        return prefetched;
+    }
+
+    int getWaited() {
+        return waited;
+    }
+
+    /**
+     * Creates the task that makes a room's contents with the room's own random numbers.
+     */
+    private FutureTask<Room.Population> createTask(Room room) {
+        Random random = new Random(seed + ids.get(room) * ROOM_SEED_STEP);
+        return new FutureTask<>(() -> {
+            GameRandom.setThreadRandom(random);
+            try {
+                return room.createPopulation();
+            } finally {
+                GameRandom.setThreadRandom(null);
+            }
+        });
+    }
+
+    /**
+     * Retrieves the thread that populates rooms, starting it on the first request.
+     */
+    private static synchronized ExecutorService getWorker() {
+        if (worker == null) {
+            worker = Executors.newSingleThreadExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "RoomPopulator");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return worker;
+    }
+
+    /**
+     * Waits for a room's contents to be made, passing on any error it failed with.
+     */
+    private static Room.Population waitFor(FutureTask<Room.Population> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while populating a room", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Room population failed", e.getCause());
+        }
+    }
+}
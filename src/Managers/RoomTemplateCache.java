@@ -0,0 +1,87 @@
+package Managers;
+
+import Structure.Room;
+import Structure.RoomPack;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Caches the parsed room templates of each room set so they are only loaded once per run.
+ *
+ * <p>
+ * Templates are prototypes: they are never placed in a level or modified. Level generation copies a template with
+ * {@link Room#Room(Room)}, which shares the template's node map, KD-tree and spawn points and only copies the state
+ * that changes per instance, such as walls, entrances, enemies and chests.
+ * </p>
+ */
+public class RoomTemplateCache {
+    private static final HashMap<Integer, List<Room>> templates = new HashMap<>();
+
+    /**
+     * Retrieves the room templates of a set, loading them on the first request.
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The set's templates are cached and returned as an unmodifiable list.
+     * </p>
+     *
+     * @param setNumber the set number indicating the type of rooms to load
+     * @return the room templates of the set
+     */
+    public static synchronized List<Room> getTemplates(int setNumber) {
+        List<Room> setTemplates = templates.get(setNumber);
+        if (setTemplates == null) {
+            setTemplates = Collections.unmodifiableList(loadRoomsFromFile(setNumber));
+            templates.put(setNumber, setTemplates);
+        }
+        return setTemplates;
+    }
+
+    /**
+     * Loads the templates of every set so that no level generation has to wait for file loading.
+     * Each template loads its background through the AssetCache as it is created, so the backgrounds are decoded too.
+     *
+     * <p>
+     * <strong>Post-condition:</strong> The templates of every set and their backgrounds are cached.
+     * </p>
+     */
+    public static void warm() {
+        for (int setNumber = 1; setNumber <= RoomManager.NUMBER_OF_SETS; setNumber++) {
+            getTemplates(setNumber);
+        }
+    }
+
+    /**
+     * Loads the rooms of a set from files.
+     *
+     * <p>
+     * This method loads the set's precompiled room pack if one exists, and otherwise reads the room data from the text files.
+     * </p>
+     *
+     * @param setNumber the set number indicating the type of rooms to load
+     * @return the rooms of the set
+     */
+    private static ArrayList<Room> loadRoomsFromFile(int setNumber) {
+        try {
+            ArrayList<Room> packedRooms = RoomPack.load(setNumber, RoomManager.getNumberOfRooms(setNumber));
+            if (packedRooms != null) return packedRooms;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Unable to load room pack for set " + setNumber);
+            System.out.println(e);
+        }
+
+        ArrayList<Room> rooms = new ArrayList<>();
+        for (int i = 1; i <= RoomManager.getNumberOfRooms(setNumber); i++) {
+            try {
+                rooms.add(new Room("/Rooms/Set" + setNumber, setNumber, i));
+            } catch (IOException e) {
+                System.out.println("Unable to load file " + setNumber + ":" + i);
+                System.out.println(e);
+            }
+        }
+        return rooms;
+    }
+}
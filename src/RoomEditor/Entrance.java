@@ -102,6 +102,18 @@ public class Entrance {
         return false;
     }
 
+    public int getSide() {
+        return typeToNumber(type);
+    }
+
+    public int getConnectingSide() { // The side of the entrances this one connects to, matching connects
+        if (type == EntranceType.LEFT) return typeToNumber(EntranceType.RIGHT);
+        if (type == EntranceType.RIGHT) return typeToNumber(EntranceType.LEFT);
+        if (type == EntranceType.UP) return typeToNumber(EntranceType.DOWN);
+        if (type == EntranceType.DOWN) return typeToNumber(EntranceType.UP);
+        return -1;
+    }
+
     public void translateInPlace(Vector2F offset) {
         absoluteLocation.translateInPlace(offset);
         hitbox.translateInPlace(offset);
@@ -1,11 +1,10 @@
 package RoomEditor;
 
+import Universal.AssetCache;
 import Entities.Entity;
 import Structure.Vector2F;
 
-import javax.imageio.ImageIO;
 import java.io.IOException;
-import java.util.Objects;
 
 public class LevelPortal extends Entity {
     private boolean collidingWithPlayer;
@@ -16,7 +15,7 @@ public class LevelPortal extends Entity {
 
         try {
             // Load portal image from resources
-            addFrame(ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/Items/portal.png"))));
+            addFrame(AssetCache.getImage("/Items/portal.png"));
         } catch (IOException e) {
             System.out.println("Level Portal image not found: " + e);
         }
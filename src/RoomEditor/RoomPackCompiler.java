@@ -0,0 +1,29 @@
+package RoomEditor;
+
+import Managers.RoomManager;
+import Structure.Room;
+import Structure.RoomPack;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+
+/**
+ * Compiles the text room files of each set into a binary room pack that the game loads instead.
+ * Run this from the project root after editing rooms with the {@link RoomEditor}, otherwise the game finds that the
+ * existing pack no longer matches the text files and goes back to parsing them on every start.
+ */
+public class RoomPackCompiler {
+    public static void main(String[] args) throws IOException {
+        for (int setNumber = 1; setNumber <= RoomManager.NUMBER_OF_SETS; setNumber++) {
+            ArrayList<Room> rooms = new ArrayList<>();
+            for (int i = 1; i <= RoomManager.getNumberOfRooms(setNumber); i++) {
+                rooms.add(new Room("/Rooms/Set" + setNumber, setNumber, i));
+            }
+
+            File pack = new File("res" + RoomPack.getResourcePath(setNumber));
+            RoomPack.write(setNumber, rooms, pack);
+            System.out.println("Compiled " + rooms.size() + " rooms into " + pack + " (" + pack.length() + " bytes)");
+        }
+    }
+}
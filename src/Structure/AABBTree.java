@@ -0,0 +1,244 @@
+package Structure;
+
+import java.util.ArrayList;
+
+/**
+ * Represents a bounding volume hierarchy over a fixed list of hitboxes.
+ * Every node stores the axis-aligned box enclosing the hitboxes below it, so a query only runs the
+ * full shape intersection check on hitboxes whose boxes touch the query, instead of on every hitbox.
+ * The tree does not change after it is built apart from being translated along with its hitboxes,
+ * so it can be queried from several threads at once.
+ */
+public class AABBTree {
+    private static final int LEAF_SIZE = 4; // Maximum number of hitboxes stored in a leaf
+
+    private final ArrayList<Hitbox> hitboxes; // The hitboxes the tree was built over
+    private final int[] order; // Hitbox indices, grouped so that every leaf owns a continuous range
+    private int[] left, top, right, bottom; // Bounds of every node
+    private int[] firstChild; // Index of a node's first child, the second child follows it, or -1 for a leaf
+    private int[] start, count; // Range of a leaf in the order array
+    private int nodeCount = 0;
+
+    /**
+     * Constructs an AABBTree over a list of hitboxes.
+     * The list must not be changed while the tree is in use.
+     *
+     * @param hitboxes The hitboxes to build the tree over
+     */
+    public AABBTree(ArrayList<Hitbox> hitboxes) {
+        this.hitboxes = hitboxes;
+        int n = hitboxes.size();
+        order = new int[n];
+        int[] centerX = new int[n], centerY = new int[n];
+        for (int i = 0; i < n; i++) {
+            Hitbox h = hitboxes.get(i);
+            order[i] = i;
+            centerX[i] = h.getLeft() + h.getWidth() / 2;
+            centerY[i] = h.getTop() + h.getHeight() / 2;
+        }
+
+        int capacity = 2 * n + 1;
+        left = new int[capacity];
+        top = new int[capacity];
+        right = new int[capacity];
+        bottom = new int[capacity];
+        firstChild = new int[capacity];
+        start = new int[capacity];
+        count = new int[capacity];
+
+        build(allocateNode(), 0, n, centerX, centerY);
+    }
+
+    /**
+     * Builds the subtree of a node over a range of the order array.
+     * The range is split in half along the longer side of the node, sorted by hitbox center.
+     *
+     * @param node    The node to build
+     * @param from    The first position of the range, inclusive
+     * @param to      The last position of the range, exclusive
+     * @param centerX The x-coordinate of the center of every hitbox
+     * @param centerY The y-coordinate of the center of every hitbox
+     */
+    private void build(int node, int from, int to, int[] centerX, int[] centerY) {
+        int l = Integer.MAX_VALUE, t = Integer.MAX_VALUE, r = Integer.MIN_VALUE, b = Integer.MIN_VALUE;
+        for (int i = from; i < to; i++) {
+            Hitbox h = hitboxes.get(order[i]);
+            l = Math.min(l, h.getLeft());
+            t = Math.min(t, h.getTop());
+            r = Math.max(r, h.getRight());
+            b = Math.max(b, h.getBottom());
+        }
+        left[node] = l;
+        top[node] = t;
+        right[node] = r;
+        bottom[node] = b;
+        start[node] = from;
+        count[node] = to - from;
+        firstChild[node] = -1;
+        if (to - from <= LEAF_SIZE) return;
+
+        int[] key = r - l >= b - t ? centerX : centerY;
+        sortRange(from, to, key);
+
+        int mid = (from + to) / 2;
+        int child = allocateNode();
+        allocateNode();
+        firstChild[node] = child;
+        build(child, from, mid, centerX, centerY);
+        build(child + 1, mid, to, centerX, centerY);
+    }
+
+    /**
+     * Sorts a range of the order array by a key of each hitbox using insertion sort, as ranges are small in practice.
+     *
+     * @param from The first position of the range, inclusive
+     * @param to   The last position of the range, exclusive
+     * @param key  The value to sort each hitbox index by
+     */
+    private void sortRange(int from, int to, int[] key) {
+        for (int i = from + 1; i < to; i++) {
+            int value = order[i];
+            int j = i - 1;
+            while (j >= from && key[order[j]] > key[value]) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = value;
+        }
+    }
+
+    /**
+     * Reserves the next node in the node arrays.
+     *
+     * @return The index of the new node
+     */
+    private int allocateNode() {
+        return nodeCount++;
+    }
+
+    /**
+     * Translates the bounds of every node by an offset, matching a translation of the hitboxes.
+     *
+     * @param offset The translation offset
+     */
+    public void translateInPlace(Vector2F offset) {
+        for (int i = 0; i < nodeCount; i++) {
+            left[i] += offset.getX();
+            right[i] += offset.getX();
+            top[i] += offset.getY();
+            bottom[i] += offset.getY();
+        }
+    }
+
+    /**
+     * Checks if any hitbox in the tree intersects a specified hitbox.
+     *
+     * @param other       The hitbox to check against
+     * @param useEquality Whether the equality version of the intersection check should be used
+     * @param equality    The equality flag passed to the intersection check
+     * @return true if there is an intersection, otherwise false
+     */
+    public boolean intersects(Hitbox other, boolean useEquality, boolean equality) {
+        if (nodeCount == 0 || hitboxes.isEmpty()) return false;
+        return intersects(0, other, useEquality, equality);
+    }
+
+    /**
+     * Checks if any hitbox in the tree intersects a specified hitbox moved by an offset, without moving it.
+     * This lets a tree built in one space be queried with a hitbox from another.
+     *
+     * @param other    The hitbox to check against
+     * @param dx       The horizontal offset of the hitbox
+     * @param dy       The vertical offset of the hitbox
+     * @param equality The equality flag passed to the intersection check
+     * @return true if there is an intersection, otherwise false
+     */
+    public boolean intersects(Hitbox other, int dx, int dy, boolean equality) {
+        if (nodeCount == 0 || hitboxes.isEmpty()) return false;
+        return intersects(0, other, dx, dy, equality);
+    }
+
+    /**
+     * Checks if any hitbox below a node intersects a specified hitbox moved by an offset.
+     *
+     * @param node     The node to search from
+     * @param other    The hitbox to check against
+     * @param dx       The horizontal offset of the hitbox
+     * @param dy       The vertical offset of the hitbox
+     * @param equality The equality flag passed to the intersection check
+     * @return true if there is an intersection, otherwise false
+     */
+    private boolean intersects(int node, Hitbox other, int dx, int dy, boolean equality) {
+        if (other.getLeft() + dx > right[node] || other.getRight() + dx < left[node] || other.getTop() + dy > bottom[node] || other.getBottom() + dy < top[node]) return false;
+
+        if (firstChild[node] == -1) {
+            for (int i = start[node]; i < start[node] + count[node]; i++) {
+                if (hitboxes.get(order[i]).intersects(other, dx, dy, equality)) return true;
+            }
+            return false;
+        }
+        return intersects(firstChild[node], other, dx, dy, equality) || intersects(firstChild[node] + 1, other, dx, dy, equality);
+    }
+
+    /**
+     * Checks if any hitbox below a node intersects a specified hitbox.
+     * The search recurses instead of keeping a stack array, so that queries do not allocate.
+     *
+     * @param node        The node to search from
+     * @param other       The hitbox to check against
+     * @param useEquality Whether the equality version of the intersection check should be used
+     * @param equality    The equality flag passed to the intersection check
+     * @return true if there is an intersection, otherwise false
+     */
+    private boolean intersects(int node, Hitbox other, boolean useEquality, boolean equality) {
+        if (other.getLeft() > right[node] || other.getRight() < left[node] || other.getTop() > bottom[node] || other.getBottom() < top[node]) return false;
+
+        if (firstChild[node] == -1) {
+            for (int i = start[node]; i < start[node] + count[node]; i++) {
+                Hitbox h = hitboxes.get(order[i]);
+                if (useEquality ? h.intersects(other, equality) : h.intersects(other)) return true;
+            }
+            return false;
+        }
+        return intersects(firstChild[node], other, useEquality, equality) || intersects(firstChild[node] + 1, other, useEquality, equality);
+    }
+
+    /**
+     * Adds every hitbox in the tree whose box overlaps a rectangle, edges included, to a list.
+     *
+     * @param l      The left edge of the rectangle
+     * @param t      The top edge of the rectangle
+     * @param r      The right edge of the rectangle
+     * @param b      The bottom edge of the rectangle
+     * @param result The list to add the hitboxes to
+     */
+    public void collect(int l, int t, int r, int b, ArrayList<Hitbox> result) {
+        if (nodeCount == 0 || hitboxes.isEmpty()) return;
+        collect(0, l, t, r, b, result);
+    }
+
+    /**
+     * Adds every hitbox below a node whose box overlaps a rectangle, edges included, to a list.
+     *
+     * @param node   The node to search from
+     * @param l      The left edge of the rectangle
+     * @param t      The top edge of the rectangle
+     * @param r      The right edge of the rectangle
+     * @param b      The bottom edge of the rectangle
+     * @param result The list to add the hitboxes to
+     */
+    private void collect(int node, int l, int t, int r, int b, ArrayList<Hitbox> result) {
+        if (l > right[node] || r < left[node] || t > bottom[node] || b < top[node]) return;
+
+        if (firstChild[node] == -1) {
+            for (int i = start[node]; i < start[node] + count[node]; i++) {
+                Hitbox h = hitboxes.get(order[i]);
+                if (l > h.getRight() || r < h.getLeft() || t > h.getBottom() || b < h.getTop()) continue;
+                result.add(h);
+            }
+            return;
+        }
+        collect(firstChild[node], l, t, r, b, result);
+        collect(firstChild[node] + 1, l, t, r, b, result);
+    }
+}
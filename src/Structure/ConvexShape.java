@@ -12,6 +12,8 @@ public class ConvexShape {
     private Vector2F topLeft = new Vector2F(); // Top-left corner of the bounding box
     private Vector2F bottomRight = new Vector2F(); // Bottom-right corner of the bounding box
     private int pointCount = 0; // Number of points in the convex shape
+    private int[] axisX, axisY; // Normalized edge normals, which do not change when the shape is translated
+    private int axisCount = 0;
 
     /**
      * Constructs a convex shape from a list of points using Jarvis March algorithm.
@@ -28,6 +30,7 @@ public class ConvexShape {
             bottomRight.setY(Math.max(bottomRight.getY(), c.getY())); // Update bottom-right Y coordinate
             pointCount++; // Increment point count
         }
+        updateAxes();
     }
 
     /**
@@ -116,22 +119,91 @@ public class ConvexShape {
         return max;
     }
 
+    /**
+     * Replaces the shape with a rectangle swept along a movement, reusing the existing points.
+     * The result is the same hull the constructor builds from the rectangle's corners before and after the movement.
+     * @param left The left edge of the rectangle
+     * @param top The top edge of the rectangle
+     * @param right The right edge of the rectangle
+     * @param bottom The bottom edge of the rectangle
+     * @param dx The horizontal movement
+     * @param dy The vertical movement
+     */
+    public void setToSweptRectangle(int left, int top, int right, int bottom, int dx, int dy) {
+        int l2 = left + dx, t2 = top + dy, r2 = right + dx, b2 = bottom + dy;
+        int l = Math.min(left, l2), t = Math.min(top, t2), r = Math.max(right, r2), b = Math.max(bottom, b2);
+        pointCount = 0;
+        if (dx == 0 || dy == 0) {
+            setPoint(l, t);
+            setPoint(r, t);
+            setPoint(r, b);
+            setPoint(l, b);
+        } else if ((dx > 0) == (dy > 0)) { // Moving towards the top-left or bottom-right
+            setPoint(l, t);
+            setPoint(dx > 0 ? right : r2, t);
+            setPoint(r, dx > 0 ? t2 : top);
+            setPoint(r, b);
+            setPoint(dx > 0 ? l2 : left, b);
+            setPoint(l, dx > 0 ? bottom : b2);
+        } else { // Moving towards the top-right or bottom-left, so one rectangle is above and the other below
+            int upperLeft = dx > 0 ? l2 : left, upperRight = dx > 0 ? r2 : right, upperBottom = dx > 0 ? b2 : bottom;
+            int lowerLeft = dx > 0 ? left : l2, lowerRight = dx > 0 ? right : r2, lowerTop = dx > 0 ? top : t2;
+            setPoint(upperLeft, t);
+            setPoint(upperRight, t);
+            setPoint(upperRight, upperBottom);
+            setPoint(lowerRight, b);
+            setPoint(lowerLeft, b);
+            setPoint(lowerLeft, lowerTop);
+        }
+        while (points.size() > pointCount) points.remove(points.size() - 1);
+
+        topLeft.set(l, t);
+        bottomRight.set(r, b);
+        updateAxes();
+    }
+
+    /**
+     * Sets the next point of the shape, adding a new point only if the shape has fewer points than needed.
+     * @param x The x-coordinate of the point
+     * @param y The y-coordinate of the point
+     */
+    private void setPoint(int x, int y) {
+        if (pointCount < points.size()) {
+            points.get(pointCount).set(x, y);
+        } else {
+            points.add(new Vector2F(x, y));
+        }
+        pointCount++;
+    }
+
+    /**
+     * Recalculates the normalized edge normals used as separating axes.
+     */
+    private void updateAxes() {
+        int n = points.size();
+        if (axisX == null || axisX.length < n) {
+            axisX = new int[Math.max(n, 6)];
+            axisY = new int[Math.max(n, 6)];
+        }
+        for (int i = 0; i < n; i++) {
+            Vector2F a = points.get(i), b = points.get((i + 1) % n);
+            int ex = a.getX() - b.getX(), ey = a.getY() - b.getY();
+            // Same result as new Vector2F(ex, ey).normal().normalize()
+            int d = (int) Math.sqrt((long) ey * ey + (long) ex * ex);
+            if (d == 0) d = 1;
+            axisX[i] = -ey * 1000 / d;
+            axisY[i] = ex * 1000 / d;
+        }
+        axisCount = n;
+    }
+
     /**
      * Checks if this convex shape intersects with another convex shape.
      * @param other The other convex shape to check intersection with
      * @return true if intersects, false otherwise
      */
     public boolean intersects(ConvexShape other) {
-        ArrayList<Vector2F> axis = new ArrayList<>();
-        axis.addAll(getAxis());
-        axis.addAll(other.getAxis());
-
-        for (Vector2F v: axis) {
-            Projection pA = getProjection(v);
-            Projection pB = other.getProjection(v);
-            if (!pA.overlap(pB)) return false;
-        }
-        return true;
+        return intersects(other, false);
     }
 
     /**
@@ -141,36 +213,54 @@ public class ConvexShape {
      * @return true if intersects, false otherwise
      */
     public boolean intersects(ConvexShape other, boolean equality) {
-        ArrayList<Vector2F> axis = new ArrayList<>();
-        axis.addAll(getAxis());
-        axis.addAll(other.getAxis());
-
-        for (Vector2F v: axis) {
-            Projection pA = getProjection(v);
-            Projection pB = other.getProjection(v);
-            if (equality) {
-                if (!pA.equalityOverlap(pB)) return false;
-            } else {
-                if (!pA.overlap(pB)) return false;
-            }
+        return intersects(other, 0, 0, equality);
+    }
+
+    /**
+     * Checks if this convex shape intersects with another convex shape moved by an offset, without moving it.
+     * @param other The other convex shape to check intersection with
+     * @param dx The horizontal offset of the other shape
+     * @param dy The vertical offset of the other shape
+     * @param equality Whether to check for exact equality in overlap
+     * @return true if intersects, false otherwise
+     */
+    public boolean intersects(ConvexShape other, int dx, int dy, boolean equality) {
+        for (int i = 0; i < axisCount; i++) {
+            if (!overlapsOn(other, dx, dy, axisX[i], axisY[i], equality)) return false;
+        }
+        for (int i = 0; i < other.axisCount; i++) {
+            if (!overlapsOn(other, dx, dy, other.axisX[i], other.axisY[i], equality)) return false;
         }
         return true;
     }
 
     /**
-     * Projects this convex shape onto a given axis.
-     * @param axis The axis to project onto
-     * @return The projection of this shape onto the axis
+     * Checks if the projections of this shape and another shape onto an axis overlap, with the same rules as Projection.
+     * @param other The other convex shape
+     * @param dx The horizontal offset of the other shape
+     * @param dy The vertical offset of the other shape
+     * @param ax The x-component of the axis
+     * @param ay The y-component of the axis
+     * @param equality Whether touching projections count as separated
+     * @return true if the projections overlap, false otherwise
      */
-    private Projection getProjection(Vector2F axis) {
-        long min = axis.dotProduct(points.get(0));
-        long max = min;
-        for (int i =  1; i < points.size(); i++) {
-            long p = axis.dotProduct(points.get(i));
-            if (p > max) max = p;
-            else if (p < min) min = p;
+    private boolean overlapsOn(ConvexShape other, int dx, int dy, int ax, int ay, boolean equality) {
+        long minA = Long.MAX_VALUE, maxA = Long.MIN_VALUE, minB = Long.MAX_VALUE, maxB = Long.MIN_VALUE;
+        for (int i = 0; i < points.size(); i++) {
+            Vector2F p = points.get(i);
+            long d = (long) ax * p.getX() + (long) ay * p.getY();
+            minA = Math.min(minA, d);
+            maxA = Math.max(maxA, d);
         }
-        return new Projection(min, max);
+        long shift = (long) ax * dx + (long) ay * dy;
+        for (int i = 0; i < other.points.size(); i++) {
+            Vector2F p = other.points.get(i);
+            long d = (long) ax * p.getX() + (long) ay * p.getY() + shift;
+            minB = Math.min(minB, d);
+            maxB = Math.max(maxB, d);
+        }
+        if (equality) return !(maxB <= minA || minB >= maxA);
+        return !(maxB < minA || minB > maxA);
     }
 
     /**
@@ -179,9 +269,8 @@ public class ConvexShape {
      */
     public ArrayList<Vector2F> getAxis() {
         ArrayList<Vector2F> axis = new ArrayList<>();
-        for (int i = 0; i < points.size(); i++) {
-            Vector2F c = new Vector2F(points.get(i).getX() - points.get((i + 1) % points.size()).getX(), points.get(i).getY() - points.get((i + 1) % points.size()).getY());
-            axis.add(c.normal().normalize());
+        for (int i = 0; i < axisCount; i++) {
+            axis.add(new Vector2F(axisX[i], axisY[i]));
         }
         return axis;
     }
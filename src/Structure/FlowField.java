@@ -0,0 +1,126 @@
+package Structure;
+
+/**
+ * Represents the shortest route from every node of a node map to a single target node.
+ * The field is rebuilt with one search whenever the target node changes, after which any number of enemies
+ * can look up their next node towards the target without searching themselves.
+ * Nodes and targets are in the node map's own coordinates, without its translate offset.
+ */
+public class FlowField {
+    private final NavGraph graph;
+    private final NodeHeap queue = new NodeHeap();
+    private final long[] distance; // Length of the shortest route from each node to the target
+    private final int[] next; // Next node on that route, or -1 if the target cannot be reached
+
+    private Vector2F lastTargetPoint; // Point the target node was last looked up for
+    private int target = -1;
+    private int buildCount = 0;
+
+    /**
+     * Constructs a FlowField over a compiled node map. No target is set.
+     *
+     * @param graph The graph to build the field over
+     */
+    public FlowField(NavGraph graph) {
+        this.graph = graph;
+        distance = new long[graph.getNodeCount()];
+        next = new int[graph.getNodeCount()];
+    }
+
+    /**
+     * Points the field at the node nearest to a point, rebuilding it only if that node changed.
+     *
+     * @param map   The node map the field was built over, used to find the nearest node
+     * @param point The point to route towards
+     */
+    public void setTargetPoint(NodeMap map, Vector2F point) {
+        if (point.equals(lastTargetPoint)) return;
+        lastTargetPoint = new Vector2F(point);
+        setTarget(map.getNearestNode(point));
+    }
+
+    /**
+     * Points the field at a node, rebuilding it only if the node changed.
+     *
+     * @param node The node to route towards
+     */
+    public void setTarget(Vector2F node) {
+        int newTarget = graph.getId(node);
+        if (newTarget == target && buildCount > 0) return;
+        target = newTarget;
+        build();
+    }
+
+    /**
+     * Finds the shortest route from every node to the target with a single search over the reversed edges.
+     */
+    private void build() {
+        buildCount++;
+        for (int i = 0; i < next.length; i++) {
+            distance[i] = Long.MAX_VALUE;
+            next[i] = -1;
+        }
+        if (target == -1) return;
+
+        queue.clear();
+        distance[target] = 0;
+        next[target] = target;
+        queue.add(target, 0);
+        while (!queue.isEmpty()) {
+            long nodeDistance = queue.peekCost();
+            int node = queue.remove();
+            if (nodeDistance > distance[node]) continue;
+
+            for (int e = graph.getReverseEdgeStart(node); e < graph.getReverseEdgeStart(node + 1); e++) {
+                int from = graph.getReverseEdgeSource(e);
+                long newDistance = nodeDistance + graph.getReverseEdgeCost(e);
+                if (newDistance < distance[from]) {
+                    distance[from] = newDistance;
+                    next[from] = node;
+                    queue.add(from, newDistance);
+                }
+            }
+        }
+    }
+
+    /**
+     * Retrieves the next node on the shortest route from a node to the target.
+     *
+     * @param node The node to start from
+     * @return The next node, the node itself if it is the target, or null if the target cannot be reached
+     */
+    public Vector2F getNextNode(Vector2F node) {
+        int id = graph.getId(node);
+        if (id == -1 || next[id] == -1) return null;
+        return graph.getNode(next[id]);
+    }
+
+    /**
+     * Retrieves the length of the shortest route from a node to the target.
+     *
+     * @param node The node to start from
+     * @return The length of the route, or Long.MAX_VALUE if the target cannot be reached
+     */
+    public long getDistance(Vector2F node) {
+        int id = graph.getId(node);
+        return id == -1 ? Long.MAX_VALUE : distance[id];
+    }
+
+    /**
+     * Retrieves the current target node.
+     *
+     * @return The target node, or null if no target is set
+     */
+    public Vector2F getTarget() {
+        return target == -1 ? null : graph.getNode(target);
+    }
+
+    /**
+     * Retrieves the number of times the field has been rebuilt.
+     *
+     * @return The number of searches run
+     */
+    public int getBuildCount() {
+        return buildCount;
+    }
+}
@@ -177,6 +177,30 @@ public class Hitbox {
         getBottomRight().translateInPlace(v);
     }
 
+    /**
+     * Replaces this hitbox with a rectangle, reusing its existing points.
+     *
+     * @param left   The left edge of the rectangle.
+     * @param top    The top edge of the rectangle.
+     * @param right  The right edge of the rectangle.
+     * @param bottom The bottom edge of the rectangle.
+     */
+    public void setBounds(int left, int top, int right, int bottom) {
+        shape.setToSweptRectangle(left, top, right, bottom, 0, 0);
+    }
+
+    /**
+     * Replaces this hitbox with the area a rectangular hitbox covers while moving by an offset.
+     * The existing points are reused, so this does not allocate once the hitbox has held a six sided shape.
+     *
+     * @param box The rectangular hitbox that moves.
+     * @param dx  The horizontal movement.
+     * @param dy  The vertical movement.
+     */
+    public void setToSweep(Hitbox box, int dx, int dy) {
+        shape.setToSweptRectangle(box.getLeft(), box.getTop(), box.getRight(), box.getBottom(), dx, dy);
+    }
+
     /**
      * Gets the top-left corner of the hitbox.
      *
@@ -267,6 +291,16 @@ public class Hitbox {
         return new Vector2F(getLeft() + getWidth() / 2, getTop() + getHeight() / 2);
     }
 
+    /**
+     * Writes the center of the hitbox into a vector, without allocating.
+     *
+     * @param dst The vector to write the center into.
+     * @return The destination vector.
+     */
+    public Vector2F getCenter(Vector2F dst) {
+        return dst.set(getLeft() + getWidth() / 2, getTop() + getHeight() / 2);
+    }
+
     /**
      * Checks if this hitbox intersects with another hitbox.
      *
@@ -290,6 +324,20 @@ public class Hitbox {
         return shape.intersects(hitbox.shape, equality);
     }
 
+    /**
+     * Checks if this hitbox intersects with another hitbox moved by an offset, without moving it.
+     *
+     * @param hitbox   The other hitbox to check against.
+     * @param dx       The horizontal offset of the other hitbox.
+     * @param dy       The vertical offset of the other hitbox.
+     * @param equality Whether to check for exact equality.
+     * @return true if this hitbox intersects with the moved hitbox, false otherwise.
+     */
+    public boolean intersects(Hitbox hitbox, int dx, int dy, boolean equality) {
+        if (!enabled || !hitbox.enabled) return false;
+        return shape.intersects(hitbox.shape, dx, dy, equality);
+    }
+
     /**
      * Checks if this hitbox intersects with a group of hitboxes.
      *
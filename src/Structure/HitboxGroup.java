@@ -7,68 +7,142 @@ import java.util.ArrayList;
 
 /**
  * Represents a group of hitboxes that can be managed collectively.
+ *
+ * <p>
+ * The hitboxes are kept in the group's own space, and the group has one offset that places them in the world,
+ * the same way a NodeMap keeps its nodes. Moving the group only changes the offset and the bounding box, and
+ * checks against the group move the other hitbox into the group's space instead of moving the group.
+ * A copy shares the hitboxes of the group it was copied from, along with the tree over them, until either of them
+ * adds a hitbox.
+ * </p>
  */
 public class HitboxGroup {
-    private ArrayList<Hitbox> hitboxes; // List of hitboxes in the group
-    private Hitbox boundingBox; // Bounding box that encapsulates all hitboxes in the group
+    private Geometry geometry; // The hitboxes in the group's own space, possibly shared with copies
+    private int offsetX, offsetY; // Moves the hitboxes from the group's space into the world
+    private Hitbox boundingBox; // Bounding box that encapsulates all hitboxes in the group, in the world
+    private Color colour; // Colour the hitboxes are drawn in, or null to use their own
+
+    private static final int TREE_THRESHOLD = 8; // Groups with at least this many hitboxes are searched through a tree
+
+    /**
+     * The hitboxes of a group in the group's own space, with the tree over them and the rectangle enclosing them.
+     * Once shared with a copy it is never changed again, and a group that needs to change it makes its own.
+     */
+    private static class Geometry {
+        private final ArrayList<Hitbox> hitboxes;
+        private volatile AABBTree tree; // Built on the first intersection check of a large group, cleared when a hitbox is added
+        private volatile boolean shared = false;
+        private int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE, right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+
+        private Geometry(ArrayList<Hitbox> hitboxes) {
+            this.hitboxes = hitboxes;
+            for (Hitbox h : hitboxes) {
+                include(h);
+            }
+        }
+
+        private void include(Hitbox h) {
+            left = Math.min(left, h.getLeft());
+            top = Math.min(top, h.getTop());
+            right = Math.max(right, h.getRight());
+            bottom = Math.max(bottom, h.getBottom());
+        }
+    }
 
     /**
      * Constructs an empty HitboxGroup with a default bounding box.
      */
     public HitboxGroup() {
         boundingBox = new Hitbox(0, 0, 1, 1); // Default bounding box
-        hitboxes = new ArrayList<>(); // Initialize an empty list of hitboxes
+        geometry = new Geometry(new ArrayList<>()); // Initialize an empty list of hitboxes
     }
 
     /**
      * Constructs a HitboxGroup that is a copy of another HitboxGroup.
+     * The hitboxes are shared rather than copied, so this takes the same time however many hitboxes there are.
      *
      * @param copy The HitboxGroup to copy
      */
     public HitboxGroup(HitboxGroup copy) {
-        hitboxes = new ArrayList<>();
+        copy.geometry.shared = true;
+        geometry = copy.geometry;
+        offsetX = copy.offsetX;
+        offsetY = copy.offsetY;
+        colour = copy.colour;
         boundingBox = new Hitbox(0, 0, 1, 1); // Default bounding box
-        for (Hitbox h : copy.hitboxes) {
-            addHitbox(new Hitbox(h)); // Copy each hitbox into the new group
+        if (!geometry.hitboxes.isEmpty()) {
+            updateBoundingBox(geometry.left + offsetX, geometry.top + offsetY, geometry.right + offsetX, geometry.bottom + offsetY);
         }
     }
 
     /**
-     * Retrieves the list of hitboxes in this HitboxGroup.
+     * Retrieves the list of hitboxes in this HitboxGroup, in the group's own space.
+     * Add the offset of the group to place them in the world.
      *
-     * @return The list of hitboxes
+     * @return The list of hitboxes, which must not be modified
      */
     public ArrayList<Hitbox> getHitboxes() {
-        return hitboxes;
+        return geometry.hitboxes;
     }
 
     /**
      * Adds a hitbox to this HitboxGroup and updates the bounding box if necessary.
      *
-     * @param h The hitbox to add
+     * @param h The hitbox to add, in the group's own space
      */
     public void addHitbox(Hitbox h) {
-        hitboxes.add(h); // Add the hitbox to the list
-        updateBoundingBox(h); // Update the bounding box to include the new hitbox
+        Geometry own = getOwnGeometry();
+        own.hitboxes.add(h); // Add the hitbox to the list
+        own.include(h);
+        own.tree = null;
+        updateBoundingBox(h.getLeft() + offsetX, h.getTop() + offsetY, h.getRight() + offsetX, h.getBottom() + offsetY); // Update the bounding box to include the new hitbox
+    }
+
+    /**
+     * Removes every hitbox from this HitboxGroup and resets the bounding box, keeping the storage for reuse.
+     */
+    public void clear() {
+        if (geometry.shared) {
+            geometry = new Geometry(new ArrayList<>());
+        } else {
+            geometry.hitboxes.clear();
+            geometry.left = geometry.top = Integer.MAX_VALUE;
+            geometry.right = geometry.bottom = Integer.MIN_VALUE;
+            geometry.tree = null;
+        }
+        boundingBox.setBounds(0, 0, 1, 1); // Default bounding box
+    }
+
+    /**
+     * Retrieves the hitboxes of this group for changing them, first copying the list if it is shared with a copy.
+     *
+     * @return The hitboxes only this group uses
+     */
+    private Geometry getOwnGeometry() {
+        if (geometry.shared) geometry = new Geometry(new ArrayList<>(geometry.hitboxes));
+        return geometry;
     }
 
     /**
-     * Updates the bounding box to encompass a new hitbox.
+     * Updates the bounding box to encompass a rectangle in the world.
      *
-     * @param h The hitbox to include in the bounding box calculation
+     * @param left   The left edge of the rectangle
+     * @param top    The top edge of the rectangle
+     * @param right  The right edge of the rectangle
+     * @param bottom The bottom edge of the rectangle
      */
-    private void updateBoundingBox(Hitbox h) {
-        if (boundingBox.getTopLeft().getXDistance(h.getTopLeft()) < 0) {
-            boundingBox.getTopLeft().setX(h.getTopLeft().getX());
+    private void updateBoundingBox(int left, int top, int right, int bottom) {
+        if (left < boundingBox.getTopLeft().getX()) {
+            boundingBox.getTopLeft().setX(left);
         }
-        if (boundingBox.getTopLeft().getYDistance(h.getTopLeft()) < 0) {
-            boundingBox.getTopLeft().setY(h.getTopLeft().getY());
+        if (top < boundingBox.getTopLeft().getY()) {
+            boundingBox.getTopLeft().setY(top);
         }
-        if (boundingBox.getBottomRight().getXDistance(h.getBottomRight()) > 0) {
-            boundingBox.getBottomRight().setX(h.getBottomRight().getX());
+        if (right > boundingBox.getBottomRight().getX()) {
+            boundingBox.getBottomRight().setX(right);
         }
-        if (boundingBox.getBottomRight().getYDistance(h.getBottomRight()) > 0) {
-            boundingBox.getBottomRight().setY(h.getBottomRight().getY());
+        if (bottom > boundingBox.getBottomRight().getY()) {
+            boundingBox.getBottomRight().setY(bottom);
         }
     }
 
@@ -78,8 +152,9 @@ public class HitboxGroup {
      * @param c The camera used for drawing
      */
     public void draw(Camera c) {
-        for (Hitbox h : hitboxes) {
-            c.drawHitbox(h); // Draw each hitbox using the camera
+        Vector2F offset = new Vector2F(offsetX, offsetY);
+        for (Hitbox h : geometry.hitboxes) {
+            c.drawHitbox(h, colour == null ? h.getColour() : colour, offset); // Draw each hitbox using the camera
         }
     }
 
@@ -92,18 +167,63 @@ public class HitboxGroup {
         return boundingBox.getCenter();
     }
 
+    /**
+     * Writes the center point of the bounding box of this HitboxGroup into a vector, without allocating.
+     *
+     * @param dst The vector to write the center into
+     * @return The destination vector
+     */
+    public Vector2F getCenter(Vector2F dst) {
+        return boundingBox.getCenter(dst);
+    }
+
     /**
      * Translates all hitboxes in this HitboxGroup by a specified offset.
+     * Only the group's offset and bounding box change, the hitboxes themselves are not touched.
      *
      * @param offset The translation offset
      */
     public void translateInPlace(Vector2F offset) {
-        for (Hitbox h : hitboxes) {
-            h.translateInPlace(offset); // Translate each hitbox
-        }
+        offsetX += offset.getX();
+        offsetY += offset.getY();
         boundingBox.translateInPlace(offset); // Translate the bounding box
     }
 
+    /**
+     * Retrieves the horizontal offset that places the hitboxes of this group in the world.
+     *
+     * @return The horizontal offset
+     */
+    public int getOffsetX() {
+        return offsetX;
+    }
+
+    /**
+     * Retrieves the vertical offset that places the hitboxes of this group in the world.
+     *
+     * @return The vertical offset
+     */
+    public int getOffsetY() {
+        return offsetY;
+    }
+
+    /**
+     * Retrieves the tree over the hitboxes of this group, building it if needed.
+     * Small groups are cheaper to check directly and have no tree.
+     *
+     * @return The tree, or null if the group is too small to need one
+     */
+    private AABBTree getTree() {
+        Geometry g = geometry;
+        if (g.hitboxes.size() < TREE_THRESHOLD) return null;
+        AABBTree current = g.tree;
+        if (current == null) {
+            current = new AABBTree(g.hitboxes);
+            g.tree = current;
+        }
+        return current;
+    }
+
     /**
      * Checks for a quick intersection between the bounding box of this HitboxGroup and another hitbox.
      *
@@ -153,12 +273,7 @@ public class HitboxGroup {
      * @return true if there is an intersection between any hitboxes, otherwise false
      */
     public boolean intersects(HitboxGroup group) {
-        for (Hitbox h1 : hitboxes) {
-            for (Hitbox h2 : group.hitboxes) {
-                if (h1.intersects(h2)) return true;
-            }
-        }
-        return false;
+        return intersects(group, 0, 0, false);
     }
 
     /**
@@ -169,9 +284,40 @@ public class HitboxGroup {
      * @return true if there is an intersection between any hitboxes, otherwise false
      */
     public boolean intersects(HitboxGroup group, boolean equality) {
-        for (Hitbox h1 : hitboxes) {
-            for (Hitbox h2 : group.hitboxes) {
-                if (h1.intersects(h2, equality)) return true;
+        return intersects(group, 0, 0, equality);
+    }
+
+    /**
+     * Checks if any hitbox in this HitboxGroup, if the group were moved by an offset, would intersect with any hitbox
+     * in another HitboxGroup. Neither group is moved, so this can test where a group would fit before placing it.
+     *
+     * @param group    The other HitboxGroup to check for intersection
+     * @param dx       The horizontal offset to test this group at
+     * @param dy       The vertical offset to test this group at
+     * @param equality Whether to consider edges as intersecting
+     * @return true if there is an intersection between any hitboxes, otherwise false
+     */
+    public boolean intersects(HitboxGroup group, int dx, int dy, boolean equality) {
+        ArrayList<Hitbox> own = geometry.hitboxes, others = group.geometry.hitboxes;
+        // Moves the other group's hitboxes into this group's space
+        int relativeX = group.offsetX - offsetX - dx, relativeY = group.offsetY - offsetY - dy;
+        AABBTree ownTree = getTree(), otherTree = group.getTree();
+        if (ownTree != null && (otherTree == null || own.size() >= others.size())) {
+            for (Hitbox h2 : others) {
+                if (ownTree.intersects(h2, relativeX, relativeY, equality)) return true;
+            }
+            return false;
+        }
+        if (otherTree != null) {
+            for (Hitbox h1 : own) {
+                if (otherTree.intersects(h1, -relativeX, -relativeY, equality)) return true;
+            }
+            return false;
+        }
+
+        for (Hitbox h1 : own) {
+            for (Hitbox h2 : others) {
+                if (h1.intersects(h2, relativeX, relativeY, equality)) return true;
             }
         }
         return false;
@@ -184,26 +330,52 @@ public class HitboxGroup {
      * @return true if there is an intersection, otherwise false
      */
     public boolean intersects(Hitbox hitbox) {
-        for (Hitbox h1 : hitboxes) {
-            if (h1.intersects(hitbox)) return true;
-        }
-        return false;
+        return intersects(hitbox, false);
     }
 
     /**
      * Checks if any hitbox in this HitboxGroup intersects with a specified hitbox, optionally considering equality.
+     * The hitbox is moved into the group's space for the check, instead of the group into the world.
      *
      * @param hitbox   The hitbox to check for intersection with any hitbox in this group
      * @param equality Whether to consider edges as intersecting
      * @return true if there is an intersection, otherwise false
      */
     public boolean intersects(Hitbox hitbox, boolean equality) {
-        for (Hitbox h1 : hitboxes) {
-            if (h1.intersects(hitbox, equality)) return true;
+        AABBTree own = getTree();
+        if (own != null) return own.intersects(hitbox, -offsetX, -offsetY, equality);
+        for (Hitbox h1 : geometry.hitboxes) {
+            if (h1.intersects(hitbox, -offsetX, -offsetY, equality)) return true;
         }
         return false;
     }
 
+    /**
+     * Adds every hitbox in this HitboxGroup whose box overlaps a rectangle, edges included, to a list.
+     * The rectangle is in the world, while the hitboxes added are in the group's own space.
+     *
+     * @param left   The left edge of the rectangle
+     * @param top    The top edge of the rectangle
+     * @param right  The right edge of the rectangle
+     * @param bottom The bottom edge of the rectangle
+     * @param result The list to add the hitboxes to
+     */
+    public void collectOverlapping(int left, int top, int right, int bottom, ArrayList<Hitbox> result) {
+        left -= offsetX;
+        right -= offsetX;
+        top -= offsetY;
+        bottom -= offsetY;
+        AABBTree own = getTree();
+        if (own != null) {
+            own.collect(left, top, right, bottom, result);
+            return;
+        }
+        for (Hitbox h : geometry.hitboxes) {
+            if (left > h.getRight() || right < h.getLeft() || top > h.getBottom() || bottom < h.getTop()) continue;
+            result.add(h);
+        }
+    }
+
     /**
      * Retrieves the bounding box of this HitboxGroup.
      *
@@ -214,13 +386,12 @@ public class HitboxGroup {
     }
 
     /**
-     * Sets the color of all hitboxes in this HitboxGroup.
+     * Sets the color all hitboxes in this HitboxGroup are drawn in.
+     * The hitboxes themselves are not changed, since copies of the group may share them.
      *
      * @param colour The color to set
      */
     public void setColour(Color colour) {
-        for (Hitbox h : hitboxes) {
-            h.setColour(colour); // Set the color of each hitbox
-        }
+        this.colour = colour;
     }
 }
@@ -4,11 +4,19 @@ import java.util.ArrayList;
 
 /**
  * Represents a KD-Tree data structure for efficiently finding nearest neighbors in 2D space.
+ * <p>
+ * The tree is built once from all of its points by splitting every range at its median, alternating between
+ * the x and y dimensions, so it is always balanced. The points are stored in flat arrays in tree order:
+ * the node of a range is its middle entry, with the left subtree before it and the right subtree after it,
+ * so the tree needs no node objects and queries do not allocate.
+ * </p>
+ * When several points are equally near a target, the one with the smaller x, then the smaller y, comes first,
+ * so results do not depend on the shape of the tree. Queries never modify the tree and may run on several threads.
  */
 public class KDTree {
 
-    private KDNode root; // Root node of the KD-Tree
-    private int k = 2;   // Number of dimensions (here, 2D)
+    private final Vector2F[] points; // Points in tree order
+    private final int[] xs, ys;      // Coordinates of the points, in tree order
 
     /**
      * Constructs a KD-Tree from a list of 2D points.
@@ -16,125 +24,269 @@ public class KDTree {
      * @param points The list of 2D points to construct the KD-Tree from.
      */
     public KDTree(ArrayList<Vector2F> points) {
-        for (Vector2F point : points) {
-            insert(new Vector2F(point.getX(), point.getY()));
+        int n = points.size();
+        this.points = new Vector2F[n];
+        xs = new int[n];
+        ys = new int[n];
+        for (int i = 0; i < n; i++) {
+            Vector2F point = points.get(i);
+            this.points[i] = new Vector2F(point.getX(), point.getY());
+            xs[i] = point.getX();
+            ys[i] = point.getY();
         }
+        build(0, n, 0);
     }
 
     /**
-     * Inserts a new point into the KD-Tree.
+     * Recursive helper method to arrange a range of points into a subtree, splitting at the median.
      *
-     * @param point The 2D point to be inserted into the KD-Tree.
+     * @param lo    The first index of the range.
+     * @param hi    The index after the last one in the range.
+     * @param depth The current depth in the KD-Tree.
      */
-    public void insert(Vector2F point) {
-        root = insertRec(root, point, 0);
+    private void build(int lo, int hi, int depth) {
+        if (hi - lo <= 1) return;
+        int mid = (lo + hi) >>> 1;
+        select(lo, hi, mid, depth % 2 == 0 ? xs : ys);
+        build(lo, mid, depth + 1);
+        build(mid + 1, hi, depth + 1);
     }
 
     /**
-     * Recursive helper method to insert a point into the KD-Tree.
+     * Partially sorts a range of points so the point at a given index is in its sorted position,
+     * with no greater coordinates before it and no smaller coordinates after it.
      *
-     * @param node  The current node in the KD-Tree.
-     * @param point The 2D point to be inserted.
-     * @param depth The current depth in the KD-Tree.
-     * @return The updated node after insertion.
+     * @param lo     The first index of the range.
+     * @param hi     The index after the last one in the range.
+     * @param k      The index to put in place.
+     * @param coords The coordinates to sort by, either xs or ys.
      */
-    private KDNode insertRec(KDNode node, Vector2F point, int depth) {
-        if (node == null) {
-            return new KDNode(point);
+    private void select(int lo, int hi, int k, int[] coords) {
+        int left = lo, right = hi - 1;
+        while (left < right) {
+            int pivot = coords[(left + right) >>> 1];
+            int i = left, j = right;
+            while (i <= j) {
+                while (coords[i] < pivot) i++;
+                while (coords[j] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
         }
+    }
 
-        int cur_dimension = depth % 2; // Alternates between x and y dimensions (2D)
+    /**
+     * Swaps two points in every array.
+     */
+    private void swap(int a, int b) {
+        Vector2F point = points[a];
+        points[a] = points[b];
+        points[b] = point;
+        int temp = xs[a];
+        xs[a] = xs[b];
+        xs[b] = temp;
+        temp = ys[a];
+        ys[a] = ys[b];
+        ys[b] = temp;
+    }
 
-        if (cur_dimension == 0) {
-            if (point.getX() < node.point.getX()) {
-                node.left = insertRec(node.left, point, depth + 1);
-            } else {
-                node.right = insertRec(node.right, point, depth + 1);
-            }
-        } else if (cur_dimension == 1) {
-            if (point.getY() < node.point.getY()) {
-                node.left = insertRec(node.left, point, depth + 1);
-            } else {
-                node.right = insertRec(node.right, point, depth + 1);
-            }
-        }
-        return node;
+    /**
+     * Retrieves the number of points in the KD-Tree.
+     *
+     * @return The number of points.
+     */
+    public int size() {
+        return points.length;
     }
 
     /**
      * Finds the nearest point in the KD-Tree to a given target point.
      *
      * @param target The target point for which nearest neighbor is to be found.
-     * @return The nearest neighbor point found in the KD-Tree.
+     * @return The nearest neighbor point found in the KD-Tree, or null if the tree is empty.
      */
     public Vector2F findNearest(Vector2F target) {
-        target = new Vector2F(target.getX(), target.getY()); // Create a copy to avoid modification
-        return findNearestRec(root, target, 0, null);
+        int best = findNearestRec(0, points.length, 0, target.getX(), target.getY(), -1);
+        return best == -1 ? null : points[best];
     }
 
     /**
-     * Recursive helper method to find the nearest neighbor point in the KD-Tree.
+     * Recursive helper method to find the nearest neighbor point in a subtree.
      *
-     * @param root   The current root node in the KD-Tree.
-     * @param target The target point for which nearest neighbor is to be found.
-     * @param depth  The current depth in the KD-Tree.
-     * @param best   The current best nearest neighbor found so far.
-     * @return The nearest neighbor point found in the KD-Tree.
+     * @param lo    The first index of the subtree.
+     * @param hi    The index after the last one in the subtree.
+     * @param depth The current depth in the KD-Tree.
+     * @param x     The x-coordinate of the target.
+     * @param y     The y-coordinate of the target.
+     * @param best  The index of the best point found so far, or -1 if none has been found.
+     * @return The index of the best point found.
      */
-    private Vector2F findNearestRec(KDNode root, Vector2F target, int depth, Vector2F best) {
-        if (root == null) {
-            return best;
+    private int findNearestRec(int lo, int hi, int depth, int x, int y, int best) {
+        if (lo >= hi) return best;
+        int mid = (lo + hi) >>> 1;
+        if (best == -1 || isCloser(points[mid], distance(mid, x, y), points[best], x, y)) best = mid;
+
+        long diff = depth % 2 == 0 ? (long) x - xs[mid] : (long) y - ys[mid];
+        if (diff < 0) {
+            best = findNearestRec(lo, mid, depth + 1, x, y, best);
+            if (diff * diff <= distance(best, x, y)) best = findNearestRec(mid + 1, hi, depth + 1, x, y, best);
+        } else {
+            best = findNearestRec(mid + 1, hi, depth + 1, x, y, best);
+            if (diff * diff <= distance(best, x, y)) best = findNearestRec(lo, mid, depth + 1, x, y, best);
         }
+        return best;
+    }
+
+    /**
+     * Finds the nearest points in the KD-Tree to a given target point.
+     *
+     * @param target The target point for which the nearest neighbors are to be found.
+     * @param k      The maximum number of points to find.
+     * @return The nearest points, from nearest to furthest.
+     */
+    public ArrayList<Vector2F> kNearest(Vector2F target, int k) {
+        return kNearest(target, k, new ArrayList<Vector2F>(Math.max(0, Math.min(k, points.length))));
+    }
 
-        Vector2F bestPoint = best;
-        long best_dist = (bestPoint == null) ? Long.MAX_VALUE : target.getEuclideanDistance(bestPoint);
-        long cur_dist = target.getEuclideanDistance(root.point);
+    /**
+     * Finds the nearest points in the KD-Tree to a given target point, reusing a result list.
+     *
+     * @param target The target point for which the nearest neighbors are to be found.
+     * @param k      The maximum number of points to find.
+     * @param result The list to fill, which is cleared first.
+     * @return The result list, holding the nearest points from nearest to furthest.
+     */
+    public ArrayList<Vector2F> kNearest(Vector2F target, int k, ArrayList<Vector2F> result) {
+        result.clear();
+        if (k > 0) kNearestRec(0, points.length, 0, target.getX(), target.getY(), k, result);
+        return result;
+    }
+
+    /**
+     * Recursive helper method to find the nearest points in a subtree.
+     * The result list is kept sorted, with its furthest point last.
+     *
+     * @param lo     The first index of the subtree.
+     * @param hi     The index after the last one in the subtree.
+     * @param depth  The current depth in the KD-Tree.
+     * @param x      The x-coordinate of the target.
+     * @param y      The y-coordinate of the target.
+     * @param k      The maximum number of points to find.
+     * @param result The nearest points found so far.
+     */
+    private void kNearestRec(int lo, int hi, int depth, int x, int y, int k, ArrayList<Vector2F> result) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        offer(mid, x, y, k, result);
 
-        if (cur_dist < best_dist) {
-            bestPoint = root.point;
-            best_dist = cur_dist;
+        long diff = depth % 2 == 0 ? (long) x - xs[mid] : (long) y - ys[mid];
+        int nearLo = diff < 0 ? lo : mid + 1, nearHi = diff < 0 ? mid : hi;
+        int farLo = diff < 0 ? mid + 1 : lo, farHi = diff < 0 ? hi : mid;
+        kNearestRec(nearLo, nearHi, depth + 1, x, y, k, result);
+        if (result.size() < k || diff * diff <= distance(result.get(result.size() - 1), x, y)) {
+            kNearestRec(farLo, farHi, depth + 1, x, y, k, result);
         }
+    }
 
-        int cur_dimension = depth % k; // Alternates between x and y dimensions (2D)
-        KDNode next_node, other_node;
+    /**
+     * Inserts a point into a sorted list of nearest points if it is among the k nearest found so far.
+     *
+     * @param index  The index of the point.
+     * @param x      The x-coordinate of the target.
+     * @param y      The y-coordinate of the target.
+     * @param k      The maximum number of points to keep.
+     * @param result The nearest points found so far, from nearest to furthest.
+     */
+    private void offer(int index, int x, int y, int k, ArrayList<Vector2F> result) {
+        Vector2F point = points[index];
+        long dist = distance(point, x, y);
+        int pos = result.size();
+        while (pos > 0 && isCloser(point, dist, result.get(pos - 1), x, y)) {
+            pos--;
+        }
+        if (pos >= k) return;
+        if (result.size() == k) result.remove(k - 1);
+        result.add(pos, point);
+    }
 
-        if (cur_dimension == 0) {
-            next_node = (target.getX() < root.point.getX()) ? root.left : root.right;
-            other_node = (next_node == root.left) ? root.right : root.left;
+    /**
+     * Finds every point in the KD-Tree within a distance of a given target point.
+     *
+     * @param target The target point.
+     * @param radius The largest distance from the target, in world units.
+     * @return The points within the radius, in no particular order.
+     */
+    public ArrayList<Vector2F> withinRadius(Vector2F target, int radius) {
+        return withinRadius(target, radius, new ArrayList<Vector2F>());
+    }
 
-            bestPoint = findNearestRec(next_node, target, depth + 1, bestPoint);
+    /**
+     * Finds every point in the KD-Tree within a distance of a given target point, reusing a result list.
+     *
+     * @param target The target point.
+     * @param radius The largest distance from the target, in world units.
+     * @param result The list to fill, which is cleared first.
+     * @return The result list, holding the points within the radius in no particular order.
+     */
+    public ArrayList<Vector2F> withinRadius(Vector2F target, int radius, ArrayList<Vector2F> result) {
+        result.clear();
+        if (radius >= 0) withinRadiusRec(0, points.length, 0, target.getX(), target.getY(), (long) radius * radius, result);
+        return result;
+    }
 
-            if (target.getXDistance(root.point) < best_dist) {
-                bestPoint = findNearestRec(other_node, target, depth + 1, bestPoint);
-            }
-        } else {
-            next_node = (target.getY() < root.point.getY()) ? root.left : root.right;
-            other_node = (next_node == root.left) ? root.right : root.left;
+    /**
+     * Recursive helper method to find the points of a subtree within a squared distance of the target.
+     *
+     * @param lo       The first index of the subtree.
+     * @param hi       The index after the last one in the subtree.
+     * @param depth    The current depth in the KD-Tree.
+     * @param x        The x-coordinate of the target.
+     * @param y        The y-coordinate of the target.
+     * @param radiusSq The squared radius.
+     * @param result   The points found so far.
+     */
+    private void withinRadiusRec(int lo, int hi, int depth, int x, int y, long radiusSq, ArrayList<Vector2F> result) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (distance(mid, x, y) <= radiusSq) result.add(points[mid]);
 
-            bestPoint = findNearestRec(next_node, target, depth + 1, bestPoint);
+        long diff = depth % 2 == 0 ? (long) x - xs[mid] : (long) y - ys[mid];
+        if (diff <= 0 || diff * diff <= radiusSq) withinRadiusRec(lo, mid, depth + 1, x, y, radiusSq, result);
+        if (diff >= 0 || diff * diff <= radiusSq) withinRadiusRec(mid + 1, hi, depth + 1, x, y, radiusSq, result);
+    }
 
-            if (target.getYDistance(root.point) < best_dist) {
-                bestPoint = findNearestRec(other_node, target, depth + 1, bestPoint);
-            }
-        }
-        return bestPoint;
+    /**
+     * Calculates the squared distance from a point in the tree to the target.
+     */
+    private long distance(int index, int x, int y) {
+        long dx = (long) xs[index] - x, dy = (long) ys[index] - y;
+        return dx * dx + dy * dy;
     }
 
     /**
-     * Represents a node in the KD-Tree.
+     * Calculates the squared distance from a point to the target.
      */
-    private class KDNode {
-        int dimension = 2; // Number of dimensions (here, 2D)
-        Vector2F point;    // Point stored in the node
-        KDNode left, right; // Left and right child nodes
+    private static long distance(Vector2F point, int x, int y) {
+        long dx = (long) point.getX() - x, dy = (long) point.getY() - y;
+        return dx * dx + dy * dy;
+    }
 
-        /**
-         * Constructs a KDNode with a given 2D point.
-         *
-         * @param point The 2D point to be stored in the node.
-         */
-        public KDNode(Vector2F point) {
-            this.point = new Vector2F(point);
-        }
+    /**
+     * Checks if a point comes before another in nearest order, breaking ties by x and then by y.
+     *
+     * @param a     The point to check.
+     * @param distA The squared distance from that point to the target.
+     * @param b     The point to compare against.
+     * @param x     The x-coordinate of the target.
+     * @param y     The y-coordinate of the target.
+     * @return true if a is nearer than b, false otherwise.
+     */
+    private static boolean isCloser(Vector2F a, long distA, Vector2F b, int x, int y) {
+        long distB = distance(b, x, y);
+        if (distA != distB) return distA < distB;
+        if (a.getX() != b.getX()) return a.getX() < b.getX();
+        return a.getY() < b.getY();
     }
 }
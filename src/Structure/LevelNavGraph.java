@@ -0,0 +1,262 @@
+package Structure;
+
+import RoomEditor.Entrance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * Represents the navigation of a whole level as a small graph between the entrances of its rooms.
+ * <p>
+ * Every connected entrance becomes a portal at the node of its room nearest to it. Portals in the same room are
+ * joined by the cost of the shortest route between them through the room's NavGraph, searched once when the level
+ * graph is built, and the two portals of each connected entrance pair are joined by the gap between them.
+ * A route between rooms is then a search over the portals, followed by one search inside the starting room
+ * to refine the way to the first portal, instead of a search over every node of the level.
+ * The costs from the portals of the goal room to the goal are read from that room's FlowField, which is only searched
+ * again when the goal node changes and is shared with the enemies chasing the same goal inside the room.
+ * </p>
+ * Rooms are identified by their node maps, and nodes are in the node map's own coordinates, without its translate
+ * offset. Searches reuse scratch arrays, so a LevelNavGraph must only be searched by one thread at a time.
+ */
+public class LevelNavGraph {
+    private final IdentityHashMap<NodeMap, Integer> roomIds = new IdentityHashMap<>();
+    private final NodeMap[] maps;
+    private final int[] roomPortalStart; // Portals of room i are roomPortalStart[i] to roomPortalStart[i + 1], exclusive
+
+    private final int[] portalRoom, portalNode; // Room of each portal and the id of its node in the room's NavGraph
+    private final int[] portalX, portalY;       // World position of each portal
+    private final int[] edgeStart, edgeTarget;  // Edges between portals, in compressed sparse row form
+    private final long[] edgeCost;
+
+    private final PathFinder pathFinder = new PathFinder();
+    private final NodeHeap open = new NodeHeap();
+    private final long[] cost, goalCost;
+    private final int[] parent, stamp, route;
+    private int search = 0;
+
+    /**
+     * Constructs a LevelNavGraph over the rooms of a level, whose entrances are already connected.
+     *
+     * @param rooms The rooms of the level
+     */
+    public LevelNavGraph(ArrayList<Room> rooms) {
+        maps = new NodeMap[rooms.size()];
+        roomPortalStart = new int[rooms.size() + 1];
+        IdentityHashMap<Entrance, Integer> portalIds = new IdentityHashMap<>();
+        ArrayList<Entrance> entrances = new ArrayList<>();
+        for (int r = 0; r < rooms.size(); r++) {
+            maps[r] = rooms.get(r).getNodeMap();
+            roomIds.put(maps[r], r);
+            roomPortalStart[r] = entrances.size();
+            for (Entrance e : rooms.get(r).getEntrances()) {
+                if (!e.isConnected() || e.getConnectedEntrance() == null) continue;
+                if (maps[r].getNavGraph().getId(maps[r].getNearestNode(e.getLocation())) == -1) continue;
+                portalIds.put(e, entrances.size());
+                entrances.add(e);
+            }
+        }
+        roomPortalStart[rooms.size()] = entrances.size();
+
+        int n = entrances.size();
+        portalRoom = new int[n];
+        portalNode = new int[n];
+        portalX = new int[n];
+        portalY = new int[n];
+        for (int r = 0; r < maps.length; r++) {
+            NavGraph graph = maps[r].getNavGraph();
+            Vector2F offset = maps[r].getTranslateOffset();
+            for (int p = roomPortalStart[r]; p < roomPortalStart[r + 1]; p++) {
+                portalRoom[p] = r;
+                portalNode[p] = graph.getId(maps[r].getNearestNode(entrances.get(p).getLocation()));
+                portalX[p] = graph.getX(portalNode[p]) + offset.getX();
+                portalY[p] = graph.getY(portalNode[p]) + offset.getY();
+            }
+        }
+
+        // Routes between the portals of each room, then the crossings between connected entrances
+        ArrayList<ArrayList<long[]>> adjacency = new ArrayList<>(n);
+        for (int p = 0; p < n; p++) {
+            adjacency.add(new ArrayList<long[]>());
+        }
+        int edgeCount = 0;
+        for (int r = 0; r < maps.length; r++) {
+            NavGraph graph = maps[r].getNavGraph();
+            for (int a = roomPortalStart[r]; a < roomPortalStart[r + 1]; a++) {
+                for (int b = roomPortalStart[r]; b < roomPortalStart[r + 1]; b++) {
+                    if (a == b || pathFinder.findNextNode(graph, portalNode[a], portalNode[b]) == -1) continue;
+                    adjacency.get(a).add(new long[] {b, pathFinder.getLastCost()});
+                    edgeCount++;
+                }
+            }
+        }
+        for (int a = 0; a < n; a++) {
+            Integer b = portalIds.get(entrances.get(a).getConnectedEntrance());
+            if (b == null || portalY[a] - portalY[b] > NavGraph.MAX_CLIMB) continue;
+            adjacency.get(a).add(new long[] {b, distance(a, portalX[b], portalY[b]) + 1});
+            edgeCount++;
+        }
+
+        edgeStart = new int[n + 1];
+        edgeTarget = new int[edgeCount];
+        edgeCost = new long[edgeCount];
+        int e = 0;
+        for (int p = 0; p < n; p++) {
+            edgeStart[p] = e;
+            for (long[] edge : adjacency.get(p)) {
+                edgeTarget[e] = (int) edge[0];
+                edgeCost[e] = edge[1];
+                e++;
+            }
+        }
+        edgeStart[n] = e;
+
+        cost = new long[n + 1];
+        goalCost = new long[n];
+        parent = new int[n + 1];
+        stamp = new int[n + 1];
+        route = new int[n];
+    }
+
+    /**
+     * Finds where to head next on a route between two rooms: the first portal of the route that is not at the start,
+     * which is a node of the starting room, or once the start is at the exit, the portal across the entrance.
+     *
+     * @param from  The node map of the room to start in
+     * @param start The node to start from
+     * @param to    The node map of the room to reach
+     * @param goal  The node to reach
+     * @return The position to head for in the coordinates of the starting room, or null if the rooms are the same
+     * or there is no route
+     */
+    public Vector2F findWaypoint(NodeMap from, Vector2F start, NodeMap to, Vector2F goal) {
+        int last = search(from, start, to, goal);
+        if (last == -1) return null;
+        int length = 0;
+        for (int p = last; p != -1; p = parent[p]) {
+            route[length++] = p;
+        }
+
+        int fromRoom = portalRoom[route[length - 1]];
+        NavGraph graph = from.getNavGraph();
+        for (int i = length - 1; i >= 0; i--) {
+            int p = route[i];
+            if (portalRoom[p] == fromRoom) {
+                if (portalNode[p] != graph.getId(start)) return graph.getNode(portalNode[p]);
+            } else {
+                Vector2F offset = from.getTranslateOffset();
+                return new Vector2F(portalX[p] - offset.getX(), portalY[p] - offset.getY());
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Finds the portals a route between two rooms passes through.
+     *
+     * @param from      The node map of the room to start in
+     * @param start     The node to start from
+     * @param to        The node map of the room to reach
+     * @param goal      The node to reach
+     * @param waypoints The list to fill with the world positions of the portals on the route, in order,
+     *                  which is cleared first
+     * @return The cost of the route, or -1 if the rooms are the same or there is no route
+     */
+    public long findRoute(NodeMap from, Vector2F start, NodeMap to, Vector2F goal, ArrayList<Vector2F> waypoints) {
+        waypoints.clear();
+        int last = search(from, start, to, goal);
+        if (last == -1) return -1;
+        for (int p = last; p != -1; p = parent[p]) {
+            waypoints.add(0, new Vector2F(portalX[p], portalY[p]));
+        }
+        return cost[portalRoom.length];
+    }
+
+    /**
+     * Runs an A* search over the portals from a node in one room to a node in another.
+     * Every portal of the starting room is reached with the cost of the route to it inside the room,
+     * and a virtual goal is reached from every portal of the goal room with the cost of the route from it,
+     * taken from the goal room's flow field.
+     *
+     * @return The last portal before the goal, or -1 if there is no route
+     */
+    private int search(NodeMap from, Vector2F start, NodeMap to, Vector2F goal) {
+        Integer fromRoom = roomIds.get(from), toRoom = roomIds.get(to);
+        if (fromRoom == null || toRoom == null || fromRoom.equals(toRoom)) return -1;
+        NavGraph fromGraph = from.getNavGraph(), toGraph = to.getNavGraph();
+        int startNode = fromGraph.getId(start), goalNode = toGraph.getId(goal);
+        if (startNode == -1 || goalNode == -1) return -1;
+
+        int virtualGoal = portalRoom.length;
+        FlowField goalField = to.getFlowField();
+        goalField.setTarget(goal);
+        for (int p = roomPortalStart[toRoom]; p < roomPortalStart[toRoom + 1]; p++) {
+            long distance = goalField.getDistance(toGraph.getNode(portalNode[p]));
+            goalCost[p] = distance == Long.MAX_VALUE ? -1 : distance;
+        }
+        int goalX = goal.getX() + to.getTranslateOffset().getX(), goalY = goal.getY() + to.getTranslateOffset().getY();
+
+        search++;
+        if (search == Integer.MAX_VALUE) { // Start the numbering again rather than let old marks match
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+        open.clear();
+        for (int p = roomPortalStart[fromRoom]; p < roomPortalStart[fromRoom + 1]; p++) {
+            if (pathFinder.findNextNode(fromGraph, startNode, portalNode[p]) == -1) continue;
+            reach(p, pathFinder.getLastCost(), -1, goalX, goalY);
+        }
+
+        while (!open.isEmpty()) {
+            long estimate = open.peekCost();
+            int p = open.remove();
+            if (p == virtualGoal) return parent[virtualGoal];
+            if (estimate - distance(p, goalX, goalY) > cost[p]) continue; // Out of date entry
+
+            if (portalRoom[p] == toRoom && goalCost[p] != -1) reach(virtualGoal, cost[p] + goalCost[p], p, goalX, goalY);
+            for (int e = edgeStart[p]; e < edgeStart[p + 1]; e++) {
+                reach(edgeTarget[e], cost[p] + edgeCost[e], p, goalX, goalY);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Records a route to a portal, or to the virtual goal, if it is cheaper than the best one known.
+     */
+    private void reach(int p, long newCost, int from, int goalX, int goalY) {
+        if (stamp[p] == search && cost[p] <= newCost) return;
+        stamp[p] = search;
+        cost[p] = newCost;
+        parent[p] = from;
+        open.add(p, p == portalRoom.length ? newCost : newCost + distance(p, goalX, goalY));
+    }
+
+    /**
+     * Calculates the straight line distance from a portal to a world position, rounded down so it never
+     * overestimates a route.
+     */
+    private long distance(int p, int x, int y) {
+        long dx = portalX[p] - x, dy = portalY[p] - y;
+        return (long) Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Checks if a node map belongs to one of the rooms of the level.
+     *
+     * @param map The node map to check
+     * @return true if the room is part of the level graph, false otherwise
+     */
+    public boolean contains(NodeMap map) {
+        return roomIds.containsKey(map);
+    }
+
+    public int getPortalCount() {
+        return portalRoom.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTarget.length;
+    }
+}
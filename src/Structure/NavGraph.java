@@ -0,0 +1,193 @@
+package Structure;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Represents the walkable edges of a node map compiled into flat arrays.
+ * Nodes are numbered from 0, and the edges leaving node i are the entries from getEdgeStart(i),
+ * inclusive, to getEdgeStart(i + 1), exclusive, in compressed sparse row form.
+ * The same edges are also stored reversed, for searches that work backwards from a target.
+ * Nodes are in the node map's own coordinates, without its translate offset.
+ * The graph does not change after it is built, so it can be shared between threads.
+ */
+public class NavGraph {
+    public static final int MAX_CLIMB = 1000000; // Edges that climb further than this are left out, as in the original enemy search
+
+    private final HashMap<Vector2F, Integer> ids = new HashMap<>();
+    private final Vector2F[] nodes;
+    private final int[] nodeX, nodeY;
+    private final int[] edgeStart, edgeTarget;
+    private final long[] edgeCost;
+    private final int[] reverseStart, reverseSource;
+    private final long[] reverseCost;
+
+    /**
+     * Constructs a NavGraph from the nodes and edges of a node map.
+     *
+     * @param map The node map to compile
+     */
+    public NavGraph(NodeMap map) {
+        ArrayList<Vector2F> all = new ArrayList<>();
+        for (Vector2F node : map.getNodes()) {
+            addNode(node, all);
+        }
+        for (Map.Entry<Vector2F, ArrayList<Vector2F>> edge : map.getEdges().entrySet()) {
+            addNode(edge.getKey(), all);
+            for (Vector2F to : edge.getValue()) {
+                addNode(to, all);
+            }
+        }
+
+        int n = all.size();
+        nodes = all.toArray(new Vector2F[0]);
+        nodeX = new int[n];
+        nodeY = new int[n];
+        for (int i = 0; i < n; i++) {
+            nodeX[i] = nodes[i].getX();
+            nodeY[i] = nodes[i].getY();
+        }
+
+        // Count the edges of every node, then fill both directions
+        edgeStart = new int[n + 1];
+        reverseStart = new int[n + 1];
+        int edgeCount = 0;
+        for (Map.Entry<Vector2F, ArrayList<Vector2F>> edge : map.getEdges().entrySet()) {
+            int from = ids.get(edge.getKey());
+            for (Vector2F to : edge.getValue()) {
+                if (!isWalkable(edge.getKey(), to)) continue;
+                edgeStart[from + 1]++;
+                reverseStart[ids.get(to) + 1]++;
+                edgeCount++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            edgeStart[i + 1] += edgeStart[i];
+            reverseStart[i + 1] += reverseStart[i];
+        }
+
+        edgeTarget = new int[edgeCount];
+        edgeCost = new long[edgeCount];
+        reverseSource = new int[edgeCount];
+        reverseCost = new long[edgeCount];
+        int[] edgeFill = new int[n], reverseFill = new int[n];
+        for (Map.Entry<Vector2F, ArrayList<Vector2F>> edge : map.getEdges().entrySet()) {
+            int from = ids.get(edge.getKey());
+            for (Vector2F toNode : edge.getValue()) {
+                if (!isWalkable(edge.getKey(), toNode)) continue;
+                int to = ids.get(toNode);
+                long cost = length(from, to);
+                int e = edgeStart[from] + edgeFill[from]++;
+                edgeTarget[e] = to;
+                edgeCost[e] = cost;
+                int r = reverseStart[to] + reverseFill[to]++;
+                reverseSource[r] = from;
+                reverseCost[r] = cost;
+            }
+        }
+    }
+
+    private void addNode(Vector2F node, ArrayList<Vector2F> all) {
+        if (ids.containsKey(node)) return;
+        ids.put(node, all.size());
+        all.add(node);
+    }
+
+    /**
+     * Checks if an edge may be used by a walking enemy.
+     *
+     * @param from The node the edge starts at
+     * @param to   The node the edge leads to
+     * @return true if the edge is kept, false otherwise
+     */
+    private static boolean isWalkable(Vector2F from, Vector2F to) {
+        return to.getYDistance(from) <= MAX_CLIMB;
+    }
+
+    /**
+     * Calculates the length of the straight line between two nodes, rounded up so that it is never shorter
+     * than the straight line estimate used by searches.
+     *
+     * @param a The id of the first node
+     * @param b The id of the second node
+     * @return The length between the nodes
+     */
+    long length(int a, int b) {
+        long dx = nodeX[a] - nodeX[b], dy = nodeY[a] - nodeY[b];
+        return (long) Math.ceil(Math.sqrt(dx * dx + dy * dy));
+    }
+
+    /**
+     * Retrieves the id of a node.
+     *
+     * @param node The position of the node
+     * @return The id of the node, or -1 if it is not in the graph
+     */
+    public int getId(Vector2F node) {
+        Integer id = node == null ? null : ids.get(node);
+        return id == null ? -1 : id;
+    }
+
+    /**
+     * Retrieves the position of a node. The returned vector is shared and must not be changed.
+     *
+     * @param id The id of the node
+     * @return The position of the node
+     */
+    public Vector2F getNode(int id) {
+        return nodes[id];
+    }
+
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    public int getEdgeCount() {
+        return edgeTarget.length;
+    }
+
+    public int getX(int id) {
+        return nodeX[id];
+    }
+
+    public int getY(int id) {
+        return nodeY[id];
+    }
+
+    /**
+     * Retrieves the first edge leaving a node. The edges of node i end where the edges of node i + 1 start.
+     *
+     * @param id The id of the node, or the node count for the end of the last node's edges
+     * @return The index of the first edge
+     */
+    public int getEdgeStart(int id) {
+        return edgeStart[id];
+    }
+
+    public int getEdgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    public long getEdgeCost(int edge) {
+        return edgeCost[edge];
+    }
+
+    /**
+     * Retrieves the first edge entering a node. The entering edges of node i end where those of node i + 1 start.
+     *
+     * @param id The id of the node, or the node count for the end of the last node's entering edges
+     * @return The index of the first entering edge
+     */
+    public int getReverseEdgeStart(int id) {
+        return reverseStart[id];
+    }
+
+    public int getReverseEdgeSource(int edge) {
+        return reverseSource[edge];
+    }
+
+    public long getReverseEdgeCost(int edge) {
+        return reverseCost[edge];
+    }
+}
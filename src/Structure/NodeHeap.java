@@ -0,0 +1,82 @@
+package Structure;
+
+import java.util.Arrays;
+
+/**
+ * Represents a binary min-heap of graph node ids ordered by a cost, stored in primitive arrays.
+ * A node may be added more than once; searches skip entries whose cost is out of date when they are removed.
+ * The arrays grow as needed and are kept between searches, so a reused heap does not allocate.
+ */
+class NodeHeap {
+    private int[] nodes = new int[64];
+    private long[] costs = new long[64];
+    private int size = 0;
+
+    /**
+     * Removes every entry, keeping the storage.
+     */
+    void clear() {
+        size = 0;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds a node with a cost.
+     *
+     * @param node The id of the node
+     * @param cost The cost to order the node by
+     */
+    void add(int node, long cost) {
+        if (size == nodes.length) {
+            nodes = Arrays.copyOf(nodes, size * 2);
+            costs = Arrays.copyOf(costs, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (costs[parent] <= cost) break;
+            nodes[i] = nodes[parent];
+            costs[i] = costs[parent];
+            i = parent;
+        }
+        nodes[i] = node;
+        costs[i] = cost;
+    }
+
+    /**
+     * Retrieves the cost of the cheapest entry. The heap must not be empty.
+     *
+     * @return The cost of the cheapest entry
+     */
+    long peekCost() {
+        return costs[0];
+    }
+
+    /**
+     * Removes the cheapest entry. The heap must not be empty.
+     *
+     * @return The id of the node of the removed entry
+     */
+    int remove() {
+        int top = nodes[0];
+        size--;
+        int node = nodes[size];
+        long cost = costs[size];
+        int i = 0;
+        while (true) {
+            int child = i * 2 + 1;
+            if (child >= size) break;
+            if (child + 1 < size && costs[child + 1] < costs[child]) child++;
+            if (costs[child] >= cost) break;
+            nodes[i] = nodes[child];
+            costs[i] = costs[child];
+            i = child;
+        }
+        nodes[i] = node;
+        costs[i] = cost;
+        return top;
+    }
+}
@@ -1,5 +1,8 @@
 package Structure;
 
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.*;
 
 import RoomEditor.Entrance;
@@ -29,14 +32,34 @@ public class NodeMap {
     // KDTree for efficient spatial queries
     private KDTree kdTree;
 
+    // Walkable edges compiled into arrays for searching, built on first use and shared with every copy
+    private volatile NavGraph navGraph;
+
+    // Routes towards the player shared by every enemy in the room, built on first use
+    private FlowField flowField;
+
     // Offset used for translating grid coordinates
     private final int gridOffset = 500;
 
     // Offset vector for translation
     private Vector2F translateOffset;
 
-    // Grid representing the spatial layout of the room
-    private char[][] grid;
+    // Number of empty cells kept around the room so the flood fill can travel around its outside
+    private static final int GRID_MARGIN = 2;
+
+    // Furthest distance in cells that connectNodes explores from its start node
+    private static final int CONNECT_RADIUS = 23;
+
+    // Grid representing the spatial layout of the room's bounding box, stored row by row.
+    // Only kept while the node map is being built.
+    private char[] grid;
+
+    // Grid coordinates of the top left cell and size of the grid
+    private int gridLeft, gridTop, gridWidth, gridHeight;
+
+    // Visited cells and BFS queue, reused by every search while building the node map
+    private BitSet visited;
+    private int[] queue;
 
     /**
      * Constructor to initialize a NodeMap based on a room.
@@ -55,12 +78,12 @@ public class NodeMap {
             playerSpawn = room.getPlayerSpawns().get(0);
         }
 
-        grid = new char[1000][1000];
         this.room = room;
 
         // Load grid and nodes
-        loadGrid(room);
-        loadNodes(new Vector2F(playerSpawn.getX()/1000 + 500, playerSpawn.getY()/1000 + 500), room);
+        Vector2F start = new Vector2F(playerSpawn.getX()/1000 + gridOffset, playerSpawn.getY()/1000 + gridOffset);
+        loadGrid(room, start);
+        loadNodes(start, room);
         nodes.add(new Vector2F(playerSpawn.getX(), playerSpawn.getY()));
 
         HashSet<Vector2F> set = new HashSet<Vector2F> (nodes);
@@ -71,13 +94,60 @@ public class NodeMap {
         kdTree = new KDTree(nodes);
 
         // Connect nodes based on grid and room layout
+        int connectSize = CONNECT_RADIUS * 2 + 1;
+        visited = new BitSet(connectSize * connectSize);
+        queue = new int[connectSize * connectSize];
         for (Vector2F node : nodes) {
             connectNodes(new Vector2F(node.getX() / 1000 + gridOffset, node.getY() / 1000 + gridOffset), room);
         }
+
+        // The grid is only needed while building
+        grid = null;
+        visited = null;
+        queue = null;
+    }
+
+    /**
+     * Constructor to load a prebuilt NodeMap from a room pack instead of flooding the room's grid.
+     * Nodes are stored in the order they were built in, so the loaded map lists them the same way.
+     *
+     * @param room The room the node map belongs to.
+     * @param data The pack buffer, positioned at the start of the node map record.
+     */
+    NodeMap(Room room, ByteBuffer data) {
+        this.room = room;
+        translateOffset = new Vector2F();
+        enemySpawns = room.getEnemySpawns();
+        if (room.getPlayerSpawns().isEmpty()) {
+            playerSpawn = new Spawn(room.getEnemySpawns().get(0).getLocation(), Spawn.SpawnType.PLAYER);
+        } else {
+            playerSpawn = room.getPlayerSpawns().get(0);
+        }
+
+        int nNodes = data.getInt();
+        nodes = new ArrayList<Vector2F>(nNodes);
+        for (int i = 0; i < nNodes; i++) {
+            nodes.add(new Vector2F(data.getInt(), data.getInt()));
+        }
+        kdTree = new KDTree(nodes);
+
+        int nEdgeLists = data.getInt();
+        edges = new HashMap<Vector2F, ArrayList<Vector2F>>();
+        for (int i = 0; i < nEdgeLists; i++) {
+            Vector2F from = new Vector2F(data.getInt(), data.getInt());
+            int nConnected = data.getInt();
+            ArrayList<Vector2F> connected = new ArrayList<Vector2F>(nConnected);
+            for (int j = 0; j < nConnected; j++) {
+                connected.add(new Vector2F(data.getInt(), data.getInt()));
+            }
+            edges.put(from, connected);
+        }
     }
 
     /**
-     * Copy constructor to create a deep copy of a NodeMap.
+     * Copy constructor to create a copy of a NodeMap for a placed room.
+     * The nodes, edges, KD-tree and walkable graph never change, so they are shared with the original, and the graph
+     * is built on the original the first time it is copied. Only the translate offset and the flow field are the copy's own.
      *
      * @param copy The NodeMap instance to be copied.
      */
@@ -86,22 +156,42 @@ public class NodeMap {
         edges = copy.edges;
         enemySpawns = copy.enemySpawns;
         playerSpawn = copy.playerSpawn;
-        grid = copy.grid;
         translateOffset = new Vector2F();
         kdTree = copy.kdTree;
+        navGraph = copy.getNavGraph();
         room = copy.room;
     }
 
     /**
      * Loads the grid representation of the room based on its hitboxes.
+     * The grid only covers the room's bounding box plus a small empty margin, one cell per 1000 units.
      *
      * @param room The room for which the grid is being loaded.
+     * @param start The grid cell the node search starts from, which must also be covered by the grid.
      */
-    private void loadGrid(Room room) {
+    private void loadGrid(Room room, Vector2F start) {
+        int left = start.getX(), top = start.getY(), right = start.getX(), bottom = start.getY();
+        ArrayList<Hitbox> filled = new ArrayList<>(room.getHitbox().getHitboxes());
+        for (Entrance e : room.getEntrances()) {
+            filled.add(e.getHitbox());
+        }
+        for (Hitbox hitbox : filled) {
+            left = Math.min(left, hitbox.getLeft()/1000 + gridOffset);
+            top = Math.min(top, hitbox.getTop()/1000 + gridOffset);
+            right = Math.max(right, hitbox.getRight()/1000 + gridOffset);
+            bottom = Math.max(bottom, hitbox.getBottom()/1000 + gridOffset);
+        }
+
+        gridLeft = left - GRID_MARGIN;
+        gridTop = top - GRID_MARGIN;
+        gridWidth = right - left + 1 + GRID_MARGIN * 2;
+        gridHeight = bottom - top + 1 + GRID_MARGIN * 2;
+        grid = new char[gridWidth * gridHeight];
+
         for (Hitbox hitbox : room.getHitbox().getHitboxes()) {
             for (int i = hitbox.getTop()/1000; i < hitbox.getBottom()/1000; i++) {
                 for (int j = hitbox.getLeft()/1000; j <= hitbox.getRight()/1000; j++) {
-                    grid[i+gridOffset][j+gridOffset] = 'X'; // since array index must be > 0
+                    setCell(j+gridOffset, i+gridOffset, 'X'); // since array index must be > 0
                 }
             }
         }
@@ -109,85 +199,95 @@ public class NodeMap {
         for (Entrance e : room.getEntrances()) {
             for (int i = e.getHitbox().getTop()/1000; i < e.getHitbox().getBottom()/1000; i++) {
                 for (int j = e.getHitbox().getLeft()/1000; j <= e.getHitbox().getRight()/1000; j++) {
-                    if (grid[i+gridOffset][j+gridOffset] == 'X') continue;
-                    grid[i+gridOffset][j+gridOffset] = 'E'; // since array index must be > 0
+                    if (getCell(j+gridOffset, i+gridOffset) == 'X') continue;
+                    setCell(j+gridOffset, i+gridOffset, 'E'); // since array index must be > 0
                 }
             }
         }
     }
 
+    /**
+     * Returns the value of a grid cell. Cells outside the room's bounding box are always empty.
+     *
+     * @param x The column of the cell in grid coordinates.
+     * @param y The row of the cell in grid coordinates.
+     * @return The cell's value, or 0 if it is empty.
+     */
+    private char getCell(int x, int y) {
+        if (!inGrid(x, y)) return 0;
+        return grid[(y - gridTop) * gridWidth + (x - gridLeft)];
+    }
+
+    /**
+     * Sets the value of a grid cell inside the room's bounding box.
+     *
+     * @param x The column of the cell in grid coordinates.
+     * @param y The row of the cell in grid coordinates.
+     * @param value The new value of the cell.
+     */
+    private void setCell(int x, int y, char value) {
+        grid[(y - gridTop) * gridWidth + (x - gridLeft)] = value;
+    }
+
+    /**
+     * Checks if a cell lies inside the stored grid.
+     *
+     * @param x The column of the cell in grid coordinates.
+     * @param y The row of the cell in grid coordinates.
+     * @return true if the cell is stored in the grid, false otherwise.
+     */
+    private boolean inGrid(int x, int y) {
+        return x >= gridLeft && y >= gridTop && x < gridLeft + gridWidth && y < gridTop + gridHeight;
+    }
+
     /**
      * given a grid where 'X' represents a wall, use bfs to find possible node locations
      * within a raidus, then mark as 'V' and store as a node
      * @param start
      */
     private void loadNodes(Vector2F start, Room room) {
-        Queue<Vector2F> q = new LinkedList<Vector2F>();
-        Vector2F cur_node, ogCur_node, ogStart; // og stores original node coords
-        q.add(start);
-        boolean[][] v = new boolean[1001][1001];
-        v[start.getX()][start.getY()] = true;
-        ogStart = new Vector2F((start.getX() - gridOffset) * 1000, (start.getY() - gridOffset) * 1000);
-        while (!q.isEmpty()) {
-            cur_node = q.remove();
-            ogCur_node = new Vector2F((cur_node.getX() - gridOffset) * 1000, (cur_node.getY() - gridOffset) * 1000);
-            if (grid[cur_node.getY()][cur_node.getX()] == 'E' ||
-                    grid[cur_node.getY()][cur_node.getX()] == 'D') {
+        BitSet v = new BitSet(gridWidth * gridHeight);
+        int[] q = new int[gridWidth * gridHeight];
+        int head = 0, tail = 0;
+        q[tail++] = (start.getY() - gridTop) * gridWidth + (start.getX() - gridLeft);
+        // The start is marked with its coordinates swapped, as the original char grid search did,
+        // so that generated graphs stay identical to the ones already stored in room packs
+        if (inGrid(start.getY(), start.getX())) v.set((start.getX() - gridTop) * gridWidth + (start.getY() - gridLeft));
+        while (head < tail) {
+            int x = q[head] % gridWidth + gridLeft;
+            int y = q[head] / gridWidth + gridTop;
+            head++;
+            char cell = getCell(x, y);
+            if (cell == 'E' || cell == 'D') {
                 continue;
             }
-            if (cur_node.getY() + 1 < 1000 && cur_node.getX() - 1 >= 0 && cur_node.getX() + 1 < 1000 &&
-                    grid[cur_node.getY()][cur_node.getX()] != 'X' &&
-                    grid[cur_node.getY()][cur_node.getX()] != 'V' &&
-                    (grid[cur_node.getY() + 1][cur_node.getX()] == 'X' ||
-                            grid[cur_node.getY() + 1][cur_node.getX()] == 'E')) {
-
-                if (grid[cur_node.getY() + 1][cur_node.getX() - 1] == 0 &&
-                        grid[cur_node.getY()][cur_node.getX() - 1] == 0) {
-                    fillPlatForm(cur_node, start, room);
-
-                } else if (grid[cur_node.getY() + 1][cur_node.getX() + 1] == 0 &&
-                        grid[cur_node.getY()][cur_node.getX() + 1] == 0) {
-                    fillPlatForm(cur_node, start, room);
-                } else if (grid[cur_node.getY()][cur_node.getX() - 1] == 'X' ||
-                        grid[cur_node.getY()][cur_node.getX() - 1] == 'E') {
-                    fillPlatForm(cur_node, start, room);
-                } else if (grid[cur_node.getY()][cur_node.getX() + 1] == 'X' ||
-                        grid[cur_node.getY()][cur_node.getX() + 1] == 'E') {
-                    fillPlatForm(cur_node, start, room);
-                } else if ((grid[cur_node.getY() + 1][cur_node.getX() + 1] == 'X' ||
-                        grid[cur_node.getY() + 1][cur_node.getX() - 1] == 'X') &&
-                        grid[cur_node.getY() + 1][cur_node.getX()] == 'E') {
-                    grid[cur_node.getY()][cur_node.getX()] = 'V';
-                    nodes.add(ogCur_node);
+            if (cell != 'X' && cell != 'V' && (getCell(x, y + 1) == 'X' || getCell(x, y + 1) == 'E')) {
+                if (getCell(x - 1, y + 1) == 0 && getCell(x - 1, y) == 0) {
+                    fillPlatForm(x, y);
+                } else if (getCell(x + 1, y + 1) == 0 && getCell(x + 1, y) == 0) {
+                    fillPlatForm(x, y);
+                } else if (getCell(x - 1, y) == 'X' || getCell(x - 1, y) == 'E') {
+                    fillPlatForm(x, y);
+                } else if (getCell(x + 1, y) == 'X' || getCell(x + 1, y) == 'E') {
+                    fillPlatForm(x, y);
+                } else if ((getCell(x + 1, y + 1) == 'X' || getCell(x - 1, y + 1) == 'X') && getCell(x, y + 1) == 'E') {
+                    setCell(x, y, 'V');
+                    nodes.add(new Vector2F((x - gridOffset) * 1000, (y - gridOffset) * 1000));
                 }
             }
 
-            if (cur_node.getY() + 1 < 1000 &&
-                    grid[cur_node.getY() + 1][cur_node.getX()] != 'X' &&
-                    !v[cur_node.getY() + 1][cur_node.getX()]) {
-                q.add(new Vector2F(cur_node.getX(), cur_node.getY() + 1));
-                v[cur_node.getY() + 1][cur_node.getX()] = true;
-            }
-            if (cur_node.getY() - 1 >= 0 &&
-                    grid[cur_node.getY() - 1][cur_node.getX()] != 'X' &&
-                    !v[cur_node.getY() - 1][cur_node.getX()]) {
-                q.add(new Vector2F(cur_node.getX(), cur_node.getY() - 1));
-                v[cur_node.getY() - 1][cur_node.getX()] = true;
-            }
-            if (cur_node.getX() + 1 < 1000 &&
-                    grid[cur_node.getY()][cur_node.getX() + 1] != 'X' &&
-                    !v[cur_node.getY()][cur_node.getX() + 1]) {
-                q.add(new Vector2F(cur_node.getX() + 1, cur_node.getY()));
-                v[cur_node.getY()][cur_node.getX() + 1] = true;
-            }
-            if (cur_node.getX() - 1 >= 0 &&
-                    grid[cur_node.getY()][cur_node.getX() - 1] != 'X' &&
-                    !v[cur_node.getY()][cur_node.getX() - 1]) {
-                q.add(new Vector2F(cur_node.getX() - 1, cur_node.getY()));
-                v[cur_node.getY()][cur_node.getX() - 1] = true;
+            // Visit neighbours below, above, right and left
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + (dir == 2 ? 1 : dir == 3 ? -1 : 0);
+                int ny = y + (dir == 0 ? 1 : dir == 1 ? -1 : 0);
+                if (!inGrid(nx, ny) || getCell(nx, ny) == 'X') continue;
+                int index = (ny - gridTop) * gridWidth + (nx - gridLeft);
+                if (v.get(index)) continue;
+                v.set(index);
+                q[tail++] = index;
             }
         }
-        grid[start.getY()][start.getX()] = 'V';
+        setCell(start.getX(), start.getY(), 'V');
     }
 
     /**
@@ -197,54 +297,52 @@ public class NodeMap {
      * @param start The starting position of node connectivity.
      * @param room The room object containing hitboxes to avoid intersections.
      */
-    public void connectNodes(Vector2F start, Room room) {
-        Queue<Vector2F> q = new LinkedList<>();
-        q.add(start);
-
-        Vector2F cur_node, ogCur_node, ogStart = new Vector2F((start.getX() - gridOffset) * 1000, (start.getY() - gridOffset) * 1000);
-
-        boolean[][] v = new boolean[1001][1001];
-        v[start.getX()][start.getY()] = true;
-        while (!q.isEmpty()) {
-            cur_node = q.remove();
-            ogCur_node = new Vector2F((cur_node.getX() - gridOffset) * 1000, (cur_node.getY() - gridOffset) * 1000);
+    private void connectNodes(Vector2F start, Room room) {
+        // The search never leaves a small window around the start, so visited cells are indexed relative to it
+        int windowSize = CONNECT_RADIUS * 2 + 1;
+        int windowLeft = start.getX() - CONNECT_RADIUS, windowTop = start.getY() - CONNECT_RADIUS;
+        Vector2F ogStart = new Vector2F((start.getX() - gridOffset) * 1000, (start.getY() - gridOffset) * 1000);
+
+        visited.clear();
+        int head = 0, tail = 0;
+        queue[tail++] = CONNECT_RADIUS * windowSize + CONNECT_RADIUS;
+        // Swapped start coordinates, see loadNodes
+        int swappedX = start.getY() - windowLeft, swappedY = start.getX() - windowTop;
+        if (swappedX >= 0 && swappedY >= 0 && swappedX < windowSize && swappedY < windowSize) {
+            visited.set(swappedY * windowSize + swappedX);
+        }
+        while (head < tail) {
+            int x = queue[head] % windowSize + windowLeft;
+            int y = queue[head] / windowSize + windowTop;
+            head++;
 
-            if (cur_node.getEuclideanDistance(start) > 500) {
+            int dx = x - start.getX(), dy = y - start.getY();
+            if ((long) dx * dx + (long) dy * dy > 500) {
                 continue;
             }
-            if (Math.abs(cur_node.getXDistance(start)) > 20) {
+            if (Math.abs(dx) > 20) {
                 continue;
             }
-            if (cur_node.getYDistance(start) > 20) {
+            if (-dy > 20) {
                 continue;
             }
 
-            if (grid[ cur_node.getY()][ cur_node.getX()] == 'V' && cur_node.getX() != start.getX()) {
+            if (getCell(x, y) == 'V' && x != start.getX()) {
+                Vector2F ogCur_node = new Vector2F((x - gridOffset) * 1000, (y - gridOffset) * 1000);
                 if (!doesIntersectRoom(new Line(ogCur_node, ogStart), room)) {
-                    edges.computeIfAbsent(new Vector2F(ogCur_node), k -> new ArrayList<>()).add(new Vector2F(ogStart));
+                    edges.computeIfAbsent(ogCur_node, k -> new ArrayList<>()).add(new Vector2F(ogStart));
                 }
-
             }
 
-            if (grid[cur_node.getY()+1][cur_node.getX()] != 'X' &&
-                    !v[cur_node.getY()+1][cur_node.getX()]) {
-                q.add(new Vector2F(cur_node.getX(), cur_node.getY() + 1));
-                v[cur_node.getY()+1][cur_node.getX()] = true;
-            }
-            if (grid[cur_node.getY()-1][cur_node.getX()] != 'X' &&
-                    !v[cur_node.getY()-1][cur_node.getX()]) {
-                q.add(new Vector2F(cur_node.getX(), cur_node.getY() - 1));
-                v[cur_node.getY()-1][cur_node.getX()] = true;
-            }
-            if (grid[cur_node.getY()][cur_node.getX() + 1] != 'X' &&
-                    !v[cur_node.getY()][cur_node.getX() + 1]) {
-                q.add(new Vector2F(cur_node.getX() + 1, cur_node.getY()));
-                v[cur_node.getY()][cur_node.getX() + 1] = true;
-            }
-            if (grid[cur_node.getY()][cur_node.getX() - 1] != 'X' &&
-                    !v[cur_node.getY()][cur_node.getX() - 1]) {
-                q.add(new Vector2F(cur_node.getX() - 1, cur_node.getY()));
-                v[cur_node.getY()][cur_node.getX() - 1] = true;
+            // Visit neighbours below, above, right and left
+            for (int dir = 0; dir < 4; dir++) {
+                int nx = x + (dir == 2 ? 1 : dir == 3 ? -1 : 0);
+                int ny = y + (dir == 0 ? 1 : dir == 1 ? -1 : 0);
+                if (getCell(nx, ny) == 'X') continue;
+                int index = (ny - windowTop) * windowSize + (nx - windowLeft);
+                if (visited.get(index)) continue;
+                visited.set(index);
+                queue[tail++] = index;
             }
         }
     }
@@ -254,25 +352,24 @@ public class NodeMap {
      * Fills a platform starting from a given position in the grid.
      * Adds nodes to the nodes list and marks corresponding positions in the grid.
      *
-     * @param start The starting position in the grid for platform filling.
-     * @param prev The previous position used for direction tracking.
-     * @param room The room object containing hitboxes to avoid intersections.
+     * @param startX The starting column in the grid for platform filling.
+     * @param y The row of the platform in the grid.
      */
-    private void fillPlatForm(Vector2F start, Vector2F prev, Room room) {
-        int curX = start.getX();
+    private void fillPlatForm(int startX, int y) {
+        int curX = startX;
         int dist = 0;
 
         // Traverse horizontally in the grid to fill platform
-        while (grid[start.getY() + 1][curX] == 'X' && !(grid[start.getY()][curX] == 'X')) {
+        while (getCell(curX, y + 1) == 'X' && !(getCell(curX, y) == 'X')) {
             if (dist % 10 == 0) {
                 // Add node to nodes list and mark position in the grid as visited
-                nodes.add(new Vector2F((curX - gridOffset) * 1000, (start.getY() - gridOffset) * 1000));
-                grid[start.getY()][curX] = 'V';
-            } else if (grid[start.getY() + 1][curX + 1] == 0 ||
-                    grid[start.getY()][curX + 1] == 'X') {
+                nodes.add(new Vector2F((curX - gridOffset) * 1000, (y - gridOffset) * 1000));
+                setCell(curX, y, 'V');
+            } else if (getCell(curX + 1, y + 1) == 0 ||
+                    getCell(curX + 1, y) == 'X') {
                 // Add node to nodes list and mark position in the grid as visited
-                nodes.add(new Vector2F((curX - gridOffset) * 1000, (start.getY() - gridOffset) * 1000));
-                grid[start.getY()][curX] = 'V';
+                nodes.add(new Vector2F((curX - gridOffset) * 1000, (y - gridOffset) * 1000));
+                setCell(curX, y, 'V');
             }
             dist++;
             curX++;
@@ -288,8 +385,9 @@ public class NodeMap {
      * @return true if the line intersects with any wall in the room, false otherwise.
      */
     private boolean doesIntersectRoom(Line line, Room room) {
+        Hitbox lineBox = new Hitbox(line.getStart(), line.getEnd());
         for (Hitbox wall : room.getHitbox().getHitboxes()) {
-            if (wall.quickIntersect(new Hitbox(line.getStart(), line.getEnd()))) {
+            if (wall.quickIntersect(lineBox)) {
                 if (line.doesIntersect(wall)) {
                     return true;
                 }
@@ -299,6 +397,31 @@ public class NodeMap {
     }
 
 
+    /**
+     * Writes the nodes, in the order they were built in, and the edge lists in room pack format.
+     *
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written to.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(nodes.size());
+        for (Vector2F node : nodes) {
+            out.writeInt(node.getX());
+            out.writeInt(node.getY());
+        }
+
+        out.writeInt(edges.size());
+        for (Map.Entry<Vector2F, ArrayList<Vector2F>> entry : edges.entrySet()) {
+            out.writeInt(entry.getKey().getX());
+            out.writeInt(entry.getKey().getY());
+            out.writeInt(entry.getValue().size());
+            for (Vector2F connected : entry.getValue()) {
+                out.writeInt(connected.getX());
+                out.writeInt(connected.getY());
+            }
+        }
+    }
+
     public Map<Vector2F, ArrayList<Vector2F>> getEdges() {
         return edges;
     }
@@ -319,15 +442,17 @@ public class NodeMap {
         return kdTree.findNearest(point);
     }
 
-    public char[][] getGrid() {
-        return grid;
-    }
+    public Room getRoom() { return room; }
 
-    public int getGridOffset() {
-        return gridOffset;
+    public NavGraph getNavGraph() {
+        if (navGraph == null) navGraph = new NavGraph(this);
+        return navGraph;
     }
 
-    public Room getRoom() { return room; }
+    public FlowField getFlowField() {
+        if (flowField == null) flowField = new FlowField(getNavGraph());
+        return flowField;
+    }
 
     public void drawNodes(Camera c) {
         for (Vector2F n : nodes) {
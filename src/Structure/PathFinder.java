@@ -0,0 +1,149 @@
+package Structure;
+
+import java.util.Arrays;
+
+/**
+ * Represents a reusable A* search over a NavGraph.
+ * The open list is a primitive binary heap, and visited nodes are marked with the number of the search instead
+ * of being cleared, so once its arrays have grown to the size of the graph a search does not allocate.
+ * A PathFinder keeps state between searches and must only be used by one thread at a time.
+ */
+public class PathFinder {
+    private final NodeHeap open = new NodeHeap();
+    private long[] cost = new long[0]; // Cheapest known cost from the start to each node
+    private int[] parent = new int[0]; // Previous node on that route
+    private int[] reached = new int[0]; // Search number in which each node was first reached
+    private int[] closed = new int[0]; // Search number in which each node was expanded
+    private int search = 0;
+    private long lastCost = -1;
+    private int lastExpanded = 0;
+
+    /**
+     * Finds the shortest path between two nodes.
+     *
+     * @param graph The graph to search
+     * @param start The id of the node to start from
+     * @param goal  The id of the node to reach
+     * @param path  The array to write the ids of the path into, from the start to the goal, which must be able to
+     *              hold every node of the graph
+     * @return The number of nodes in the path, or -1 if the goal cannot be reached
+     */
+    public int findPath(NavGraph graph, int start, int goal, int[] path) {
+        if (!search(graph, start, goal)) return -1;
+
+        int length = 0;
+        for (int node = goal; node != start; node = parent[node]) {
+            path[length++] = node;
+        }
+        path[length++] = start;
+        for (int i = 0, j = length - 1; i < j; i++, j--) {
+            int swap = path[i];
+            path[i] = path[j];
+            path[j] = swap;
+        }
+        return length;
+    }
+
+    /**
+     * Finds the first step of the shortest path between two nodes.
+     *
+     * @param graph The graph to search
+     * @param start The id of the node to start from
+     * @param goal  The id of the node to reach
+     * @return The id of the node after the start, the start itself if it is the goal, or -1 if the goal cannot be reached
+     */
+    public int findNextNode(NavGraph graph, int start, int goal) {
+        if (!search(graph, start, goal)) return -1;
+        int node = goal;
+        while (node != start && parent[node] != start) {
+            node = parent[node];
+        }
+        return node;
+    }
+
+    /**
+     * Runs an A* search from a start node until the goal is expanded, using the straight line distance as the estimate.
+     *
+     * @param graph The graph to search
+     * @param start The id of the node to start from
+     * @param goal  The id of the node to reach
+     * @return true if the goal was reached, false otherwise
+     */
+    private boolean search(NavGraph graph, int start, int goal) {
+        lastCost = -1;
+        lastExpanded = 0;
+        if (start < 0 || goal < 0) return false;
+        prepare(graph.getNodeCount());
+
+        open.clear();
+        cost[start] = 0;
+        parent[start] = start;
+        reached[start] = search;
+        open.add(start, graph.length(start, goal));
+        while (!open.isEmpty()) {
+            long estimate = open.peekCost();
+            int node = open.remove();
+            if (closed[node] == search) continue;
+            if (estimate - graph.length(node, goal) > cost[node]) continue; // Out of date entry
+            closed[node] = search;
+            lastExpanded++;
+            if (node == goal) {
+                lastCost = cost[node];
+                return true;
+            }
+
+            for (int e = graph.getEdgeStart(node); e < graph.getEdgeStart(node + 1); e++) {
+                int next = graph.getEdgeTarget(e);
+                if (closed[next] == search) continue;
+                long newCost = cost[node] + graph.getEdgeCost(e);
+                if (reached[next] != search || newCost < cost[next]) {
+                    reached[next] = search;
+                    cost[next] = newCost;
+                    parent[next] = node;
+                    open.add(next, newCost + graph.length(next, goal));
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Starts a new search, growing the arrays to the size of the graph if needed.
+     *
+     * @param nodeCount The number of nodes in the graph to search
+     */
+    private void prepare(int nodeCount) {
+        if (cost.length < nodeCount) {
+            int size = Math.max(nodeCount, cost.length * 2);
+            cost = new long[size];
+            parent = new int[size];
+            reached = new int[size];
+            closed = new int[size];
+            search = 0;
+        }
+        search++;
+        if (search == Integer.MAX_VALUE) { // Start the numbering again rather than let old marks match
+            Arrays.fill(reached, 0);
+            Arrays.fill(closed, 0);
+            search = 1;
+        }
+    }
+
+    /**
+     * Retrieves the cost of the path found by the last search.
+     *
+     * @return The cost of the path, or -1 if the last search found none
+     */
+    public long getLastCost() {
+        return lastCost;
+    }
+
+    /**
+     * Retrieves the number of nodes expanded by the last search.
+     *
+     * @return The number of expanded nodes
+     */
+    public int getLastExpanded() {
+        return lastExpanded;
+    }
+}
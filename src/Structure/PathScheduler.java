@@ -0,0 +1,298 @@
+package Structure;
+
+import java.util.PriorityQueue;
+
+/**
+ * Represents a queue of path requests shared by every enemy, worked through a little at a time.
+ * <p>
+ * Enemies submit requests instead of searching while they update, and the scheduler runs queued requests once per
+ * tick until its time budget is spent, nearest requests first. Requests left over wait for the next tick,
+ * so many enemies asking for a path on the same tick no longer make that tick slow.
+ * Results are delivered to each request's listener when the request runs, which is later in the tick
+ * or on a later tick than it was submitted.
+ * </p>
+ * <p>
+ * When a level graph is set and the point being routed to is in another room, requests are routed across rooms
+ * through the level graph, with one search in the enemy's own room towards the next portal.
+ * </p>
+ * A request that is still queued is updated in place when it is submitted again, and a request whose start and
+ * target nodes are the same as those of its last result is answered from that result without being queued.
+ * The scheduler is not thread safe and should be used from the simulation thread only.
+ */
+public class PathScheduler {
+    public static final long DEFAULT_BUDGET_MICROS = 1000;
+
+    /**
+     * Receives the results of path requests.
+     */
+    public interface Listener {
+        /**
+         * Called when a request has run. The result is read from the request.
+         *
+         * @param request The request that ran
+         */
+        void onPathFound(Request request);
+    }
+
+    /**
+     * Represents a request for the next node on the way from a start node to a target node.
+     * A request belongs to one requester and is reused for all of its searches.
+     * Nodes are in the node map's own coordinates, without its translate offset.
+     * The target node belongs to the target map, which is the request's own map unless it is routed across rooms.
+     */
+    public static class Request {
+        private final Listener listener;
+        private NodeMap map, targetMap;
+        private final Vector2F start = new Vector2F(), target = new Vector2F(), point = new Vector2F();
+        private long priority, sequence;
+        private boolean queued, hasResult;
+        private NodeMap resultMap, resultTargetMap;
+        private final Vector2F resultStart = new Vector2F(), resultTarget = new Vector2F();
+        private Vector2F nextNode;
+
+        /**
+         * Constructs a Request that reports its results to a listener.
+         *
+         * @param listener The listener to call when the request runs
+         */
+        public Request(Listener listener) {
+            this.listener = listener;
+        }
+
+        public NodeMap getMap() {
+            return resultMap;
+        }
+
+        public Vector2F getStart() {
+            return resultStart;
+        }
+
+        public Vector2F getTarget() {
+            return resultTarget;
+        }
+
+        /**
+         * Retrieves the next node found by the last run of the request.
+         *
+         * @return The next node, the start itself if it is the target, or null if the target cannot be reached
+         */
+        public Vector2F getNextNode() {
+            return nextNode;
+        }
+
+        /**
+         * Checks if the last run of the request found a route to the target.
+         *
+         * @return true if the target can be reached, false otherwise
+         */
+        public boolean isFound() {
+            return hasResult && nextNode != null;
+        }
+
+        public boolean isQueued() {
+            return queued;
+        }
+    }
+
+    private final PriorityQueue<Request> queue = new PriorityQueue<>((a, b) ->
+            a.priority != b.priority ? Long.compare(a.priority, b.priority) : Long.compare(a.sequence, b.sequence));
+    private final PathFinder pathFinder = new PathFinder();
+    private final Vector2F levelPoint = new Vector2F();
+    private LevelNavGraph levelGraph;
+    private NodeMap levelTarget; // Node map of the room the point being routed to is in
+    private long budgetNanos = DEFAULT_BUDGET_MICROS * 1000;
+    private long nextSequence = 0;
+    private long runCount = 0, coalescedCount = 0, deferredCount = 0;
+    private long lastProcessNanos = 0;
+
+    /**
+     * Submits a request for the next node from a start node towards the node nearest to a point.
+     * If the request is already queued it is updated instead of being queued twice,
+     * and if nothing changed since its last result it is not queued at all.
+     *
+     * @param request  The request to submit
+     * @param map      The node map to search
+     * @param start    The node to start from
+     * @param point    The point to route towards, usually the player's position
+     * @param priority The priority of the request, lower values run first, usually the squared distance to the player
+     * @return true if the request is waiting to run, false if its last result still holds
+     */
+    public boolean submit(Request request, NodeMap map, Vector2F start, Vector2F point, long priority) {
+        NodeMap targetMap = map;
+        Vector2F target;
+        if (levelGraph != null && levelTarget != null && levelTarget != map
+                && levelGraph.contains(map) && levelGraph.contains(levelTarget)) {
+            targetMap = levelTarget;
+            Vector2F offset = map.getTranslateOffset(), targetOffset = levelTarget.getTranslateOffset();
+            levelPoint.set(point.getX() + offset.getX() - targetOffset.getX(), point.getY() + offset.getY() - targetOffset.getY());
+            target = levelTarget.getNearestNode(levelPoint);
+        } else {
+            target = map.getNearestNode(point);
+        }
+        if (!request.queued && request.hasResult && request.resultMap == map && request.resultTargetMap == targetMap
+                && request.resultStart.equals(start) && request.resultTarget.equals(target)) {
+            coalescedCount++;
+            return false;
+        }
+
+        if (request.queued) {
+            coalescedCount++;
+            if (request.priority != priority) {
+                queue.remove(request);
+                request.queued = false;
+            }
+        }
+        request.map = map;
+        request.targetMap = targetMap;
+        request.start.copy(start);
+        request.target.copy(target);
+        request.point.copy(point);
+        if (!request.queued) {
+            request.priority = priority;
+            request.sequence = nextSequence++;
+            request.queued = true;
+            queue.add(request);
+        }
+        return true;
+    }
+
+    /**
+     * Removes a request from the queue if it is waiting to run.
+     *
+     * @param request The request to cancel
+     */
+    public void cancel(Request request) {
+        if (request.queued) {
+            queue.remove(request);
+            request.queued = false;
+        }
+    }
+
+    /**
+     * Runs queued requests, nearest first, until the queue is empty or the time budget is spent.
+     * At least one request runs on every call, so the queue always makes progress.
+     */
+    public void process() {
+        long start = System.nanoTime();
+        int ran = 0;
+        while (!queue.isEmpty()) {
+            if (budgetNanos > 0 && ran > 0 && System.nanoTime() - start >= budgetNanos) {
+                deferredCount += queue.size();
+                break;
+            }
+            Request request = queue.poll();
+            request.queued = false;
+            run(request);
+            ran++;
+            request.listener.onPathFound(request);
+        }
+        runCount += ran;
+        lastProcessNanos = System.nanoTime() - start;
+    }
+
+    /**
+     * Finds the next node of a request. Requests inside one room use the flow field of its node map,
+     * which is only searched again when the target node changes. Requests across rooms search the level graph
+     * for the next portal and then the room for the way to it, falling back to the flow field if there is no route.
+     *
+     * @param request The request to run
+     */
+    private void run(Request request) {
+        request.nextNode = null;
+        Vector2F waypoint = null;
+        if (request.targetMap != request.map && levelGraph != null) {
+            waypoint = levelGraph.findWaypoint(request.map, request.start, request.targetMap, request.target);
+        }
+
+        if (waypoint != null) {
+            NavGraph graph = request.map.getNavGraph();
+            int next = graph.getId(waypoint) == -1 ? -1
+                    : pathFinder.findNextNode(graph, graph.getId(request.start), graph.getId(waypoint));
+            request.nextNode = graph.getId(waypoint) == -1 ? waypoint : (next == -1 ? null : graph.getNode(next));
+        } else {
+            FlowField flowField = request.map.getFlowField();
+            flowField.setTarget(request.targetMap == request.map ? request.target : request.map.getNearestNode(request.point));
+            request.nextNode = flowField.getNextNode(request.start);
+        }
+        request.resultMap = request.map;
+        request.resultTargetMap = request.targetMap;
+        request.resultStart.copy(request.start);
+        request.resultTarget.copy(request.target);
+        request.hasResult = true;
+    }
+
+    /**
+     * Sets the level graph used to route requests across rooms and the room the point being routed to is in.
+     * Requests from that room, or from rooms outside the level graph, stay inside their own room.
+     *
+     * @param levelGraph The level graph, or null to keep every request inside its own room
+     * @param target     The node map of the room the point being routed to is in, or null if it is unknown
+     */
+    public void setLevel(LevelNavGraph levelGraph, NodeMap target) {
+        this.levelGraph = levelGraph;
+        this.levelTarget = target;
+    }
+
+    /**
+     * Removes every queued request, for example when a new level replaces the rooms they search.
+     */
+    public void clear() {
+        for (Request request : queue) {
+            request.queued = false;
+        }
+        queue.clear();
+    }
+
+    /**
+     * Changes the time the scheduler may spend running requests every tick.
+     *
+     * @param micros The budget in microseconds, or 0 to run every queued request each tick
+     */
+    public void setBudgetMicros(long micros) {
+        budgetNanos = Math.max(0, micros) * 1000;
+    }
+
+    public long getBudgetMicros() {
+        return budgetNanos / 1000;
+    }
+
+    public int getQueuedCount() {
+        return queue.size();
+    }
+
+    /**
+     * Retrieves the number of requests run since the scheduler was created.
+     *
+     * @return The number of requests run
+     */
+    public long getRunCount() {
+        return runCount;
+    }
+
+    /**
+     * Retrieves the number of submissions merged into a queued request or answered by a previous result.
+     *
+     * @return The number of coalesced submissions
+     */
+    public long getCoalescedCount() {
+        return coalescedCount;
+    }
+
+    /**
+     * Retrieves the total number of requests left waiting at the end of a tick because the budget was spent.
+     *
+     * @return The number of deferred requests, counted once for every tick they waited
+     */
+    public long getDeferredCount() {
+        return deferredCount;
+    }
+
+    /**
+     * Retrieves the time the last call to process took.
+     *
+     * @return The time in nanoseconds
+     */
+    public long getLastProcessNanos() {
+        return lastProcessNanos;
+    }
+}
@@ -13,11 +13,15 @@ import RoomEditor.Entrance;
 import RoomEditor.LevelPortal;
 import RoomEditor.Spawn;
 import Universal.Camera;
+import Universal.AssetCache;
+import Universal.GameRandom;
+import Universal.SharedEffects;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.io.DataOutputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Objects;
 import java.util.Scanner;
@@ -29,6 +33,7 @@ import java.util.Scanner;
 public class Room {
     private static int numberOfUniqueRooms = 0;
     private boolean visited = false, revealed = false, cleared = true;
+    private boolean populated = false; // Whether the items, chests and enemies of the spawn points were added
     private Vector2F center = new Vector2F(), drawLocation = new Vector2F();
     private HitboxGroup walls = new HitboxGroup(), entranceHitboxes = new HitboxGroup();
     private ArrayList<Entrance> entrances = new ArrayList<>();
@@ -43,11 +48,22 @@ public class Room {
     private ArrayList<Spawn> bossSpawns = new ArrayList<>();
     private ArrayList<Enemy> enemies = new ArrayList<>();
     private BufferedImage background;
-    private int roomID, setNumber;
+    private int roomID, setNumber, fileNumber;
     private EnemyManager enemyManager = new EnemyManager();
 
+    /**
+     * The items, chests and enemies made from a room's spawn points, before they are added to the room.
+     */
+    public static class Population {
+        private final ArrayList<ItemPickup> items = new ArrayList<>();
+        private final ArrayList<Chest> chests = new ArrayList<>();
+        private final ArrayList<Enemy> enemies = new ArrayList<>();
+    }
+
     /**
      * Constructs a new Room by copying another Room's properties.
+     * Walls and entrances are copied since they move with the room, while spawn points are relative to the room
+     * and are shared with the original.
      * @param copy The Room to copy.
      */
     public Room(Room copy) {
@@ -60,26 +76,17 @@ public class Room {
             copyEntrance.setParent(this);
             entrances.add(copyEntrance);
         }
-        for (Spawn spawn: copy.playerSpawns) {
-            playerSpawns.add(new Spawn(spawn));
-        }
-        for (Spawn spawn: copy.enemySpawns) {
-            enemySpawns.add(new Spawn(spawn));
-        }
-        for (Spawn spawn: copy.itemSpawns) {
-            itemSpawns.add(new Spawn(spawn));
-        }
-        for (Spawn spawn: copy.chestSpawns) {
-            chestSpawns.add(new Spawn(spawn));
-        }
-        for (Spawn spawn: copy.bossSpawns) {
-            bossSpawns.add(new Spawn(spawn));
-        }
+        playerSpawns = copy.playerSpawns;
+        enemySpawns = copy.enemySpawns;
+        itemSpawns = copy.itemSpawns;
+        chestSpawns = copy.chestSpawns;
+        bossSpawns = copy.bossSpawns;
         nodeMap = new NodeMap(copy.nodeMap); // copy by reference except for translate vector
         roomID = copy.roomID;
         visited = copy.visited;
         background = copy.background;
         setNumber = copy.setNumber;
+        fileNumber = copy.fileNumber;
         cleared = enemies.isEmpty();
         walls.setColour(!visited ? Color.YELLOW : (enemies.isEmpty() ? Color.GREEN : Color.RED));
     }
@@ -94,12 +101,9 @@ public class Room {
     public Room(String filePath, int setNumber, int fileNumber) throws IOException {
         numberOfUniqueRooms++;
         this.setNumber = setNumber;
+        this.fileNumber = fileNumber;
         Scanner in = new Scanner(Objects.requireNonNull(getClass().getResourceAsStream(filePath + "/room" + fileNumber + ".txt")));
-        try {
-            background = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/set" + setNumber + "/background" + fileNumber + ".png")));
-        } catch (IOException | NullPointerException e) {
-            // Handle missing background image
-        }
+        loadBackground();
 
         // Load walls and entrances from file
         int nHiboxes = Integer.parseInt(in.nextLine());
@@ -183,6 +187,120 @@ public class Room {
         walls.setColour(!visited ? Color.YELLOW : (enemies.isEmpty() ? Color.GREEN : Color.RED));
     }
 
+    /**
+     * Constructs a new Room from a precompiled room pack, skipping text parsing and node map generation.
+     * The layout of the data matches {@link #writeTo(DataOutputStream)}.
+     * @param setNumber The set number for room assets.
+     * @param data The pack buffer, positioned at the start of this room's record.
+     */
+    Room(int setNumber, ByteBuffer data) {
+        numberOfUniqueRooms++;
+        this.setNumber = setNumber;
+        fileNumber = data.getInt();
+        loadBackground();
+
+        // Load walls
+        int nHitboxes = data.getInt();
+        for (int i = 0; i < nHitboxes; i++) {
+            walls.addHitbox(new Hitbox(data.getInt(), data.getInt(), data.getInt(), data.getInt(), Color.RED));
+        }
+
+        // Load entrances
+        int nEntrances = data.getInt();
+        for (int i = 0; i < nEntrances; i++) {
+            Vector2F location = new Vector2F(data.getInt(), data.getInt());
+            Vector2F connection = new Vector2F(data.getInt(), data.getInt());
+            Entrance newEntrance = new Entrance(location, connection);
+            newEntrance.setParent(this);
+            entrances.add(newEntrance);
+            entranceHitboxes.addHitbox(new Hitbox(newEntrance.getHitbox()));
+        }
+
+        readSpawns(data, playerSpawns, Spawn.SpawnType.PLAYER);
+        readSpawns(data, itemSpawns, Spawn.SpawnType.ITEM);
+        readSpawns(data, enemySpawns, Spawn.SpawnType.ENEMY);
+        readSpawns(data, chestSpawns, Spawn.SpawnType.CHEST);
+        readSpawns(data, bossSpawns, Spawn.SpawnType.BOSS);
+
+        nodeMap = new NodeMap(this, data);
+
+        roomID = numberOfUniqueRooms;
+        cleared = enemies.isEmpty();
+        walls.setColour(!visited ? Color.YELLOW : (enemies.isEmpty() ? Color.GREEN : Color.RED));
+    }
+
+    /**
+     * Writes the room's walls, entrances, spawns and node map in room pack format.
+     * The room must not have been moved since it was loaded.
+     * @param out The stream to write to.
+     * @throws IOException If the stream cannot be written to.
+     */
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(fileNumber);
+
+        out.writeInt(walls.getHitboxes().size());
+        for (Hitbox h: walls.getHitboxes()) {
+            out.writeInt(h.getLeft());
+            out.writeInt(h.getTop());
+            out.writeInt(h.getRight());
+            out.writeInt(h.getBottom());
+        }
+
+        out.writeInt(entrances.size());
+        for (Entrance e: entrances) {
+            out.writeInt(e.getLocation().getX());
+            out.writeInt(e.getLocation().getY());
+            out.writeInt(e.getConnection().getX());
+            out.writeInt(e.getConnection().getY());
+        }
+
+        writeSpawns(out, playerSpawns);
+        writeSpawns(out, itemSpawns);
+        writeSpawns(out, enemySpawns);
+        writeSpawns(out, chestSpawns);
+        writeSpawns(out, bossSpawns);
+
+        nodeMap.writeTo(out);
+    }
+
+    /**
+     * Reads a count-prefixed list of spawn points from a room pack.
+     * @param data The pack buffer.
+     * @param spawns The list to add the spawns to.
+     * @param type The type of the spawns being read.
+     */
+    private static void readSpawns(ByteBuffer data, ArrayList<Spawn> spawns, Spawn.SpawnType type) {
+        int nSpawns = data.getInt();
+        for (int i = 0; i < nSpawns; i++) {
+            spawns.add(new Spawn(data.getInt(), data.getInt(), type));
+        }
+    }
+
+    /**
+     * Writes a count-prefixed list of spawn points in room pack format.
+     * @param out The stream to write to.
+     * @param spawns The spawns to write.
+     * @throws IOException If the stream cannot be written to.
+     */
+    private static void writeSpawns(DataOutputStream out, ArrayList<Spawn> spawns) throws IOException {
+        out.writeInt(spawns.size());
+        for (Spawn spawn: spawns) {
+            out.writeInt(spawn.getX());
+            out.writeInt(spawn.getY());
+        }
+    }
+
+    /**
+     * Loads the background image for this room's set and file number, if one exists.
+     */
+    private void loadBackground() {
+        try {
+            background = AssetCache.getImage("/set" + setNumber + "/background" + fileNumber + ".png");
+        } catch (IOException e) {
+            // Handle missing background image
+        }
+    }
+
     /**
      * Returns the center of the room relative to its walls.
      * @return The center of the room relative to its walls.
@@ -244,34 +362,72 @@ public class Room {
      * Sets up the room by spawning items, chests, and enemies based on spawn points.
      */
     public void setupRoom() {
+        populate(createPopulation());
+    }
+
+    /**
+     * Makes the items, chests, and enemies of the room's spawn points without adding them to the room.
+     * Only the room's spawn points and position are read, so this can run on another thread while the room is in use,
+     * as long as the room has not been moved.
+     * @return The items, chests, and enemies of the room.
+     */
+    public Population createPopulation() {
+        Population population = new Population();
+        Vector2F topLeft = getTopLeft();
         for (Spawn i: itemSpawns) {
-            addItemPickup(new ItemPickup(getTopLeft().getTranslated(i.getLocation()).getTranslated(new Vector2F(0, -1))));
+            population.items.add(new ItemPickup(topLeft.getTranslated(i.getLocation()).getTranslated(new Vector2F(0, -1))));
         }
 
         for (Spawn chest: chestSpawns) {
-            addChest(new Chest(getTopLeft().getTranslated(chest.getLocation())));
+            population.chests.add(new Chest(topLeft.getTranslated(chest.getLocation())));
         }
 
         for (Spawn enemy: enemySpawns) {
-            enemies.add(enemyManager.createEnemy(getTopLeft().getTranslated(enemy.getLocation()).getX(), getTopLeft().getTranslated(enemy.getLocation()).getY()));
+            population.enemies.add(enemyManager.createEnemy(topLeft.getTranslated(enemy.getLocation()).getX(), topLeft.getTranslated(enemy.getLocation()).getY()));
         }
 
         for (Spawn boss: bossSpawns) {
-            enemies.add(enemyManager.createBoss(getTopLeft().getTranslated(boss.getLocation()).getX(), getTopLeft().getTranslated(boss.getLocation()).getY()));
+            population.enemies.add(enemyManager.createBoss(topLeft.getTranslated(boss.getLocation()).getX(), topLeft.getTranslated(boss.getLocation()).getY()));
+        }
+        return population;
+    }
+
+    /**
+     * Adds the items, chests, and enemies made from the room's spawn points to the room.
+     * @param population The items, chests, and enemies, made by {@link #createPopulation()}.
+     */
+    public void populate(Population population) {
+        for (ItemPickup item: population.items) {
+            addItemPickup(item);
+        }
+
+        for (Chest chest: population.chests) {
+            addChest(chest);
         }
 
+        enemies.addAll(population.enemies);
+        populated = true;
+
         if (enemies.isEmpty() != cleared) {
             walls.setColour(!visited ? Color.YELLOW : (enemies.isEmpty() ? Color.GREEN : Color.RED));
             cleared = enemies.isEmpty();
         }
     }
 
+    /**
+     * Checks if the items, chests, and enemies of the room's spawn points were added to the room.
+     * @return True if the room was populated, false otherwise.
+     */
+    public boolean isPopulated() {
+        return populated;
+    }
+
     /**
      * Spawns the player character at a random spawn point within the room.
      * @param p The player character object.
      */
     public void spawnPlayer(Player p) {
-        Spawn spawn = playerSpawns.get((int) (Math.random() * playerSpawns.size()));
+        Spawn spawn = playerSpawns.get((int) (GameRandom.spawns().nextDouble() * playerSpawns.size()));
         p.setLocation(getTopLeft().getTranslated(spawn.getLocation()).getTranslated(new Vector2F(-p.getWidth() / 2, -p.getHeight() * 9 / 10)));
     }
 
@@ -292,15 +448,15 @@ public class Room {
      */
     public void drawEntities(Camera c) {
         for (ItemPickup item: groundedItems) {
-            item.paint(c);
+            c.paintEntity(item);
         }
 
         for (Chest chest: chests) {
-            chest.paint(c);
+            c.paintEntity(chest);
         }
 
         for (LevelPortal portal: levelPortals) {
-            portal.paint(c);
+            c.paintEntity(portal);
         }
 
         nodeMap.drawNodes(c);
@@ -311,6 +467,15 @@ public class Room {
      * @param player The player character object.
      */
     public void updateValues(Player player) {
+        updateValues(player, null);
+    }
+
+    /**
+     * Updates values of items, chests, portals, and enemies within the room.
+     * @param player The player character object.
+     * @param pathScheduler The scheduler enemies hand their path searches to, or null to search straight away.
+     */
+    public void updateValues(Player player, PathScheduler pathScheduler) {
         for (ItemPickup item: groundedItems) {
             item.updateValues(player);
         }
@@ -323,17 +488,24 @@ public class Room {
             portal.updateValues();
         }
 
-        ArrayList<Enemy> toAdd = new ArrayList<>();
+        ArrayList<Vector2F> toAdd = new ArrayList<>();
         for (Enemy e : enemies) {
-            e.updatePlayerInfo(player);
-            if (e.isPlayerNear()) {
+            e.updateSimulationTier(player);
+            if (e.isSimulated()) {
+                e.updatePlayerInfo(player);
                 if (e instanceof SummonerBossEnemy && e.shouldAddEnemy()) {
-                    toAdd.add(new FlyingEnemy(e.getCenterVector().getX(), e.getCenterVector().getY(), 50));
+                    toAdd.add(e.getCenterVector());
                 }
-                e.updateValues(nodeMap, player);
+                if (pathScheduler == null) e.updateValues(nodeMap, player);
+                else e.updateValues(nodeMap, player, pathScheduler);
             }
         }
-        enemies.addAll(toAdd);
+        if (toAdd.isEmpty()) return;
+        SharedEffects.apply(() -> { // New enemies are numbered in the order they are created
+            for (Vector2F location : toAdd) {
+                enemies.add(new FlyingEnemy(location.getX(), location.getY(), 50));
+            }
+        });
     }
 
     /**
@@ -354,33 +526,38 @@ public class Room {
         }
 
         for (Enemy e : enemies) {
-            if (!e.isPlayerNear()) continue;
+            if (!e.isSimulated()) continue;
             e.resolveRoomCollisions(loadedRooms);
         }
     }
 
     /**
-     * Resolves collisions between the player and items, chests, portals, and enemies within the room.
-     * @param player The player character object.
+     * Adds the items, chests, portals, and enemies near the player within the room to the entities the player can collide with.
+     * Enemies in the reduced tier are added every tick, not only on the ticks they are updated, so the player's hits
+     * and contacts never pass through them. Chests and portals stop touching the player until the player's collisions
+     * are resolved again.
+     * @param entities The entities of the loaded rooms, indexed by their last movement.
      */
-    public void resolvePlayerCollisions(Player player) {
+    public void addPlayerContacts(SpatialHash<Entity> entities) {
         for (ItemPickup item: groundedItems) {
-            player.resolveEntityCollision(item);
+            entities.insert(item, item.getLastMovement());
         }
 
         for (Chest chest: chests) {
-            player.resolveEntityCollision(chest);
+            chest.setCollidingWithPlayer(false);
+            entities.insert(chest, chest.getLastMovement());
         }
 
         for (LevelPortal portal: levelPortals) {
-            player.resolveEntityCollision(portal);
+            portal.setCollidingWithPlayer(false);
+            entities.insert(portal, portal.getLastMovement());
         }
 
         for (Enemy e : enemies) {
             if (!e.isPlayerNear()) {
                 continue;
             }
-            player.resolveEntityCollision(e);
+            entities.insert(e, e.getLastMovement());
         }
     }
 
@@ -409,7 +586,7 @@ public class Room {
         }
 
         for (Enemy e : enemies) {
-            if (!e.isPlayerNear()) continue;
+            if (!e.isSimulated()) continue;
             e.updateData();
         }
     }
@@ -420,10 +597,10 @@ public class Room {
      */
     public void updateEnemies(ActionManager am) {
         for (Enemy e : enemies) {
-            if (!e.isPlayerNear()) continue;
+            if (!e.isSimulated()) continue;
             if (e.getToDelete()) {
                 ItemPickup newItem = new ItemPickup(e.getCenterVector());
-                newItem.setActualVX((int) (Math.random() * 4000 - 2000));
+                newItem.setActualVX((int) (GameRandom.loot().nextDouble() * 4000 - 2000));
                 newItem.setActualVY((int) (-2000));
                 addItemPickup(newItem);
 
@@ -444,7 +621,9 @@ public class Room {
         for (Entrance e: entrances) {
             if (e.isConnected()) continue;
             e.getHitbox().setColour(Color.GREEN);
-            walls.addHitbox(new Hitbox(e.getHitbox()));
+            Hitbox seal = new Hitbox(e.getHitbox());
+            seal.translateInPlace(new Vector2F(-walls.getOffsetX(), -walls.getOffsetY())); // Walls are kept in room space
+            walls.addHitbox(seal);
         }
     }
 
@@ -604,6 +783,15 @@ public class Room {
         return walls.getCenter();
     }
 
+    /**
+     * Writes the absolute center of the room into a vector, without allocating.
+     * @param dst The vector to write the center into.
+     * @return The destination vector.
+     */
+    public Vector2F getAbsoluteCenter(Vector2F dst) {
+        return walls.getCenter(dst);
+    }
+
     /**
      * Retrieves the node map associated with the room.
      * @return The node map associated with the room.
@@ -628,6 +816,38 @@ public class Room {
         return playerSpawns;
     }
 
+    /**
+     * Retrieves a list of item spawns in the room.
+     * @return The list of item spawns in the room.
+     */
+    public ArrayList<Spawn> getItemSpawns() {
+        return itemSpawns;
+    }
+
+    /**
+     * Retrieves a list of chest spawns in the room.
+     * @return The list of chest spawns in the room.
+     */
+    public ArrayList<Spawn> getChestSpawns() {
+        return chestSpawns;
+    }
+
+    /**
+     * Retrieves a list of boss spawns in the room.
+     * @return The list of boss spawns in the room.
+     */
+    public ArrayList<Spawn> getBossSpawns() {
+        return bossSpawns;
+    }
+
+    /**
+     * Retrieves the number of the file this room was loaded from.
+     * @return The room's file number within its set.
+     */
+    public int getFileNumber() {
+        return fileNumber;
+    }
+
     /**
      * Retrieves a list of enemies currently in the room.
      * @return The list of enemies currently in the room.
@@ -681,7 +901,19 @@ public class Room {
      * @return True if there is an intersection, false otherwise.
      */
     public boolean intersects(Room other, boolean equality) {
-        return walls.intersects(other.walls, equality) || walls.intersects(other.entranceHitboxes, equality) || entranceHitboxes.intersects(other.walls, equality) || entranceHitboxes.intersects(other.entranceHitboxes, equality);
+        return intersects(other, 0, 0, equality);
+    }
+
+    /**
+     * Checks if the room would intersect with another room if it were moved by an offset, without moving it.
+     * @param other The other room to check intersection with.
+     * @param dx The horizontal offset to test the room at.
+     * @param dy The vertical offset to test the room at.
+     * @param equality Whether to consider equality in the intersection check.
+     * @return True if there would be an intersection, false otherwise.
+     */
+    public boolean intersects(Room other, int dx, int dy, boolean equality) {
+        return walls.intersects(other.walls, dx, dy, equality) || walls.intersects(other.entranceHitboxes, dx, dy, equality) || entranceHitboxes.intersects(other.walls, dx, dy, equality) || entranceHitboxes.intersects(other.entranceHitboxes, dx, dy, equality);
     }
 
     /**
@@ -693,7 +925,12 @@ public class Room {
         return "ROOM ID: " + getRoomID() + super.toString();
     }
 
+    /**
+     * Checks if the room has no enemies left. A room that is not populated yet counts its enemy and boss spawns.
+     * @return True if the room has no enemies, false otherwise.
+     */
     public boolean getCleared() {
+        if (!populated) return enemySpawns.isEmpty() && bossSpawns.isEmpty();
         return cleared;
     }
 }
@@ -0,0 +1,124 @@
+package Structure;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.zip.CRC32;
+
+/**
+ * Reads and writes room packs, a compact binary form of a whole room set.
+ * A pack holds every room's walls, entrances, spawns and prebuilt node map so a set can be loaded
+ * without parsing the text files or flooding each room's grid again.
+ * Packs are produced offline by {@link RoomEditor.RoomPackCompiler}, and record a checksum of the text files they were
+ * compiled from so that a pack is not used once its rooms have been edited.
+ */
+public class RoomPack {
+    private static final int MAGIC = 0x444B5250; // "DKRP"
+    private static final int VERSION = 2;
+
+    /**
+     * Returns the resource path of the pack for a room set.
+     *
+     * @param setNumber The set number.
+     * @return The resource path of the set's pack.
+     */
+    public static String getResourcePath(int setNumber) {
+        return "/Rooms/Set" + setNumber + "/rooms.pack";
+    }
+
+    /**
+     * Loads every room in a set from its pack.
+     * When the pack is a plain file it is memory-mapped, otherwise (for example inside a jar) it is read into memory.
+     *
+     * @param setNumber The set number to load.
+     * @param numberOfRooms The number of room files in the set.
+     * @return The rooms of the set, or null if the set has no pack or the pack is out of date.
+     * @throws IOException If the pack exists but cannot be read.
+     */
+    public static ArrayList<Room> load(int setNumber, int numberOfRooms) throws IOException {
+        URL url = RoomPack.class.getResource(getResourcePath(setNumber));
+        if (url == null) return null;
+
+        ByteBuffer data;
+        if ("file".equals(url.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Paths.get(url.toURI()), StandardOpenOption.READ)) {
+                data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (URISyntaxException e) {
+                throw new IOException(e);
+            }
+        } else {
+            try (InputStream in = url.openStream()) {
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    bytes.write(buffer, 0, read);
+                }
+                data = ByteBuffer.wrap(bytes.toByteArray());
+            }
+        }
+
+        if (data.getInt() != MAGIC || data.getInt() != VERSION || data.getInt() != setNumber
+                || data.getLong() != checksum(setNumber, numberOfRooms)) {
+            System.out.println("Room pack for set " + setNumber + " is out of date, loading from text files");
+            return null;
+        }
+
+        int nRooms = data.getInt();
+        ArrayList<Room> rooms = new ArrayList<>(nRooms);
+        for (int i = 0; i < nRooms; i++) {
+            rooms.add(new Room(setNumber, data));
+        }
+        return rooms;
+    }
+
+    /**
+     * Writes a set of freshly loaded rooms to a pack file.
+     *
+     * @param setNumber The set number the rooms belong to.
+     * @param rooms The rooms to write, in the order they should be loaded.
+     * @param file The pack file to create or overwrite.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(int setNumber, ArrayList<Room> rooms, File file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(setNumber);
+            out.writeLong(checksum(setNumber, rooms.size()));
+            out.writeInt(rooms.size());
+            for (Room r : rooms) {
+                r.writeTo(out);
+            }
+        }
+    }
+
+    /**
+     * Computes a checksum of the text files of a room set, which changes whenever a room is edited, added or removed.
+     *
+     * @param setNumber The set number.
+     * @param numberOfRooms The number of room files in the set.
+     * @return The checksum of the set's room files.
+     * @throws IOException If a room file cannot be read.
+     */
+    private static long checksum(int setNumber, int numberOfRooms) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[8192];
+        for (int i = 1; i <= numberOfRooms; i++) {
+            crc.update(i);
+            try (InputStream in = RoomPack.class.getResourceAsStream("/Rooms/Set" + setNumber + "/room" + i + ".txt")) {
+                if (in == null) continue;
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    crc.update(buffer, 0, read);
+                }
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,343 @@
+package Structure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Represents a uniform grid that buckets items by the area they swept during their last movement.
+ * The hash is meant to be cleared and refilled once per frame and then queried with another area,
+ * so that only the items near that area go through the full shape intersection check.
+ *
+ * @param <T> The type of item stored in the hash
+ */
+public class SpatialHash<T> {
+    public static final int DEFAULT_CELL_SIZE = 4000; // Four grid cells, a little larger than most entities
+    private static final int MAX_KEPT_CELLS = 4096; // Cells kept between frames before the table is emptied
+
+    private final int cellSize;
+    private long[] keys = new long[64]; // Open addressing table of cell coordinates
+    private Cell[] cells = new Cell[64];
+    private int cellCount = 0;
+    private int generation = 1; // Cells from an older generation are treated as empty
+
+    private final ArrayList<T> items = new ArrayList<>();
+    private int[] bounds = new int[64]; // Left, top, right and bottom of every item
+    private int[] marks = new int[16]; // Query stamp of every item, so items spanning several cells are reported once
+    private int[] found = new int[16]; // Items found by the current query
+    private int foundCount = 0;
+    private final int[] queryBounds = new int[4];
+    private int queryStamp = 0;
+
+    /**
+     * Constructs an empty SpatialHash with the default cell size.
+     */
+    public SpatialHash() {
+        this(DEFAULT_CELL_SIZE);
+    }
+
+    /**
+     * Constructs an empty SpatialHash.
+     *
+     * @param cellSize The width and height of every cell
+     */
+    public SpatialHash(int cellSize) {
+        if (cellSize <= 0) throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+        this.cellSize = cellSize;
+    }
+
+    /**
+     * Removes every item from the hash. The cell storage is reused by the next frame.
+     */
+    public void clear() {
+        items.clear();
+        generation++;
+        if (cellCount > MAX_KEPT_CELLS) {
+            keys = new long[64];
+            cells = new Cell[64];
+            cellCount = 0;
+        }
+    }
+
+    /**
+     * Retrieves the number of items in the hash.
+     *
+     * @return The number of items
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Adds an item covering the area of a group of hitboxes.
+     * Items with an empty group cannot collide with anything and are not added.
+     *
+     * @param item The item to add
+     * @param area The hitboxes covered by the item, usually its last movement
+     */
+    public void insert(T item, HitboxGroup area) {
+        if (area.getHitboxes().isEmpty()) return;
+
+        int index = items.size();
+        items.add(item);
+        if (bounds.length < (index + 1) * 4) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        storeBounds(area, bounds, index * 4);
+        addToCells(index);
+    }
+
+    /**
+     * Adds an item covering the rectangle enclosing a hitbox.
+     *
+     * @param item The item to add
+     * @param area The hitbox covered by the item, for example the bounding box of a room
+     */
+    public void insert(T item, Hitbox area) {
+        int index = items.size();
+        items.add(item);
+        if (bounds.length < (index + 1) * 4) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+        storeBounds(area, bounds, index * 4);
+        addToCells(index);
+    }
+
+    /**
+     * Adds an item that is already stored to every cell its bounds touch.
+     *
+     * @param index The index of the item
+     */
+    private void addToCells(int index) {
+        int left = Math.floorDiv(bounds[index * 4], cellSize), right = Math.floorDiv(bounds[index * 4 + 2], cellSize);
+        int top = Math.floorDiv(bounds[index * 4 + 1], cellSize), bottom = Math.floorDiv(bounds[index * 4 + 3], cellSize);
+        for (int x = left; x <= right; x++) {
+            for (int y = top; y <= bottom; y++) {
+                getCell(x, y).add(index);
+            }
+        }
+    }
+
+    /**
+     * Finds the items whose area overlaps the area of a group of hitboxes, edges included.
+     * Items are returned in the order they were inserted.
+     *
+     * @param area   The hitboxes to search around
+     * @param result The list to fill, which is cleared first
+     * @return The result list
+     */
+    public ArrayList<T> query(HitboxGroup area, ArrayList<T> result) {
+        startQuery();
+        addToQuery(area);
+        return finishQuery(result);
+    }
+
+    /**
+     * Finds the items whose area overlaps the rectangle enclosing a hitbox, edges included.
+     * Items are returned in the order they were inserted.
+     *
+     * @param area   The hitbox to search around
+     * @param result The list to fill, which is cleared first
+     * @return The result list
+     */
+    public ArrayList<T> query(Hitbox area, ArrayList<T> result) {
+        startQuery();
+        addToQuery(area);
+        return finishQuery(result);
+    }
+
+    /**
+     * Starts a query around several areas. Each area is added with addToQuery, and the items that overlap
+     * any of them are collected by finishQuery, once each and in the order they were inserted.
+     */
+    public void startQuery() {
+        if (marks.length < items.size()) marks = new int[Math.max(items.size(), marks.length * 2)];
+        queryStamp++;
+        foundCount = 0;
+    }
+
+    /**
+     * Adds the area of a group of hitboxes to the current query.
+     *
+     * @param area The hitboxes to search around
+     */
+    public void addToQuery(HitboxGroup area) {
+        if (items.isEmpty() || area.getHitboxes().isEmpty()) return;
+        storeBounds(area, queryBounds, 0);
+        search();
+    }
+
+    /**
+     * Adds the rectangle enclosing a hitbox to the current query.
+     *
+     * @param area The hitbox to search around
+     */
+    public void addToQuery(Hitbox area) {
+        if (items.isEmpty()) return;
+        storeBounds(area, queryBounds, 0);
+        search();
+    }
+
+    /**
+     * Retrieves the items found by the current query.
+     *
+     * @param result The list to fill, which is cleared first
+     * @return The result list
+     */
+    public ArrayList<T> finishQuery(ArrayList<T> result) {
+        result.clear();
+        Arrays.sort(found, 0, foundCount);
+        for (int i = 0; i < foundCount; i++) {
+            result.add(items.get(found[i]));
+        }
+        return result;
+    }
+
+    /**
+     * Adds the items whose area overlaps the stored query bounds to the found items,
+     * skipping items already found by the current query.
+     */
+    private void search() {
+        int left = Math.floorDiv(queryBounds[0], cellSize), right = Math.floorDiv(queryBounds[2], cellSize);
+        int top = Math.floorDiv(queryBounds[1], cellSize), bottom = Math.floorDiv(queryBounds[3], cellSize);
+        for (int x = left; x <= right; x++) {
+            for (int y = top; y <= bottom; y++) {
+                Cell cell = findCell(x, y);
+                if (cell == null || cell.generation != generation) continue;
+                for (int i = 0; i < cell.size; i++) {
+                    int index = cell.indices[i];
+                    if (marks[index] == queryStamp || !overlaps(index, queryBounds)) continue;
+                    marks[index] = queryStamp;
+                    if (foundCount == found.length) found = Arrays.copyOf(found, found.length * 2);
+                    found[foundCount++] = index;
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if the stored bounds of an item overlap a rectangle, edges included.
+     *
+     * @param index The index of the item
+     * @param other The left, top, right and bottom of the rectangle
+     * @return true if they overlap, otherwise false
+     */
+    private boolean overlaps(int index, int[] other) {
+        int i = index * 4;
+        return !(other[0] > bounds[i + 2] || other[2] < bounds[i] || other[1] > bounds[i + 3] || other[3] < bounds[i + 1]);
+    }
+
+    /**
+     * Writes the rectangle enclosing every hitbox of a group into an array.
+     * The group's own bounding box is not used since it always grows from the origin.
+     *
+     * @param area   The hitboxes to enclose
+     * @param target The array to write the left, top, right and bottom into
+     * @param offset The position in the array to start writing at
+     */
+    private static void storeBounds(HitboxGroup area, int[] target, int offset) {
+        int left = Integer.MAX_VALUE, top = Integer.MAX_VALUE, right = Integer.MIN_VALUE, bottom = Integer.MIN_VALUE;
+        for (Hitbox h : area.getHitboxes()) {
+            left = Math.min(left, h.getLeft());
+            top = Math.min(top, h.getTop());
+            right = Math.max(right, h.getRight());
+            bottom = Math.max(bottom, h.getBottom());
+        }
+        target[offset] = left + area.getOffsetX();
+        target[offset + 1] = top + area.getOffsetY();
+        target[offset + 2] = right + area.getOffsetX();
+        target[offset + 3] = bottom + area.getOffsetY();
+    }
+
+    /**
+     * Writes the rectangle enclosing a hitbox into an array.
+     *
+     * @param area   The hitbox to enclose
+     * @param target The array to write the left, top, right and bottom into
+     * @param offset The position in the array to start writing at
+     */
+    private static void storeBounds(Hitbox area, int[] target, int offset) {
+        target[offset] = area.getLeft();
+        target[offset + 1] = area.getTop();
+        target[offset + 2] = area.getRight();
+        target[offset + 3] = area.getBottom();
+    }
+
+    /**
+     * Retrieves the cell at the given cell coordinates, creating it or emptying it if it is from an older frame.
+     *
+     * @param x The cell column
+     * @param y The cell row
+     * @return The cell for the current frame
+     */
+    private Cell getCell(int x, int y) {
+        Cell cell = findCell(x, y);
+        if (cell == null) {
+            if ((cellCount + 1) * 2 > cells.length) grow();
+            long key = toKey(x, y);
+            int slot = slotOf(key, cells.length);
+            while (cells[slot] != null) slot = (slot + 1) & (cells.length - 1);
+            cell = new Cell();
+            keys[slot] = key;
+            cells[slot] = cell;
+            cellCount++;
+        }
+        if (cell.generation != generation) {
+            cell.generation = generation;
+            cell.size = 0;
+        }
+        return cell;
+    }
+
+    /**
+     * Finds the cell at the given cell coordinates.
+     *
+     * @param x The cell column
+     * @param y The cell row
+     * @return The cell, or null if it has never been used
+     */
+    private Cell findCell(int x, int y) {
+        long key = toKey(x, y);
+        int slot = slotOf(key, cells.length);
+        while (cells[slot] != null) {
+            if (keys[slot] == key) return cells[slot];
+            slot = (slot + 1) & (cells.length - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Doubles the size of the cell table and reinserts every cell.
+     */
+    private void grow() {
+        long[] oldKeys = keys;
+        Cell[] oldCells = cells;
+        keys = new long[oldKeys.length * 2];
+        cells = new Cell[oldCells.length * 2];
+        for (int i = 0; i < oldCells.length; i++) {
+            if (oldCells[i] == null) continue;
+            int slot = slotOf(oldKeys[i], cells.length);
+            while (cells[slot] != null) slot = (slot + 1) & (cells.length - 1);
+            keys[slot] = oldKeys[i];
+            cells[slot] = oldCells[i];
+        }
+    }
+
+    private static long toKey(int x, int y) {
+        return ((long) x << 32) | (y & 0xFFFFFFFFL);
+    }
+
+    private static int slotOf(long key, int capacity) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h >>> 32) & (capacity - 1);
+    }
+
+    /**
+     * Represents a single cell holding the indices of the items that touch it.
+     */
+    private static class Cell {
+        private int[] indices = new int[4];
+        private int size;
+        private int generation;
+
+        private void add(int index) {
+            if (size == indices.length) indices = Arrays.copyOf(indices, size * 2);
+            indices[size++] = index;
+        }
+    }
+}
@@ -90,6 +90,18 @@ public class Vector2F implements Comparable<Vector2F> {
         this.y = p.y;
     }
 
+    /**
+     * Sets both coordinates of the vector.
+     * @param x The new x-coordinate.
+     * @param y The new y-coordinate.
+     * @return This vector, for chaining.
+     */
+    public Vector2F set(int x, int y) {
+        this.x = x;
+        this.y = y;
+        return this;
+    }
+
     /**
      * Calculates the vertical distance from the current point to the compared point.
      * Positive values are downwards, negative values are upwards.
@@ -138,6 +150,16 @@ public class Vector2F implements Comparable<Vector2F> {
         return new Vector2F(getX() + change.getX(), getY() + change.getY());
     }
 
+    /**
+     * Writes this vector translated by the specified change vector into another vector, without allocating.
+     * @param change The vector representing the translation.
+     * @param dst The vector to write the result into, which may be this vector or the change vector.
+     * @return The destination vector.
+     */
+    public Vector2F translateInto(Vector2F change, Vector2F dst) {
+        return dst.set(getX() + change.getX(), getY() + change.getY());
+    }
+
     /**
      * Translates the current vector by the specified change vector.
      * @param change The vector representing the translation.
@@ -156,6 +178,25 @@ public class Vector2F implements Comparable<Vector2F> {
         return new Vector2F((int) (getX() * factor), (int) (getY() * factor));
     }
 
+    /**
+     * Scales the current vector by the specified factor, truncating the same way as multiply.
+     * @param factor The scaling factor.
+     * @return This vector, for chaining.
+     */
+    public Vector2F scaleInPlace(double factor) {
+        return set((int) (getX() * factor), (int) (getY() * factor));
+    }
+
+    /**
+     * Writes this vector scaled by the specified factor into another vector, without allocating.
+     * @param factor The scaling factor.
+     * @param dst The vector to write the result into, which may be this vector.
+     * @return The destination vector.
+     */
+    public Vector2F multiplyInto(double factor, Vector2F dst) {
+        return dst.set((int) (getX() * factor), (int) (getY() * factor));
+    }
+
     /**
      * Computes the squared length (magnitude squared) of the vector.
      * @return The squared length of the vector.
@@ -181,6 +222,15 @@ public class Vector2F implements Comparable<Vector2F> {
         return new Vector2F(-getY(), getX());
     }
 
+    /**
+     * Writes the 90-degree counterclockwise rotated vector into another vector, without allocating.
+     * @param dst The vector to write the result into, which may be this vector.
+     * @return The destination vector.
+     */
+    public Vector2F normalInto(Vector2F dst) {
+        return dst.set(-getY(), getX());
+    }
+
     /**
      * Normalizes the vector to have a length of 1000, preserving its direction.
      * If the vector's length is zero, returns a zero vector.
@@ -194,6 +244,19 @@ public class Vector2F implements Comparable<Vector2F> {
         return new Vector2F(getX() * 1000 / d, getY() * 1000 / d);
     }
 
+    /**
+     * Writes this vector normalized to a length of 1000 into another vector, without allocating.
+     * @param dst The vector to write the result into, which may be this vector.
+     * @return The destination vector.
+     */
+    public Vector2F normalizeInto(Vector2F dst) {
+        int d = (int) Math.sqrt(getLength());
+        if (d == 0) {
+            d = 1;
+        }
+        return dst.set(getX() * 1000 / d, getY() * 1000 / d);
+    }
+
     /**
      * Returns the negative of the vector.
      * @return The negated vector.
@@ -202,6 +265,23 @@ public class Vector2F implements Comparable<Vector2F> {
         return new Vector2F(-getX(), -getY());
     }
 
+    /**
+     * Negates the current vector.
+     * @return This vector, for chaining.
+     */
+    public Vector2F negateInPlace() {
+        return set(-getX(), -getY());
+    }
+
+    /**
+     * Writes the negative of this vector into another vector, without allocating.
+     * @param dst The vector to write the result into, which may be this vector.
+     * @return The destination vector.
+     */
+    public Vector2F negativeInto(Vector2F dst) {
+        return dst.set(-getX(), -getY());
+    }
+
     /**
      * Compares this vector with another vector for ordering.
      * Orders first by x-coordinate, then by y-coordinate.
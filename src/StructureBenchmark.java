@@ -0,0 +1,377 @@
+import Entities.Entity;
+import Managers.RoomManager;
+import Managers.RoomTemplateCache;
+import Structure.ConvexShape;
+import Structure.Edge;
+import Structure.FlowField;
+import Structure.Hitbox;
+import Structure.HitboxGroup;
+import Structure.KDTree;
+import Structure.NavGraph;
+import Structure.NodeMap;
+import Structure.PathFinder;
+import Structure.Room;
+import Structure.Vector2F;
+
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+/**
+ * Measures the average time of the geometry, collision and pathfinding operations in the Structure package.
+ * Every benchmark is warmed up, then run for several timed rounds, and the results are written as CSV
+ * so they can be compared between builds.
+ * <p>
+ * The inputs are generated from a fixed seed and the rooms are the real rooms of every set,
+ * so the same build always measures the same work.
+ * </p>
+ * Arguments are given as name=value pairs, all optional:
+ * <ul>
+ *     <li>filter: a regular expression, only benchmarks whose name contains a match are run</li>
+ *     <li>warmup_ms: the time each benchmark runs before measuring, default 1000</li>
+ *     <li>rounds: the number of measured rounds, default 5</li>
+ *     <li>round_ms: the time each round runs for, default 1000</li>
+ *     <li>out: a file to write the results to instead of the console</li>
+ * </ul>
+ * Example: <code>java StructureBenchmark filter=kdtree rounds=10 out=results.csv</code>
+ */
+public class StructureBenchmark {
+    private static final int INPUT_COUNT = 1024; // Number of generated inputs per benchmark, must be a power of two
+    private static final int MASK = INPUT_COUNT - 1;
+
+    private static volatile long sink; // Keeps benchmark results alive so they are not optimized away
+
+    /**
+     * A single operation to measure.
+     */
+    private interface Operation {
+        /**
+         * Runs the operation once.
+         *
+         * @param i the number of the call, used to pick an input
+         * @return any value computed from the result
+         */
+        long run(int i);
+    }
+
+    private final Random random = new Random(42);
+    private final LinkedHashMap<String, Operation> benchmarks = new LinkedHashMap<>();
+    private final ArrayList<Room> rooms = new ArrayList<>();
+
+    /**
+     * Constructs a StructureBenchmark, loading the rooms and generating the inputs of every benchmark.
+     */
+    public StructureBenchmark() {
+        for (int set = 1; set <= RoomManager.NUMBER_OF_SETS; set++) {
+            for (Room template : RoomTemplateCache.getTemplates(set)) {
+                rooms.add(new Room(template));
+            }
+        }
+
+        addKDTreeBenchmarks();
+        addConvexShapeBenchmarks();
+        addHitboxBenchmarks();
+        addRoomBenchmarks();
+        addPathBenchmarks();
+    }
+
+    /**
+     * Adds the KD-tree construction, nearest neighbour and radius benchmarks, over the nodes of the room with the most nodes.
+     */
+    private void addKDTreeBenchmarks() {
+        Room largest = rooms.get(0);
+        for (Room r : rooms) {
+            if (r.getNodeMap().getNodes().size() > largest.getNodeMap().getNodes().size()) largest = r;
+        }
+        ArrayList<Vector2F> points = largest.getNodeMap().getNodes();
+        KDTree tree = new KDTree(points);
+        Vector2F[] targets = new Vector2F[INPUT_COUNT];
+        int[] bounds = getBounds(largest.getHitbox());
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            targets[i] = randomPoint(bounds);
+        }
+
+        benchmarks.put("kdtree.build[" + points.size() + "]", i -> new KDTree(points).findNearest(targets[i & MASK]).getX());
+        benchmarks.put("kdtree.findNearest[" + points.size() + "]", i -> tree.findNearest(targets[i & MASK]).getX());
+        ArrayList<Vector2F> found = new ArrayList<>();
+        benchmarks.put("kdtree.kNearest[" + points.size() + ",8]", i -> tree.kNearest(targets[i & MASK], 8, found).size());
+        benchmarks.put("kdtree.withinRadius[" + points.size() + ",10000]", i -> tree.withinRadius(targets[i & MASK], 10000, found).size());
+    }
+
+    /**
+     * Adds the convex hull and separating axis benchmarks over random point sets.
+     */
+    private void addConvexShapeBenchmarks() {
+        ArrayList<ArrayList<Vector2F>> pointSets = new ArrayList<>();
+        ConvexShape[] shapes = new ConvexShape[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            int x = random.nextInt(20000), y = random.nextInt(20000);
+            ArrayList<Vector2F> points = new ArrayList<>();
+            for (int j = 0; j < 12; j++) {
+                points.add(new Vector2F(x + random.nextInt(4000), y + random.nextInt(4000)));
+            }
+            pointSets.add(points);
+            shapes[i] = new ConvexShape(points);
+        }
+
+        benchmarks.put("convexShape.jarvisMarch[12]", i -> new ConvexShape(pointSets.get(i & MASK)).getPointCount());
+        benchmarks.put("convexShape.intersects", i -> shapes[i & MASK].intersects(shapes[(i + 1) & MASK]) ? 1 : 0);
+    }
+
+    /**
+     * Adds the hitbox and hitbox group intersection benchmarks.
+     * The group benchmark tests entity-sized boxes against the walls of every room.
+     */
+    private void addHitboxBenchmarks() {
+        Hitbox[] boxes = new Hitbox[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            int x = random.nextInt(20000), y = random.nextInt(20000);
+            boxes[i] = new Hitbox(x, y, x + 500 + random.nextInt(3500), y + 500 + random.nextInt(3500));
+        }
+
+        Hitbox[] probes = new Hitbox[INPUT_COUNT];
+        HitboxGroup[] walls = new HitboxGroup[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            walls[i] = rooms.get(i % rooms.size()).getHitbox();
+            Vector2F p = randomPoint(getBounds(walls[i]));
+            probes[i] = new Hitbox(p.getX(), p.getY(), p.getX() + 1000, p.getY() + 2000);
+        }
+
+        benchmarks.put("hitbox.quickIntersect", i -> boxes[i & MASK].quickIntersect(boxes[(i + 1) & MASK]) ? 1 : 0);
+        benchmarks.put("hitbox.intersects", i -> boxes[i & MASK].intersects(boxes[(i + 1) & MASK]) ? 1 : 0);
+        benchmarks.put("hitboxGroup.intersects", i -> walls[i & MASK].intersects(probes[i & MASK]) ? 1 : 0);
+    }
+
+    /**
+     * Adds the benchmarks that work on whole rooms: building node maps and resolving entity movement against the walls.
+     */
+    private void addRoomBenchmarks() {
+        benchmarks.put("nodeMap.construct", i -> new NodeMap(rooms.get(i % rooms.size())).getNodes().size());
+
+        ArrayList<ArrayList<Room>> roomLists = new ArrayList<>();
+        Vector2F[] starts = new Vector2F[INPUT_COUNT], velocities = new Vector2F[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            Room room = rooms.get(i % rooms.size());
+            ArrayList<Room> list = new ArrayList<>();
+            list.add(room);
+            roomLists.add(list);
+
+            int[] bounds = getBounds(room.getHitbox());
+            Vector2F start = randomPoint(bounds);
+            for (int tries = 0; tries < 100 && room.getHitbox().intersects(new Hitbox(start.getX(), start.getY(), start.getX() + 1000, start.getY() + 2000)); tries++) {
+                start = randomPoint(bounds);
+            }
+            starts[i] = start;
+            velocities[i] = new Vector2F(random.nextInt(16001) - 8000, random.nextInt(16001) - 8000);
+        }
+
+        Entity entity = new Entity(0, 0, 1000, 2000);
+        entity.setAffectedByGravity(false);
+        for (Entity.CollisionMode mode : Entity.CollisionMode.values()) {
+            benchmarks.put("entity.resolveRoomCollisions[" + mode + "]", i -> {
+                Entity.setCollisionMode(mode);
+                entity.setLocation(starts[i & MASK]);
+                entity.setActualVX(velocities[i & MASK].getX());
+                entity.setActualVY(velocities[i & MASK].getY());
+                entity.resolveRoomCollisions(roomLists.get(i & MASK));
+                return entity.getX() + entity.getY();
+            });
+        }
+    }
+
+    /**
+     * Adds the pathfinding benchmarks over random pairs of nodes in the room with the most nodes:
+     * the search enemies used to run on their own, the A* search over the compiled graph, and building a flow field.
+     */
+    private void addPathBenchmarks() {
+        Room largest = rooms.get(0);
+        for (Room r : rooms) {
+            if (r.getNodeMap().getNodes().size() > largest.getNodeMap().getNodes().size()) largest = r;
+        }
+        NodeMap map = largest.getNodeMap();
+        NavGraph graph = map.getNavGraph();
+        int[] starts = new int[INPUT_COUNT], goals = new int[INPUT_COUNT];
+        for (int i = 0; i < INPUT_COUNT; i++) {
+            starts[i] = random.nextInt(graph.getNodeCount());
+            goals[i] = random.nextInt(graph.getNodeCount());
+        }
+        PathFinder pathFinder = new PathFinder();
+        int[] path = new int[graph.getNodeCount()];
+        FlowField flowField = new FlowField(graph);
+        String size = "[" + graph.getNodeCount() + "]";
+
+        benchmarks.put("path.legacySearch" + size, i -> legacySearch(map, graph.getNode(starts[i & MASK]), graph.getNode(goals[i & MASK])).getX());
+        benchmarks.put("path.aStar" + size, i -> pathFinder.findPath(graph, starts[i & MASK], goals[i & MASK], path));
+        benchmarks.put("path.flowFieldBuild" + size, i -> {
+            flowField.setTarget(graph.getNode(goals[i & MASK]));
+            return flowField.getBuildCount();
+        });
+    }
+
+    /**
+     * Runs the best-first search ShortMeleeEnemy.generatePath used before flow fields, kept as a baseline.
+     *
+     * @param graph  The node map to search
+     * @param start  The node to start from
+     * @param target The point to reach the nearest node of
+     * @return The last node the search reached
+     */
+    private static Vector2F legacySearch(NodeMap graph, Vector2F start, Vector2F target) {
+        PriorityQueue<Edge> q = new PriorityQueue<Edge>();
+        Map<Vector2F, ArrayList<Vector2F>> reversedMap = new HashMap<Vector2F, ArrayList<Vector2F>>();
+        Map<Vector2F, Boolean> v = new HashMap<Vector2F, Boolean>();
+
+        Vector2F cur_node = new Vector2F(), prev_node;
+        double cur_dist;
+        q.add(new Edge(0.0, start, start));
+        while (!q.isEmpty()) {
+            cur_node = q.peek().getNode1();
+            prev_node = q.peek().getNode2();
+            cur_dist = q.remove().getDist();
+            v.put(cur_node, true);
+            if (cur_node != prev_node) {
+                reversedMap.computeIfAbsent(cur_node, k -> new ArrayList<Vector2F>()).add(prev_node);
+            }
+            if (Objects.equals(cur_node, graph.getNearestNode(target))) break;
+            if (graph.getEdges().get(cur_node) == null) continue;
+            for (Vector2F node : graph.getEdges().get(cur_node)) {
+                if (v.get(node) == null) {
+                    if (node.getYDistance(cur_node) > NavGraph.MAX_CLIMB) continue;
+                    q.add(new Edge(cur_node.getEuclideanDistance(node) + cur_dist + node.getEuclideanDistance(target), node, cur_node));
+                }
+            }
+        }
+        return cur_node;
+    }
+
+    /**
+     * Finds the rectangle enclosing every hitbox of a group.
+     *
+     * @param group the hitboxes to enclose
+     * @return the left, top, right and bottom of the rectangle
+     */
+    private static int[] getBounds(HitboxGroup group) {
+        int[] bounds = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+        for (Hitbox h : group.getHitboxes()) {
+            bounds[0] = Math.min(bounds[0], h.getLeft());
+            bounds[1] = Math.min(bounds[1], h.getTop());
+            bounds[2] = Math.max(bounds[2], h.getRight());
+            bounds[3] = Math.max(bounds[3], h.getBottom());
+        }
+        return bounds;
+    }
+
+    private Vector2F randomPoint(int[] bounds) {
+        return new Vector2F(bounds[0] + random.nextInt(Math.max(1, bounds[2] - bounds[0])), bounds[1] + random.nextInt(Math.max(1, bounds[3] - bounds[1])));
+    }
+
+    /**
+     * Runs every benchmark whose name matches a filter and writes one CSV row per benchmark.
+     *
+     * @param filter   the pattern benchmark names must contain a match of
+     * @param warmupMs the time each benchmark runs before measuring
+     * @param rounds   the number of measured rounds
+     * @param roundMs  the time each round runs for
+     * @param out      where to write the results
+     */
+    public void run(Pattern filter, long warmupMs, int rounds, long roundMs, PrintWriter out) {
+        out.println("benchmark,ns_per_op,stddev_ns,min_ns,rounds,ops");
+        out.flush();
+        for (Map.Entry<String, Operation> benchmark : benchmarks.entrySet()) {
+            if (!filter.matcher(benchmark.getKey()).find()) continue;
+            Operation operation = benchmark.getValue();
+
+            measure(operation, warmupMs * 1000000L);
+            double[] nanosPerOp = new double[rounds];
+            long totalOps = 0;
+            for (int r = 0; r < rounds; r++) {
+                long[] result = measure(operation, roundMs * 1000000L);
+                nanosPerOp[r] = (double) result[0] / result[1];
+                totalOps += result[1];
+            }
+
+            double mean = 0, min = Double.MAX_VALUE;
+            for (double value : nanosPerOp) {
+                mean += value / rounds;
+                min = Math.min(min, value);
+            }
+            double variance = 0;
+            for (double value : nanosPerOp) {
+                variance += (value - mean) * (value - mean) / Math.max(1, rounds - 1);
+            }
+
+            out.println(String.format(Locale.ROOT, "%s,%.2f,%.2f,%.2f,%d,%d", benchmark.getKey(), mean, Math.sqrt(variance), min, rounds, totalOps));
+            out.flush();
+        }
+    }
+
+    /**
+     * Runs an operation in batches until a duration has passed.
+     *
+     * @param operation the operation to run
+     * @param nanos     the minimum time to run for
+     * @return the time taken and the number of operations run
+     */
+    private static long[] measure(Operation operation, long nanos) {
+        long ops = 0, result = 0;
+        long start = System.nanoTime(), elapsed;
+        int batch = 1;
+        do {
+            for (int i = 0; i < batch; i++) {
+                result += operation.run((int) ops + i);
+            }
+            ops += batch;
+            elapsed = System.nanoTime() - start;
+            if (batch < 1 << 16) batch *= 2;
+        } while (elapsed < nanos);
+        sink += result;
+        return new long[]{elapsed, ops};
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+
+        Pattern filter = Pattern.compile("");
+        long warmupMs = 1000, roundMs = 1000;
+        int rounds = 5;
+        String outPath = null;
+        for (String arg : args) {
+            String[] pair = arg.split("=", 2);
+            if (pair.length != 2) throw new IllegalArgumentException("Expected name=value but got: " + arg);
+            switch (pair[0]) {
+                case "filter":
+                    filter = Pattern.compile(pair[1]);
+                    break;
+                case "warmup_ms":
+                    warmupMs = Long.parseLong(pair[1]);
+                    break;
+                case "rounds":
+                    rounds = Integer.parseInt(pair[1]);
+                    break;
+                case "round_ms":
+                    roundMs = Long.parseLong(pair[1]);
+                    break;
+                case "out":
+                    outPath = pair[1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown argument: " + pair[0]);
+            }
+        }
+        if (rounds <= 0) throw new IllegalArgumentException("Rounds must be positive: " + rounds);
+
+        StructureBenchmark benchmark = new StructureBenchmark();
+        try (PrintWriter out = outPath == null ? new PrintWriter(System.out) : new PrintWriter(new FileWriter(outPath))) {
+            benchmark.run(filter, warmupMs, rounds, roundMs, out);
+        }
+    }
+}
@@ -3,6 +3,7 @@ package UI;
 import Structure.Vector2F;
 import Universal.Camera;
 import Universal.GameTimer;
+import Universal.GameRandom;
 
 import java.awt.*;
 import java.util.ArrayList;
@@ -50,7 +51,7 @@ public class HitDisplay {
      * @param color The color of the displayed text.
      */
     public static void createHitDisplay(Vector2F location, int damage, Color color) {
-        allHitDisplays.add(new HitDisplay(location, damage, Math.random() * 30 + 30 + damage, new Vector2F((int) (Math.random() * 80 - 40), (int) (Math.random() * 80 - 40)), color));
+        allHitDisplays.add(new HitDisplay(location, damage, GameRandom.nextDouble() * 30 + 30 + damage, new Vector2F((int) (GameRandom.nextDouble() * 80 - 40), (int) (GameRandom.nextDouble() * 80 - 40)), color));
     }
 
     /**
@@ -1,9 +1,9 @@
 package UI;
 
+import Universal.AssetCache;
 import Entities.Player;
 import Managers.ActionManager;
 
-import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
@@ -12,7 +12,6 @@ import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Objects;
 
 /**
  * Represents the main menu of the game.
@@ -22,7 +21,7 @@ public class Menu extends UI implements ActionListener {
     private ArrayList<JButton> controlButtons = new ArrayList<>();
     private JButton start = new JButton("Start");
     private JButton controls = new JButton("Controls");
-    private BufferedImage gameIcon= ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/gameIcon.png")));
+    private BufferedImage gameIcon= AssetCache.getImage("/gameIcon.png");
 
     private JButton resetControls = new JButton("Reset Default Controls");
     private JButton returnToMenu = new JButton("Return To Menu");
@@ -1,14 +1,13 @@
 package UI;
 
+import Universal.AssetCache;
 import Entities.Player;
 
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 
 /**
  * The PlayerUI class handles the rendering of the player's UI components such as health, mana, intelligence,
@@ -40,8 +39,8 @@ public class PlayerUI extends UI {
         currentPlayerHealth=player.getStats().getHealth();
         currentPlayerMana = player.getStats().getMaxMana();
         this.player = player;
-        intelligenceIcon = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/intelligence.png")));
-        killStreakIcon = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/skull.png")));
+        intelligenceIcon = AssetCache.getImage("/intelligence.png");
+        killStreakIcon = AssetCache.getImage("/skull.png");
     }
 
     /**
@@ -0,0 +1,150 @@
+package Universal;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+
+/**
+ * The AssetCache class is a central registry for every image loaded from the res folder.
+ * Each image is decoded once, converted to a display-compatible format and then shared by reference,
+ * so entities such as projectiles no longer decode their sprite every time one is created.
+ * Cached images are shared and must not be drawn onto.
+ */
+public class AssetCache {
+    /**
+     * Image paths that are loaded when the cache is preloaded at startup.
+     */
+    private static final String[] PRELOAD_PATHS = {
+            "/cloud_bg.png", "/gameIcon.png", "/intelligence.png", "/skull.png",
+            "/Enemies/acorn1.png", "/Enemies/acorn2.png", "/Enemies/enemy_projectile.png", "/Enemies/leaf.png", "/Enemies/wizard.png",
+            "/Items/chest.png", "/Items/portal.png",
+            "/Items/PowerUps/crit_damage_up.png", "/Items/PowerUps/crit_rate_up.png", "/Items/PowerUps/defence_up.png",
+            "/Items/PowerUps/extra_jump.png", "/Items/PowerUps/fireball.png", "/Items/PowerUps/health_pot.png",
+            "/Items/PowerUps/health_up.png", "/Items/PowerUps/mana_pot.png", "/Items/PowerUps/mana_up.png", "/Items/PowerUps/speed_up.png",
+            "/Items/WeaponData/advanced_spellbook.png", "/Items/WeaponData/katana.png", "/Items/WeaponData/spear.png",
+            "/Items/WeaponData/spellbook.png", "/Items/WeaponData/sword.png",
+            "/Player/player_projectile.png",
+            "/Player/Idle/idle.png", "/Player/Idle/magic_idle.png", "/Player/Idle/spear_idle.png", "/Player/Idle/sword_idle.png",
+            "/Player/Run/run1.png", "/Player/Run/run2.png",
+            "/Player/Magic/magic1.png", "/Player/Magic/magic2.png", "/Player/Magic/magic3.png",
+            "/Player/Melee/attack1.png", "/Player/Melee/attack2.png", "/Player/Melee/attack3.png", "/Player/Melee/attack4.png",
+            "/Player/Melee/attack5.png", "/Player/Melee/attack6.png", "/Player/Melee/attack7.png", "/Player/Melee/attack8.png",
+            "/Player/Melee/attack9.png",
+            "/Player/Spear/spear1.png", "/Player/Spear/spear2.png", "/Player/Spear/spear3.png", "/Player/Spear/spear4.png", "/Player/Spear/spear5.png"
+    };
+
+    private static final HashMap<String, BufferedImage> images = new HashMap<>();
+    private static int hits = 0, misses = 0;
+
+    /**
+     * Returns the shared image for the given resource path, decoding it on the first request.
+     *
+     * @param path the resource path of the image, for example "/Enemies/leaf.png"
+     * @return the shared, display-compatible image
+     * @throws IOException if the resource does not exist or the image could not be decoded
+     */
+    public static synchronized BufferedImage getImage(String path) throws IOException {
+        BufferedImage image = images.get(path);
+        if (image != null) {
+            hits++;
+            return image;
+        }
+
+        misses++;
+        image = loadImage(path);
+        images.put(path, image);
+        return image;
+    }
+
+    /**
+     * Decodes every known sprite so that no decoding happens during gameplay.
+     * Room backgrounds are not listed here, since each room template decodes its own when the templates are warmed.
+     */
+    public static void preload() {
+        for (String path : PRELOAD_PATHS) {
+            preload(path);
+        }
+    }
+
+    /**
+     * Decodes a single image into the cache if it is not already loaded.
+     *
+     * @param path the resource path of the image
+     * @return true if the image is in the cache after the call, false if it could not be loaded
+     */
+    public static synchronized boolean preload(String path) {
+        if (images.containsKey(path)) return true;
+        try {
+            images.put(path, loadImage(path));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Returns the number of requests served from the cache.
+     *
+     * @return the number of cache hits
+     */
+    public static synchronized int getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests that had to decode an image.
+     *
+     * @return the number of cache misses
+     */
+    public static synchronized int getMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of images currently held in the cache.
+     *
+     * @return the number of cached images
+     */
+    public static synchronized int size() {
+        return images.size();
+    }
+
+    /**
+     * Decodes an image from the resources and converts it to the display's preferred format.
+     *
+     * @param path the resource path of the image
+     * @return the decoded image
+     * @throws IOException if the resource does not exist or the image could not be decoded
+     */
+    private static BufferedImage loadImage(String path) throws IOException {
+        InputStream resource = AssetCache.class.getResourceAsStream(path);
+        if (resource == null) throw new IOException("Missing resource: " + path);
+        try (InputStream in = resource) {
+            BufferedImage image = ImageIO.read(in);
+            if (image == null) throw new IOException("Unsupported image format: " + path);
+            return toCompatibleImage(image);
+        }
+    }
+
+    /**
+     * Copies an image into a format that matches the screen so drawing it does not require a conversion every frame.
+     * When there is no display the decoded image is returned unchanged.
+     *
+     * @param image the decoded image
+     * @return a display-compatible copy of the image
+     */
+    private static BufferedImage toCompatibleImage(BufferedImage image) {
+        if (GraphicsEnvironment.isHeadless()) return image;
+        GraphicsConfiguration config = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration();
+        if (image.getColorModel().equals(config.getColorModel())) return image;
+
+        BufferedImage compatible = config.createCompatibleImage(image.getWidth(), image.getHeight(), image.getTransparency());
+        Graphics2D g = compatible.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return compatible;
+    }
+}
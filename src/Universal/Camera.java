@@ -9,19 +9,24 @@ import Managers.ActionManager;
 import Structure.Hitbox;
 import Structure.Line;
 import Structure.Vector2F;
-import javax.imageio.ImageIO;
 import java.awt.*;
 import java.awt.event.KeyEvent;
 import java.awt.image.BufferedImage;
 import java.io.IOException;
-import java.util.Objects;
 
 /**
  * The Camera class handles the rendering of game objects on the screen, allowing for panning,
  * zooming, and other camera operations. Use arrow keys to move the camera.
+ * <p>
+ * Game objects are drawn on the simulation thread, which records what they draw into a frame at the end of every
+ * tick. The Swing thread paints the most recently finished frame without waiting for the simulation, so the camera
+ * keeps three frames: one being recorded, one finished and waiting, and one being painted.
+ * </p>
  */
 public class Camera {
     private Vector2F offset = new Vector2F(-1000, -1000), targetOffset = new Vector2F(offset);
+    private Vector2F previousOffset = new Vector2F(offset); // Offset at the end of the previous tick
+    private Vector2F renderOffset = new Vector2F(offset); // Offset used for drawing, blended between the previous and current tick
     private Vector2F absoluteOffset = new Vector2F();
     private Vector2F topLeftLocation = new Vector2F();
     private Graphics2D graphics;
@@ -31,6 +36,12 @@ public class Camera {
     private boolean isMapCamera, centered, enabled;
     private Vector2F translatedMouseCoords = new Vector2F();
     private BufferedImage backgroundImage;
+    private RenderFrame recording = new RenderFrame(), finished = new RenderFrame(), painting = new RenderFrame();
+    private boolean frameFinished = false;
+    private final Object frameLock = new Object(); // Guards the exchange of frames between the two threads
+    private long frameNumber;
+    private Vector2F motion = new Vector2F(); // Movement of the entity being recorded, undone when painting early in a tick
+    private double alpha = 1;
 
     /**
      * Constructs a Camera with specified scaling factor, offset, and size.
@@ -45,7 +56,7 @@ public class Camera {
         this.topLeftLocation.copy(offset);
         enabled = true;
         try {
-            backgroundImage = ImageIO.read(Objects.requireNonNull(getClass().getResourceAsStream("/cloud_bg.png")));
+            backgroundImage = AssetCache.getImage("/cloud_bg.png");
         } catch (IOException e) {
 
         }
@@ -61,16 +72,32 @@ public class Camera {
     }
 
     /**
-     * Sets the Graphics2D object for the camera to use.
+     * Sets the Graphics2D object for the camera to use and takes the most recently finished frame to paint,
+     * with the camera and the entities blended between the previous and current tick of that frame.
      *
-     * @param g the Graphics object
+     * @param g     the Graphics object
+     * @param alpha how far between the previous tick, at 0, and the current tick, at 1, to paint the frame
      */
-    public void setGraphics(Graphics g) {
+    public void setGraphics(Graphics g, double alpha) {
+        synchronized (frameLock) {
+            if (frameFinished) {
+                RenderFrame taken = finished;
+                finished = painting;
+                painting = taken;
+                frameFinished = false;
+            }
+        }
+        this.alpha = alpha;
+        renderOffset.set(
+                painting.previousOffset.getX() + (int) Math.round((painting.offset.getX() - painting.previousOffset.getX()) * alpha),
+                painting.previousOffset.getY() + (int) Math.round((painting.offset.getY() - painting.previousOffset.getY()) * alpha)
+        );
+
         graphics = (Graphics2D) g;
         graphics.setStroke(new BasicStroke(1f));
         Rectangle screenSize = graphics.getClipBounds();
-        scaling = initialScaling * screenSize.getWidth() / 1280;
-        if (!enabled) {
+        scaling = painting.scaling * screenSize.getWidth() / 1280;
+        if (!painting.enabled) {
             renderHeight = 0;
             renderWidth = 0;
             return;
@@ -114,6 +141,19 @@ public class Camera {
         }
     }
 
+    /**
+     * Draws a Hitbox on the screen with the specified color, moved by an offset.
+     *
+     * @param h      the Hitbox to draw
+     * @param c      the color to use
+     * @param offset the offset to draw the Hitbox at
+     */
+    public void drawHitbox(Hitbox h, Color c, Vector2F offset) {
+        for (int i = 0; i < h.pointCount(); i++) {
+            drawLine(new Line(h.getPoints().get(i).getTranslated(offset), h.getPoints().get((i + 1) % h.pointCount()).getTranslated(offset)), c);
+        }
+    }
+
     /**
      * Draws an image on the screen between specified coordinates.
      *
@@ -123,15 +163,7 @@ public class Camera {
      */
     public void drawImage(BufferedImage bufferedImage, Vector2F topLeftLocation, Vector2F bottomRightLocation) {
         if (isMapCamera) return;
-        topLeftLocation = scaleAndShift(topLeftLocation);
-        bottomRightLocation = scaleAndShift(bottomRightLocation);
-
-        graphics.drawImage(
-                bufferedImage,
-                topLeftLocation.getX(), topLeftLocation.getY(), bottomRightLocation.getX(), bottomRightLocation.getY(),
-                0, 0, bufferedImage.getWidth(), bufferedImage.getHeight(),
-                null
-        );
+        recording.add(RenderFrame.IMAGE, topLeftLocation.getX(), topLeftLocation.getY(), bottomRightLocation.getX(), bottomRightLocation.getY(), bufferedImage, null, 0, motion);
     }
 
     /**
@@ -162,10 +194,17 @@ public class Camera {
      * @param size  the size of the point
      */
     public void drawCoordinate(Vector2F c, Color color, float size) {
+        recording.add(RenderFrame.COORDINATE, c.getX(), c.getY(), 0, 0, null, color, size, motion);
+    }
+
+    /**
+     * Paints a recorded coordinate point.
+     */
+    private void paintCoordinate(int x, int y, Color color, float size) {
         graphics.setColor(color);
         graphics.setStroke(new BasicStroke(1f));
-        int x1 = (int) scaleAndShiftX(c.getX());
-        int y1 = (int) scaleAndShiftY(c.getY());
+        int x1 = (int) scaleAndShiftX(x);
+        int y1 = (int) scaleAndShiftY(y);
         if (x1 - absoluteOffset.getX() > renderWidth || y1 - absoluteOffset.getY() > renderHeight) return;
         if (x1 - absoluteOffset.getX() < -renderWidth || y1 - absoluteOffset.getY() < -renderHeight) return;
 
@@ -203,12 +242,19 @@ public class Camera {
      * @param c  the color to use
      */
     public void drawLine(Vector2F p1, Vector2F p2, Color c) {
+        recording.add(RenderFrame.LINE, p1.getX(), p1.getY(), p2.getX(), p2.getY(), null, c, 0, motion);
+    }
+
+    /**
+     * Paints a recorded line.
+     */
+    private void paintLine(int fromX, int fromY, int toX, int toY, Color c) {
         graphics.setColor(c);
         graphics.setStroke(new BasicStroke(2f * (float) (Math.max(1.0, scaling * 1000 / 7.0))));
-        double x1 = scaleAndShiftX(p1.getX());
-        double y1 = scaleAndShiftY(p1.getY());
-        double x2 = scaleAndShiftX(p2.getX());
-        double y2 = scaleAndShiftY(p2.getY());
+        double x1 = scaleAndShiftX(fromX);
+        double y1 = scaleAndShiftY(fromY);
+        double x2 = scaleAndShiftX(toX);
+        double y2 = scaleAndShiftY(toY);
 
         if (Math.min(x1, x2) - absoluteOffset.getX() > renderWidth || Math.min(y1, y2) - absoluteOffset.getY() > renderHeight)
             return;
@@ -301,6 +347,90 @@ public class Camera {
      */
     public void setOffset(Vector2F p) {
         offset.copy(p);
+        previousOffset.copy(p); // Jumps are not blended
+    }
+
+    /**
+     * Remembers the current offset as the offset of the previous tick. Called at the start of every tick.
+     */
+    public void storePreviousOffset() {
+        previousOffset.copy(offset);
+    }
+
+    /**
+     * Starts recording the frame of the current tick. Called on the simulation thread once the tick is finished,
+     * before the game objects are drawn.
+     *
+     * @param frameNumber the number of the frame, the same for every camera and one more than the previous frame
+     */
+    public void startFrame(long frameNumber) {
+        this.frameNumber = frameNumber;
+        recording.clear();
+        recording.offset.copy(offset);
+        recording.previousOffset.copy(previousOffset);
+        recording.scaling = initialScaling;
+        recording.enabled = enabled;
+        motion.set(0, 0);
+    }
+
+    /**
+     * Draws an entity into the frame being recorded, marking what it draws with how far it moved during the tick.
+     *
+     * @param e the entity to draw
+     */
+    public void paintEntity(Entity e) {
+        int outerX = motion.getX(), outerY = motion.getY();
+        motion.copy(e.getDrawMotion(frameNumber));
+        e.paint(this);
+        motion.set(outerX, outerY);
+    }
+
+    /**
+     * Finishes the frame being recorded and hands it to the Swing thread, replacing any finished frame it has not painted.
+     */
+    public void finishFrame() {
+        synchronized (frameLock) {
+            RenderFrame done = recording;
+            recording = finished;
+            finished = done;
+            frameFinished = true;
+        }
+    }
+
+    /**
+     * Paints the game objects of the frame taken by setGraphics, with every entity blended between where it was at the
+     * previous tick and where it is now.
+     */
+    public void paintFrame() {
+        double back = 1 - alpha;
+        RenderFrame f = painting;
+        for (int i = 0; i < f.size; i++) {
+            int dx = (int) Math.round(f.motion[i * 2] * back), dy = (int) Math.round(f.motion[i * 2 + 1] * back);
+            int x1 = f.points[i * 4] + dx, y1 = f.points[i * 4 + 1] + dy;
+            int x2 = f.points[i * 4 + 2] + dx, y2 = f.points[i * 4 + 3] + dy;
+            switch (f.kinds[i]) {
+                case RenderFrame.IMAGE:
+                    paintImage(f.images[i], x1, y1, x2, y2);
+                    break;
+                case RenderFrame.LINE:
+                    paintLine(x1, y1, x2, y2, f.colours[i]);
+                    break;
+                default:
+                    paintCoordinate(x1, y1, f.colours[i], f.sizes[i]);
+            }
+        }
+    }
+
+    /**
+     * Paints a recorded image between two corners.
+     */
+    private void paintImage(BufferedImage bufferedImage, int left, int top, int right, int bottom) {
+        graphics.drawImage(
+                bufferedImage,
+                (int) scaleAndShiftX(left), (int) scaleAndShiftY(top), (int) scaleAndShiftX(right), (int) scaleAndShiftY(bottom),
+                0, 0, bufferedImage.getWidth(), bufferedImage.getHeight(),
+                null
+        );
     }
 
     /**
@@ -311,14 +441,14 @@ public class Camera {
         if (isMapCamera) {
             if (centered) graphics.setColor(new Color(0, 0, 0, 120));
 
-            graphics.fillRect((int) (scaleAndShiftX(offset.getX()) - renderWidth), (int) (scaleAndShiftY(offset.getY()) - renderHeight),  renderWidth * 2,  renderHeight * 2);
-            double x1 = scaleAndShiftX(offset.getX());
-            double y1 = scaleAndShiftY(offset.getY());
+            graphics.fillRect((int) (scaleAndShiftX(renderOffset.getX()) - renderWidth), (int) (scaleAndShiftY(renderOffset.getY()) - renderHeight),  renderWidth * 2,  renderHeight * 2);
+            double x1 = scaleAndShiftX(renderOffset.getX());
+            double y1 = scaleAndShiftY(renderOffset.getY());
             graphics.drawOval((int) x1, (int) y1, (int) scaling, (int) scaling);
         } else {
             graphics.drawImage(
                     backgroundImage,
-                    -backgroundImage.getWidth() * 5 - offset.getX() / 1000, -backgroundImage.getHeight() * 6 - offset.getY() / 1000, backgroundImage.getWidth() * 5 - offset.getX() / 1000, backgroundImage.getHeight() * 4 - offset.getY() / 1000,
+                    -backgroundImage.getWidth() * 5 - renderOffset.getX() / 1000, -backgroundImage.getHeight() * 6 - renderOffset.getY() / 1000, backgroundImage.getWidth() * 5 - renderOffset.getX() / 1000, backgroundImage.getHeight() * 4 - renderOffset.getY() / 1000,
                     0, 0, backgroundImage.getWidth(), backgroundImage.getHeight(),
                     null
             );
@@ -332,7 +462,7 @@ public class Camera {
         if (isMapCamera) {
             graphics.setStroke(new BasicStroke(10f));
             graphics.setColor(Color.YELLOW);
-            graphics.drawRect((int) (scaleAndShiftX(offset.getX()) - renderWidth), (int) (scaleAndShiftY(offset.getY()) - renderHeight),  renderWidth * 2,  renderHeight * 2);
+            graphics.drawRect((int) (scaleAndShiftX(renderOffset.getX()) - renderWidth), (int) (scaleAndShiftY(renderOffset.getY()) - renderHeight),  renderWidth * 2,  renderHeight * 2);
         }
     }
 
@@ -398,7 +528,7 @@ public class Camera {
      * @return the scaled and shifted x-coordinate
      */
     private double scaleAndShiftX(double x) {
-        return ((x - offset.getX()) * scaling) + absoluteOffset.getX();
+        return ((x - renderOffset.getX()) * scaling) + absoluteOffset.getX();
     }
 
     /**
@@ -408,7 +538,7 @@ public class Camera {
      * @return the scaled and shifted y-coordinate
      */
     private double scaleAndShiftY(double y) {
-        return ((y - offset.getY()) * scaling) + absoluteOffset.getY();
+        return ((y - renderOffset.getY()) * scaling) + absoluteOffset.getY();
     }
 
     /**
@@ -0,0 +1,227 @@
+package Universal;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The GameLoop class runs the game simulation at a fixed rate on its own thread, separate from rendering.
+ * Every tick advances the game by the same amount of time, and a render is requested after each group of ticks.
+ * Between ticks the thread parks instead of spinning, so an idle game does not keep a core busy.
+ * <p>
+ * Ticks run while holding the world lock. The world is painted from frames recorded at the end of each tick, so
+ * painting does not need the lock, but anything else that reads the game state from another thread should hold it,
+ * so that it never sees a half finished tick.
+ * </p>
+ */
+public class GameLoop {
+    /**
+     * The ways the loop can react to falling behind schedule, for example after a slow tick.
+     */
+    public enum CatchUpPolicy {
+        /**
+         * Never runs missed ticks. The game slows down while ticks take longer than the time step.
+         */
+        NONE,
+        /**
+         * Runs missed ticks back to back, up to the maximum number of catch-up ticks, and drops the rest.
+         */
+        BOUNDED,
+        /**
+         * Runs every missed tick, so the game always keeps exact time.
+         */
+        UNBOUNDED
+    }
+
+    public static final int DEFAULT_TICKS_PER_SECOND = 60;
+    public static final int DEFAULT_MAX_CATCH_UP_TICKS = 5;
+
+    private final Runnable tick, render;
+    private final long tickNanos;
+    private final ReentrantLock worldLock = new ReentrantLock();
+    private volatile CatchUpPolicy catchUpPolicy = CatchUpPolicy.BOUNDED;
+    private volatile int maxCatchUpTicks = DEFAULT_MAX_CATCH_UP_TICKS;
+    private volatile boolean running = false;
+    private volatile long lastTickTime; // Scheduled time of the most recent tick
+    private volatile long tickCount = 0, droppedTicks = 0;
+    private Thread thread;
+
+    /**
+     * Constructs a GameLoop running at the default rate.
+     *
+     * @param tick   the work done every tick
+     * @param render the work done after each group of ticks, usually requesting a repaint
+     */
+    public GameLoop(Runnable tick, Runnable render) {
+        this(tick, render, DEFAULT_TICKS_PER_SECOND);
+    }
+
+    /**
+     * Constructs a GameLoop.
+     *
+     * @param tick           the work done every tick
+     * @param render         the work done after each group of ticks, usually requesting a repaint
+     * @param ticksPerSecond the number of ticks to run every second
+     */
+    public GameLoop(Runnable tick, Runnable render, int ticksPerSecond) {
+        if (ticksPerSecond <= 0) throw new IllegalArgumentException("Ticks per second must be positive: " + ticksPerSecond);
+        this.tick = tick;
+        this.render = render;
+        tickNanos = 1000000000L / ticksPerSecond;
+        lastTickTime = System.nanoTime();
+    }
+
+    /**
+     * Starts the simulation thread. Does nothing if the loop is already running.
+     */
+    public synchronized void start() {
+        if (running) return;
+        running = true;
+        thread = new Thread(this::run, "Simulation");
+        thread.start();
+    }
+
+    /**
+     * Stops the simulation thread after its current tick and waits for it to finish.
+     */
+    public synchronized void stop() {
+        running = false;
+        if (thread == null || thread == Thread.currentThread()) return;
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        thread = null;
+    }
+
+    /**
+     * Runs ticks on schedule until the loop is stopped.
+     */
+    private void run() {
+        long nextTick = System.nanoTime();
+        while (running) {
+            long now = System.nanoTime();
+            if (now < nextTick) {
+                LockSupport.parkNanos(nextTick - now);
+                continue;
+            }
+
+            int ticksAllowed = getTicksAllowed();
+            int ticksRun = 0;
+            while (running && now >= nextTick && ticksRun < ticksAllowed) {
+                runTick(nextTick);
+                nextTick += tickNanos;
+                ticksRun++;
+                now = System.nanoTime();
+            }
+
+            // Still behind after running every tick allowed, so the missed ticks are dropped
+            if (running && now >= nextTick) {
+                droppedTicks += (now - nextTick) / tickNanos;
+                nextTick = now;
+            }
+
+            render.run();
+        }
+    }
+
+    /**
+     * Retrieves the number of ticks that may run back to back under the current catch-up policy.
+     *
+     * @return the maximum number of ticks to run before rendering
+     */
+    private int getTicksAllowed() {
+        switch (catchUpPolicy) {
+            case NONE:
+                return 1;
+            case UNBOUNDED:
+                return Integer.MAX_VALUE;
+            default:
+                return Math.max(1, maxCatchUpTicks);
+        }
+    }
+
+    /**
+     * Runs a single tick while holding the world lock.
+     *
+     * @param scheduledTime the time the tick was scheduled for
+     */
+    private void runTick(long scheduledTime) {
+        worldLock.lock();
+        try {
+            tick.run();
+            lastTickTime = scheduledTime;
+            tickCount++;
+        } finally {
+            worldLock.unlock();
+        }
+    }
+
+    /**
+     * Retrieves how far the current time is between the most recent tick and the next one.
+     * Renderers use it to blend the state before and after the most recent tick.
+     *
+     * @return a value from 0, right at the most recent tick, to 1, when the next tick is due
+     */
+    public double getInterpolation() {
+        double alpha = (double) (System.nanoTime() - lastTickTime) / tickNanos;
+        return Math.max(0, Math.min(1, alpha));
+    }
+
+    /**
+     * Retrieves the lock held by every tick. Hold it while reading the game state from another thread.
+     *
+     * @return the world lock
+     */
+    public ReentrantLock getWorldLock() {
+        return worldLock;
+    }
+
+    /**
+     * Changes how the loop reacts to falling behind schedule.
+     *
+     * @param policy          the new catch-up policy
+     * @param maxCatchUpTicks the maximum number of ticks run back to back under the bounded policy
+     */
+    public void setCatchUpPolicy(CatchUpPolicy policy, int maxCatchUpTicks) {
+        this.catchUpPolicy = policy;
+        this.maxCatchUpTicks = maxCatchUpTicks;
+    }
+
+    /**
+     * Retrieves the current catch-up policy.
+     *
+     * @return the catch-up policy
+     */
+    public CatchUpPolicy getCatchUpPolicy() {
+        return catchUpPolicy;
+    }
+
+    /**
+     * Retrieves the number of ticks run since the loop was created.
+     *
+     * @return the number of ticks run
+     */
+    public long getTickCount() {
+        return tickCount;
+    }
+
+    /**
+     * Retrieves the number of ticks skipped because the loop fell too far behind.
+     *
+     * @return the number of dropped ticks
+     */
+    public long getDroppedTicks() {
+        return droppedTicks;
+    }
+
+    /**
+     * Checks if the simulation thread is running.
+     *
+     * @return true if the loop is running, false otherwise
+     */
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,113 @@
+package Universal;
+
+import java.util.Random;
+
+/**
+ * The GameRandom class is the source of every random number used by the game.
+ * Seeding it makes a run repeatable, so that measurements of different builds can be compared.
+ * <p>
+ * Numbers are drawn from independent streams, one for level generation, one for spawning enemies, one for loot,
+ * one for enemy behaviour, and a shared one for everything else, such as damage rolls and effects.
+ * Every stream is seeded from the same seed, so drawing more or fewer numbers from one stream does not change
+ * the numbers of the others: a level with an extra chest still has the same layout and the same enemies.
+ * </p>
+ * <p>
+ * Work that runs in parallel can give a thread its own generator, seeded from this one,
+ * so the numbers a task draws do not depend on how its thread was scheduled.
+ * </p>
+ */
+public class GameRandom {
+    private static final long STREAM_SEED_STEP = 0x9E3779B97F4A7C15L; // Keeps the seeds of the streams far apart
+
+    private static final Random random = new Random();
+    private static final Random generation = new Random(), spawns = new Random(), loot = new Random(), ai = new Random();
+    private static final ThreadLocal<Random> threadRandom = new ThreadLocal<>();
+
+    /**
+     * Restarts the random numbers of every stream from a seed. Runs started from the same seed with the same inputs
+     * play out the same way.
+     *
+     * @param seed the seed to start from
+     */
+    public static void setSeed(long seed) {
+        random.setSeed(seed);
+        generation.setSeed(seed + STREAM_SEED_STEP);
+        spawns.setSeed(seed + 2 * STREAM_SEED_STEP);
+        loot.setSeed(seed + 3 * STREAM_SEED_STEP);
+        ai.setSeed(seed + 4 * STREAM_SEED_STEP);
+    }
+
+    /**
+     * Returns the next random number of the shared stream, in the same range as Math.random.
+     *
+     * @return a random number from 0, inclusive, to 1, exclusive
+     */
+    public static double nextDouble() {
+        return get(random).nextDouble();
+    }
+
+    /**
+     * Returns a random seed from the shared stream, for example to seed the generators of parallel tasks.
+     *
+     * @return a random long
+     */
+    public static long nextLong() {
+        return get(random).nextLong();
+    }
+
+    /**
+     * Returns the stream for level generation: the sets, seeds and layouts of levels.
+     *
+     * @return the generator of the stream
+     */
+    public static Random generation() {
+        return get(generation);
+    }
+
+    /**
+     * Returns the stream for spawning: the types of enemies and bosses, and where the player starts.
+     *
+     * @return the generator of the stream
+     */
+    public static Random spawns() {
+        return get(spawns);
+    }
+
+    /**
+     * Returns the stream for loot: the contents of chests and the items that drop from them.
+     *
+     * @return the generator of the stream
+     */
+    public static Random loot() {
+        return get(loot);
+    }
+
+    /**
+     * Returns the stream for enemy behaviour, such as where enemies teleport, fly and throw, and on which ticks
+     * distant enemies are updated.
+     *
+     * @return the generator of the stream
+     */
+    public static Random ai() {
+        return get(ai);
+    }
+
+    /**
+     * Makes the current thread draw its numbers from its own generator instead of the shared streams.
+     * Every stream draws from it until it is removed.
+     *
+     * @param r the generator to use, or null to go back to the shared streams
+     */
+    public static void setThreadRandom(Random r) {
+        if (r == null) threadRandom.remove();
+        else threadRandom.set(r);
+    }
+
+    /**
+     * Returns the current thread's own generator if it has one, and a stream otherwise.
+     */
+    private static Random get(Random stream) {
+        Random r = threadRandom.get();
+        return r == null ? stream : r;
+    }
+}
@@ -0,0 +1,81 @@
+package Universal;
+
+import Structure.Vector2F;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Everything one camera draws for one tick, recorded on the simulation thread and painted later on the Swing thread.
+ * <p>
+ * Shapes are kept in world units, together with how far the entity they belong to moved during the tick,
+ * so painting can place them anywhere between the previous and the current tick, the same way the camera is blended.
+ * The arrays are reused from frame to frame.
+ * </p>
+ */
+class RenderFrame {
+    static final int IMAGE = 0, LINE = 1, COORDINATE = 2;
+
+    int size = 0;
+    int[] kinds = new int[256];
+    int[] points = new int[256 * 4]; // Corners of an image, ends of a line, or the point of a coordinate
+    int[] motion = new int[256 * 2]; // Previous position minus current position of the shape's entity
+    BufferedImage[] images = new BufferedImage[256];
+    Color[] colours = new Color[256];
+    float[] sizes = new float[256];
+
+    final Vector2F offset = new Vector2F(), previousOffset = new Vector2F();
+    double scaling;
+    boolean enabled;
+
+    /**
+     * Empties the frame before a new tick is recorded into it.
+     */
+    void clear() {
+        Arrays.fill(images, 0, size, null);
+        Arrays.fill(colours, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Adds a shape to the frame.
+     *
+     * @param kind    the kind of shape, IMAGE, LINE or COORDINATE
+     * @param x1      the x-coordinate of the first corner, end or point
+     * @param y1      the y-coordinate of the first corner, end or point
+     * @param x2      the x-coordinate of the second corner or end
+     * @param y2      the y-coordinate of the second corner or end
+     * @param image   the image to draw, for images
+     * @param colour  the colour to draw with, for lines and coordinates
+     * @param size    the size of a coordinate
+     * @param motion  the previous position minus the current position of the entity being drawn
+     */
+    void add(int kind, int x1, int y1, int x2, int y2, BufferedImage image, Color colour, float size, Vector2F motion) {
+        if (this.size == kinds.length) grow();
+        int i = this.size++;
+        kinds[i] = kind;
+        points[i * 4] = x1;
+        points[i * 4 + 1] = y1;
+        points[i * 4 + 2] = x2;
+        points[i * 4 + 3] = y2;
+        this.motion[i * 2] = motion.getX();
+        this.motion[i * 2 + 1] = motion.getY();
+        images[i] = image;
+        colours[i] = colour;
+        sizes[i] = size;
+    }
+
+    /**
+     * Doubles the space for shapes.
+     */
+    private void grow() {
+        int capacity = kinds.length * 2;
+        kinds = Arrays.copyOf(kinds, capacity);
+        points = Arrays.copyOf(points, capacity * 4);
+        motion = Arrays.copyOf(motion, capacity * 2);
+        images = Arrays.copyOf(images, capacity);
+        colours = Arrays.copyOf(colours, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+    }
+}
@@ -0,0 +1,56 @@
+package Universal;
+
+import java.util.ArrayList;
+
+/**
+ * The SharedEffects class holds back changes to state shared between rooms, such as damage to the player,
+ * while rooms are updated in parallel.
+ * <p>
+ * Code that changes shared state hands the change to {@link #apply(Runnable)}. On a thread that is collecting,
+ * the change is added to that thread's list and applied later, on one thread and in a fixed order,
+ * so a parallel update gives the same result every time. On any other thread the change is applied straight away,
+ * so code running on the game thread behaves exactly as if the change had been made directly.
+ * </p>
+ */
+public class SharedEffects {
+    private static final ThreadLocal<ArrayList<Runnable>> collecting = new ThreadLocal<>();
+
+    /**
+     * Applies a change to shared state, or holds it back if the current thread is collecting changes.
+     *
+     * @param effect the change to apply
+     */
+    public static void apply(Runnable effect) {
+        ArrayList<Runnable> effects = collecting.get();
+        if (effects == null) effect.run();
+        else effects.add(effect);
+    }
+
+    /**
+     * Starts holding back the changes made on the current thread.
+     *
+     * @param effects the list to add the changes to, in the order they are made
+     */
+    public static void collect(ArrayList<Runnable> effects) {
+        collecting.set(effects);
+    }
+
+    /**
+     * Stops holding back the changes made on the current thread. Changes already collected are not applied.
+     */
+    public static void stopCollecting() {
+        collecting.remove();
+    }
+
+    /**
+     * Applies collected changes in the order they were made, then clears the list.
+     *
+     * @param effects the changes to apply
+     */
+    public static void applyAll(ArrayList<Runnable> effects) {
+        for (Runnable effect : effects) {
+            effect.run();
+        }
+        effects.clear();
+    }
+}